@@ -0,0 +1,197 @@
+package lk.sliit.customer_care_system.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.core.Authentication;
+
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Who is connected to which chat session, fed by the inbound STOMP frames of every connection.
+ *
+ * CONNECT registers a connection, SUBSCRIBE/UNSUBSCRIBE of /topic/chat/{sessionId} attach it to
+ * chat sessions and DISCONNECT (also sent by Spring when a socket just drops) removes it. Every
+ * frame, heart-beats included, only bumps the connection's last-seen time: nothing is locked and
+ * nothing is written to the database. A connection silent for {@code staleAfterMs} counts as
+ * offline until it is heard from again. Chat sessions whose presence changed are collected for
+ * {@code ChatPresenceService} to broadcast.
+ */
+public class ChatPresenceRegistry implements ChannelInterceptor {
+
+    private static final String CHAT_TOPIC_PREFIX = "/topic/chat/";
+
+    private final long staleAfterMs;
+
+    // WebSocket session id -> connection
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    // Chat session id -> WebSocket session ids subscribed to its topic
+    private final Map<String, Set<String>> watchers = new ConcurrentHashMap<>();
+    // Chat sessions whose participants changed since the last drain
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+    public ChatPresenceRegistry(long staleAfterMs) {
+        this.staleAfterMs = staleAfterMs;
+    }
+
+    /**
+     * A chat participant as seen by the other side; several tabs of one user count once.
+     */
+    public record Participant(String username, boolean staff, boolean online, long lastSeen) {}
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null || accessor.getSessionId() == null || accessor.getMessageType() == null) {
+            return message;
+        }
+        String id = accessor.getSessionId();
+        SimpMessageType type = accessor.getMessageType();
+        if (type == SimpMessageType.CONNECT) {
+            connections.put(id, new Connection(accessor.getUser()));
+            return message;
+        }
+        if (type == SimpMessageType.DISCONNECT) {
+            Connection connection = connections.remove(id);
+            if (connection != null) {
+                connection.subscriptions.values().forEach(chatSessionId -> leave(id, chatSessionId));
+            }
+            return message;
+        }
+
+        Connection connection = connections.get(id);
+        if (connection == null) {
+            return message;
+        }
+        seen(connection);
+        if (type == SimpMessageType.SUBSCRIBE) {
+            String destination = accessor.getDestination();
+            if (destination != null && destination.startsWith(CHAT_TOPIC_PREFIX) && accessor.getSubscriptionId() != null) {
+                String chatSessionId = destination.substring(CHAT_TOPIC_PREFIX.length());
+                connection.subscriptions.put(accessor.getSubscriptionId(), chatSessionId);
+                watchers.computeIfAbsent(chatSessionId, k -> ConcurrentHashMap.newKeySet()).add(id);
+                changed.add(chatSessionId);
+            }
+        } else if (type == SimpMessageType.UNSUBSCRIBE && accessor.getSubscriptionId() != null) {
+            String chatSessionId = connection.subscriptions.remove(accessor.getSubscriptionId());
+            if (chatSessionId != null) {
+                leave(id, chatSessionId);
+            }
+        }
+        return message;
+    }
+
+    private void seen(Connection connection) {
+        connection.lastSeen = System.currentTimeMillis();
+        if (connection.stale) {
+            connection.stale = false;
+            changed.addAll(connection.subscriptions.values());
+        }
+    }
+
+    private void leave(String id, String chatSessionId) {
+        watchers.computeIfPresent(chatSessionId, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+        changed.add(chatSessionId);
+    }
+
+    // --- Reads ---
+
+    public List<Participant> participants(String chatSessionId) {
+        Set<String> ids = watchers.getOrDefault(chatSessionId, Set.of());
+        Map<String, Participant> byUser = new LinkedHashMap<>();
+        for (String id : ids) {
+            Connection connection = connections.get(id);
+            if (connection == null) {
+                continue;
+            }
+            Participant participant = new Participant(connection.username, connection.staff,
+                    !connection.stale, connection.lastSeen);
+            byUser.merge(connection.username, participant, (a, b) -> new Participant(a.username(), a.staff(),
+                    a.online() || b.online(), Math.max(a.lastSeen(), b.lastSeen())));
+        }
+        return new ArrayList<>(byUser.values());
+    }
+
+    // Whether a connection is subscribed to the chat session (typing events are only taken from participants)
+    public boolean isWatching(String webSocketSessionId, String chatSessionId) {
+        Set<String> ids = watchers.get(chatSessionId);
+        return ids != null && ids.contains(webSocketSessionId);
+    }
+
+    public String username(String webSocketSessionId) {
+        Connection connection = connections.get(webSocketSessionId);
+        return connection != null ? connection.username : null;
+    }
+
+    public boolean isStaff(String webSocketSessionId) {
+        Connection connection = connections.get(webSocketSessionId);
+        return connection != null && connection.staff;
+    }
+
+    /**
+     * At most one accepted call per {@code minGapMs} per connection (compare-and-set, no lock).
+     */
+    public boolean tryAcquireTyping(String webSocketSessionId, long minGapMs) {
+        Connection connection = connections.get(webSocketSessionId);
+        if (connection == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long last = connection.lastTypingAt.get();
+        return now - last >= minGapMs && connection.lastTypingAt.compareAndSet(last, now);
+    }
+
+    /**
+     * Marks connections silent for too long as offline, then hands out (and forgets) the chat
+     * sessions whose presence changed.
+     */
+    public Set<String> drainChanged() {
+        long cutoff = System.currentTimeMillis() - staleAfterMs;
+        for (Connection connection : connections.values()) {
+            if (!connection.stale && connection.lastSeen < cutoff) {
+                connection.stale = true;
+                changed.addAll(connection.subscriptions.values());
+            }
+        }
+        Set<String> drained = new HashSet<>();
+        for (Iterator<String> it = changed.iterator(); it.hasNext(); ) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connections.size());
+        stats.put("staleConnections", connections.values().stream().filter(c -> c.stale).count());
+        stats.put("watchedChatSessions", watchers.size());
+        stats.put("staleAfterMs", staleAfterMs);
+        return stats;
+    }
+
+    private static final class Connection {
+        private final String username;
+        private final boolean staff;
+        // STOMP subscription id -> chat session id
+        private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+        private final AtomicLong lastTypingAt = new AtomicLong();
+        private volatile long lastSeen = System.currentTimeMillis();
+        private volatile boolean stale;
+
+        private Connection(Principal user) {
+            this.username = user != null ? user.getName() : "anonymous";
+            this.staff = user instanceof Authentication authentication && authentication.getAuthorities().stream()
+                    .anyMatch(a -> "ROLE_AGENT".equals(a.getAuthority()) || "ROLE_ADMIN".equals(a.getAuthority()));
+        }
+    }
+}
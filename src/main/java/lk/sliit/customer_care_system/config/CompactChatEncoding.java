@@ -0,0 +1,240 @@
+package lk.sliit.customer_care_system.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compact encoding of chat messages on /topic/chat/{sessionId}, chosen per connection.
+ *
+ * A client opts in with the STOMP CONNECT header {@code chat-encoding: compact-1}. Its chat
+ * messages then arrive with content type {@code application/x-chat-compact} instead of JSON:
+ * <pre>
+ * M&lt;id&gt;;&lt;messageKey&gt;;&lt;sender&gt;;&lt;type&gt;;&lt;createdAt&gt;;&lt;flags&gt;;&lt;length&gt;:&lt;content&gt;[;&lt;seq&gt;]
+ * </pre>
+ * Numbers are base 36, an empty field is null. createdAt is epoch millis, type is U, A or S,
+ * flags are 1 (edited) + 2 (deleted). The sender is {@code <id>=<length>:<username>}, or
+ * {@code =<length>:<username>} for messages without a user id (system messages). The username is
+ * repeated on every frame rather than sent once per connection: outbound frames are neither
+ * ordered nor guaranteed (the send buffer may drop the oldest), so a frame cannot rely on an
+ * earlier one having defined the name. Lengths count
+ * UTF-16 units, like String.length() in Java and JavaScript. The per-session sequence number
+ * follows the content when the message has one. Other frames on the topic (persisted
+ * acks) stay JSON. static/js/chat-codec.js decodes both.
+ *
+ * Registered on the inbound channel (CONNECT/DISCONNECT) and the outbound channel (MESSAGE). A
+ * broadcast is converted once, not once per subscriber: converted frames are cached by payload.
+ */
+public class CompactChatEncoding implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactChatEncoding.class);
+
+    public static final String ENCODING_HEADER = "chat-encoding";
+    public static final String COMPACT_V1 = "compact-1";
+    public static final MimeType CONTENT_TYPE = new MimeType("application", "x-chat-compact");
+
+    private static final String CHAT_TOPIC_PREFIX = "/topic/chat/";
+    // Cached for payloads that are not chat messages, so they are not parsed again
+    private static final byte[] NOT_A_CHAT_MESSAGE = new byte[0];
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int cacheSize;
+
+    // WebSocket session ids that asked for compact frames
+    private final Set<String> compactSessions = ConcurrentHashMap.newKeySet();
+    private final LinkedHashMap<ByteBuffer, byte[]> recent;
+
+    private final LongAdder encodedFrames = new LongAdder();
+    private final LongAdder conversions = new LongAdder();
+    private final LongAdder jsonBytes = new LongAdder();
+    private final LongAdder compactBytes = new LongAdder();
+
+    public CompactChatEncoding(int cacheSize) {
+        this.cacheSize = cacheSize;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, byte[]> eldest) {
+                return size() > CompactChatEncoding.this.cacheSize;
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor == null || accessor.getMessageType() == null || accessor.getSessionId() == null) {
+            return message;
+        }
+        String sessionId = accessor.getSessionId();
+        if (accessor.getMessageType() == SimpMessageType.CONNECT) {
+            if (wantsCompact(accessor.getFirstNativeHeader(ENCODING_HEADER))) {
+                compactSessions.add(sessionId);
+            }
+        } else if (accessor.getMessageType() == SimpMessageType.DISCONNECT) {
+            // Also sent by Spring when the connection drops without a DISCONNECT frame
+            compactSessions.remove(sessionId);
+        } else if (accessor.getMessageType() == SimpMessageType.MESSAGE) {
+            String destination = accessor.getDestination();
+            if (compactSessions.contains(sessionId) && destination != null && destination.startsWith(CHAT_TOPIC_PREFIX)
+                    && message.getPayload() instanceof byte[] payload) {
+                return encode(message, payload);
+            }
+        }
+        return message;
+    }
+
+    // Comma-separated preference list, e.g. "compact-1, json"
+    private static boolean wantsCompact(String header) {
+        if (header == null) {
+            return false;
+        }
+        return Arrays.stream(header.split(",")).map(String::trim).anyMatch(COMPACT_V1::equals);
+    }
+
+    private Message<?> encode(Message<?> message, byte[] payload) {
+        byte[] body = encoded(payload);
+        if (body == NOT_A_CHAT_MESSAGE) {
+            return message;
+        }
+        encodedFrames.increment();
+        jsonBytes.add(payload.length);
+        compactBytes.add(body.length);
+
+        MessageHeaderAccessor headers = MessageHeaderAccessor.getMutableAccessor(message);
+        headers.setContentType(CONTENT_TYPE);
+        if (headers instanceof NativeMessageHeaderAccessor nativeHeaders) {
+            // Frames relayed from an external broker carry the original content-type as a native header
+            nativeHeaders.setNativeHeader("content-type", CONTENT_TYPE.toString());
+        }
+        return MessageBuilder.createMessage(body, headers.getMessageHeaders());
+    }
+
+    // Same bytes (one broadcast to many subscribers, or the same relayed frame) convert once
+    private byte[] encoded(byte[] payload) {
+        ByteBuffer key = ByteBuffer.wrap(payload);
+        synchronized (recent) {
+            byte[] cached = recent.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        byte[] encoded = convert(payload);
+        conversions.increment();
+        synchronized (recent) {
+            recent.put(key, encoded);
+        }
+        return encoded;
+    }
+
+    byte[] convert(byte[] payload) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(payload);
+        } catch (IOException e) {
+            return NOT_A_CHAT_MESSAGE;
+        }
+        if (node == null || !node.isObject() || node.has("type") || !node.hasNonNull("content")) {
+            return NOT_A_CHAT_MESSAGE;
+        }
+        String type = switch (node.path("senderType").asText()) {
+            case "USER" -> "U";
+            case "AGENT" -> "A";
+            case "SYSTEM" -> "S";
+            default -> null;
+        };
+        if (type == null) {
+            return NOT_A_CHAT_MESSAGE;
+        }
+
+        StringBuilder sb = new StringBuilder("M");
+        appendNumber(sb, longOrNull(node.get("id"))).append(';');
+        appendNumber(sb, longOrNull(node.get("messageKey"))).append(';');
+        appendNumber(sb, longOrNull(node.get("senderId")));
+        if (node.hasNonNull("senderUsername")) {
+            appendString(sb.append('='), node.get("senderUsername").asText());
+        }
+
+        int flags = (node.path("isEdited").asBoolean(false) ? 1 : 0) | (node.path("isDeleted").asBoolean(false) ? 2 : 0);
+        sb.append(';').append(type).append(';');
+        appendNumber(sb, epochMillis(node.get("createdAt"))).append(';').append(flags).append(';');
+        appendString(sb, node.get("content").asText());
+        Long seq = longOrNull(node.get("seq"));
+        if (seq != null) {
+            appendNumber(sb.append(';'), seq);
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Long longOrNull(JsonNode node) {
+        return node != null && node.canConvertToLong() ? node.asLong() : null;
+    }
+
+    // LocalDateTime as written by Boot's ObjectMapper (ISO text) or as a [y, M, d, h, m, s, n] array
+    private static Long epochMillis(JsonNode node) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        try {
+            if (node.isTextual()) {
+                String text = node.asText();
+                try {
+                    return LocalDateTime.parse(text).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                } catch (DateTimeParseException e) {
+                    return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+                }
+            }
+            if (node.isArray() && node.size() >= 5) {
+                LocalDateTime time = LocalDateTime.of(node.get(0).asInt(), node.get(1).asInt(), node.get(2).asInt(),
+                        node.get(3).asInt(), node.get(4).asInt(), node.path(5).asInt(0), node.path(6).asInt(0));
+                return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Unreadable createdAt {} in chat frame", node);
+        }
+        return null;
+    }
+
+    private static StringBuilder appendNumber(StringBuilder sb, Long value) {
+        return value != null ? sb.append(Long.toString(value, 36)) : sb;
+    }
+
+    private static StringBuilder appendString(StringBuilder sb, String value) {
+        return sb.append(Integer.toString(value.length(), 36)).append(':').append(value);
+    }
+
+    // --- Metrics ---
+
+    public Map<String, Object> stats() {
+        long json = jsonBytes.sum();
+        long compact = compactBytes.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("compactSessions", compactSessions.size());
+        stats.put("encodedFrames", encodedFrames.sum());
+        stats.put("conversions", conversions.sum());
+        stats.put("jsonBytes", json);
+        stats.put("compactBytes", compact);
+        stats.put("compression", json == 0 ? 0.0 : (double) compact / json);
+        return stats;
+    }
+}
@@ -0,0 +1,388 @@
+package lk.sliit.customer_care_system.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal STOMP 1.2 broker over TCP, used as a local stand-in for an external broker
+ * ({@code chat.broker.mode=embedded}) and in tests.
+ *
+ * Supports CONNECT/STOMP, SUBSCRIBE, UNSUBSCRIBE, SEND (fan-out to exact destination matches),
+ * DISCONNECT and receipts. No persistence, acknowledgements or transactions. Heart-beats are
+ * negotiated as in STOMP 1.2 with {@code heartbeatMs} as the broker's own interval, so clients
+ * behind the relay keep sending theirs (chat presence counts on them); a silent client is not
+ * disconnected. One thread per connection.
+ */
+public class EmbeddedStompBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedStompBroker.class);
+
+    private final int requestedPort;
+    // 0 = no heart-beats
+    private final long heartbeatMs;
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong messageIds = new AtomicLong();
+
+    private volatile ServerSocket serverSocket;
+    private volatile ScheduledExecutorService heartbeats;
+    private volatile boolean running;
+
+    public EmbeddedStompBroker(int port, long heartbeatMs) {
+        this.requestedPort = port;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        serverSocket = new ServerSocket(requestedPort, 50, InetAddress.getLoopbackAddress());
+        heartbeats = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "stomp-broker-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "stomp-broker-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Embedded STOMP broker listening on port {}", getPort());
+    }
+
+    public synchronized void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        connections.forEach(Connection::close);
+        connections.clear();
+        subscriptions.clear();
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+    }
+
+    // Actual port (useful when started with port 0)
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : requestedPort;
+    }
+
+    public int connectionCount() {
+        return connections.size();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread reader = new Thread(connection::readLoop, "stomp-broker-conn");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (running) {
+                    logger.warn("Embedded STOMP broker accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void publish(Frame send) {
+        String destination = send.headers.get("destination");
+        Set<Subscription> targets = destination != null ? subscriptions.get(destination) : null;
+        if (targets == null || targets.isEmpty()) {
+            return;
+        }
+        for (Subscription subscription : targets) {
+            Map<String, String> headers = new LinkedHashMap<>(send.headers);
+            headers.remove("receipt");
+            headers.remove("transaction");
+            headers.put("subscription", subscription.id);
+            headers.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+            subscription.connection.send(new Frame("MESSAGE", headers, send.body));
+        }
+    }
+
+    private record Subscription(Connection connection, String id, String destination) {}
+
+    private final class Connection {
+        private final Socket socket;
+        private final OutputStream out;
+        private final Map<String, Subscription> byId = new ConcurrentHashMap<>();
+        private volatile ScheduledFuture<?> heartbeat;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        private void readLoop() {
+            try (InputStream in = new BufferedInputStream(socket.getInputStream())) {
+                Frame frame;
+                while ((frame = Frame.read(in)) != null) {
+                    if (!handle(frame)) {
+                        break;
+                    }
+                }
+            } catch (SocketException e) {
+                // peer went away
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Embedded STOMP connection failed: {}", e.getMessage());
+                send(new Frame("ERROR", Map.of("message", String.valueOf(e.getMessage())), new byte[0]));
+            } finally {
+                close();
+            }
+        }
+
+        // Returns false when the connection should end
+        private boolean handle(Frame frame) {
+            switch (frame.command) {
+                case "CONNECT", "STOMP" -> send(new Frame("CONNECTED", Map.of("version", "1.2",
+                        "heart-beat", negotiateHeartbeat(frame.headers.get("heart-beat")), "server", "embedded-stomp"),
+                        new byte[0]));
+                case "SUBSCRIBE" -> {
+                    String id = frame.headers.get("id");
+                    String destination = frame.headers.get("destination");
+                    if (id == null || destination == null) {
+                        send(error("SUBSCRIBE requires id and destination"));
+                        return false;
+                    }
+                    Subscription subscription = new Subscription(this, id, destination);
+                    byId.put(id, subscription);
+                    subscriptions.computeIfAbsent(destination, d -> new CopyOnWriteArraySet<>()).add(subscription);
+                }
+                case "UNSUBSCRIBE" -> {
+                    Subscription subscription = byId.remove(String.valueOf(frame.headers.get("id")));
+                    if (subscription != null) {
+                        unsubscribe(subscription);
+                    }
+                }
+                case "SEND" -> publish(frame);
+                case "DISCONNECT" -> {
+                    sendReceipt(frame);
+                    return false;
+                }
+                case "ACK", "NACK", "BEGIN", "COMMIT", "ABORT" -> { } // accepted, nothing to do without persistence
+                default -> {
+                    send(error("Unsupported command " + frame.command));
+                    return false;
+                }
+            }
+            sendReceipt(frame);
+            return true;
+        }
+
+        // Client asks "cx,cy": we send every max(heartbeatMs, cy) when both are set, and ask for
+        // heartbeatMs in return (the client then sends every max(cx, heartbeatMs))
+        private String negotiateHeartbeat(String requested) {
+            if (heartbeatMs <= 0) {
+                return "0,0";
+            }
+            long clientWants = 0;
+            if (requested != null && requested.indexOf(',') > 0) {
+                try {
+                    clientWants = Long.parseLong(requested.substring(requested.indexOf(',') + 1).trim());
+                } catch (NumberFormatException e) {
+                    logger.debug("Ignoring malformed heart-beat header {}", requested);
+                }
+            }
+            if (clientWants > 0 && heartbeat == null) {
+                long every = Math.max(heartbeatMs, clientWants);
+                heartbeat = heartbeats.scheduleAtFixedRate(this::sendHeartbeat, every, every, TimeUnit.MILLISECONDS);
+            }
+            return heartbeatMs + "," + heartbeatMs;
+        }
+
+        // A heart-beat is a single EOL between frames
+        private void sendHeartbeat() {
+            synchronized (out) {
+                try {
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException e) {
+                    close();
+                }
+            }
+        }
+
+        private void sendReceipt(Frame frame) {
+            String receipt = frame.headers.get("receipt");
+            if (receipt != null) {
+                send(new Frame("RECEIPT", Map.of("receipt-id", receipt), new byte[0]));
+            }
+        }
+
+        private Frame error(String message) {
+            return new Frame("ERROR", Map.of("message", message), new byte[0]);
+        }
+
+        private void send(Frame frame) {
+            synchronized (out) {
+                try {
+                    frame.write(out);
+                    out.flush();
+                } catch (IOException e) {
+                    close();
+                }
+            }
+        }
+
+        private void unsubscribe(Subscription subscription) {
+            Set<Subscription> set = subscriptions.get(subscription.destination);
+            if (set != null) {
+                set.remove(subscription);
+            }
+        }
+
+        private void close() {
+            if (!connections.remove(this)) {
+                return;
+            }
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+            }
+            byId.values().forEach(this::unsubscribe);
+            byId.clear();
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+
+    /**
+     * One STOMP frame: command line, escaped headers, blank line, body, NUL.
+     */
+    static final class Frame {
+        final String command;
+        final Map<String, String> headers;
+        final byte[] body;
+
+        Frame(String command, Map<String, String> headers, byte[] body) {
+            this.command = command;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        // null at end of stream; heart-beat EOLs between frames are skipped
+        static Frame read(InputStream in) throws IOException {
+            String command;
+            do {
+                command = readLine(in);
+                if (command == null) {
+                    return null;
+                }
+            } while (command.isEmpty());
+
+            Map<String, String> headers = new LinkedHashMap<>();
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    // First occurrence of a repeated header wins (STOMP 1.2)
+                    headers.putIfAbsent(unescape(line.substring(0, colon)), unescape(line.substring(colon + 1)));
+                }
+            }
+            if (line == null) {
+                return null;
+            }
+
+            byte[] body;
+            String contentLength = headers.get("content-length");
+            if (contentLength != null) {
+                body = in.readNBytes(Integer.parseInt(contentLength.trim()));
+                if (in.read() != 0) {
+                    throw new IOException("Frame body not terminated by NUL");
+                }
+            } else {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                int b;
+                while ((b = in.read()) > 0) {
+                    buffer.write(b);
+                }
+                if (b < 0) {
+                    return null;
+                }
+                body = buffer.toByteArray();
+            }
+            return new Frame(command, headers, body);
+        }
+
+        void write(OutputStream out) throws IOException {
+            StringBuilder head = new StringBuilder(command).append('\n');
+            headers.forEach((name, value) -> {
+                if (!"content-length".equals(name)) {
+                    head.append(escape(name)).append(':').append(escape(value)).append('\n');
+                }
+            });
+            head.append("content-length:").append(body.length).append("\n\n");
+            out.write(head.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(body);
+            out.write(0);
+        }
+
+        // Lines end with LF or CRLF
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    byte[] bytes = line.toByteArray();
+                    int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+                    return new String(bytes, 0, length, StandardCharsets.UTF_8);
+                }
+                line.write(b);
+            }
+            return null;
+        }
+
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\r", "\\r").replace("\n", "\\n").replace(":", "\\c");
+        }
+
+        private static String unescape(String value) {
+            if (value.indexOf('\\') < 0) {
+                return value;
+            }
+            StringBuilder sb = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' && i + 1 < value.length()) {
+                    char next = value.charAt(++i);
+                    switch (next) {
+                        case 'n' -> sb.append('\n');
+                        case 'r' -> sb.append('\r');
+                        case 'c' -> sb.append(':');
+                        default -> sb.append(next);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package lk.sliit.customer_care_system.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps slow WebSocket clients from holding up the threads that serve everyone else.
+ *
+ * Every session gets its own bounded send queue. {@code sendMessage} only enqueues; a small
+ * writer pool drains the queues, one writer per session at a time, so a stalled client ties up
+ * at most one writer and never an outbound channel thread. A queue over its frame or byte limit
+ * either drops its oldest MESSAGE frames (control frames such as CONNECTED, RECEIPT and ERROR
+ * are never dropped) or disconnects the client, which then reconnects and reloads history. A
+ * watchdog disconnects clients whose current send has been blocked longer than the send time
+ * limit.
+ */
+public class OutboundSessionGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundSessionGuard.class);
+
+    public enum OverflowPolicy { DROP_OLDEST, DISCONNECT }
+
+    private final int maxQueuedFrames;
+    private final int maxQueuedBytes;
+    private final long sendTimeLimitMs;
+    private final OverflowPolicy overflowPolicy;
+
+    private final ExecutorService writers;
+    private final ScheduledExecutorService watchdog;
+    private final Map<String, GuardedSession> sessions = new ConcurrentHashMap<>();
+
+    private final LongAdder sentFrames = new LongAdder();
+    private final LongAdder droppedFrames = new LongAdder();
+    private final LongAdder overflowDisconnects = new LongAdder();
+    private final LongAdder slowSendDisconnects = new LongAdder();
+
+    public OutboundSessionGuard(int writerThreads, int maxQueuedFrames, int maxQueuedBytes,
+                                long sendTimeLimitMs, OverflowPolicy overflowPolicy) {
+        this.maxQueuedFrames = maxQueuedFrames;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.overflowPolicy = overflowPolicy;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Unbounded task queue, but at most one drain task per session is ever queued
+        this.writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread thread = new Thread(r, "ws-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ws-send-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(100, sendTimeLimitMs / 2);
+        watchdog.scheduleWithFixedDelay(this::disconnectStalledSenders, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Handler decorator for {@code WebSocketTransportRegistration#addDecoratorFactory}: the
+     * STOMP handler only ever sees guarded sessions.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                GuardedSession guarded = new GuardedSession(session);
+                sessions.put(session.getId(), guarded);
+                super.afterConnectionEstablished(guarded);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                super.handleMessage(guarded(session), message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                super.handleTransportError(guarded(session), exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                GuardedSession guarded = sessions.remove(session.getId());
+                if (guarded != null) {
+                    guarded.discardQueue();
+                }
+                super.afterConnectionClosed(guarded != null ? guarded : session, closeStatus);
+            }
+        };
+    }
+
+    private WebSocketSession guarded(WebSocketSession session) {
+        GuardedSession guarded = sessions.get(session.getId());
+        return guarded != null ? guarded : session;
+    }
+
+    private void disconnectStalledSenders() {
+        long now = System.currentTimeMillis();
+        for (GuardedSession session : sessions.values()) {
+            long started = session.sendStartedAt;
+            if (started > 0 && now - started > sendTimeLimitMs) {
+                slowSendDisconnects.increment();
+                logger.info("WebSocket session {} blocked a send for {} ms, disconnecting", session.getId(), now - started);
+                session.closeForPolicy();
+            }
+        }
+    }
+
+    // --- Metrics ---
+
+    public Map<String, Object> stats() {
+        List<Map<String, Object>> busiest = sessions.values().stream()
+                .sorted(Comparator.comparingInt(GuardedSession::queuedFrames).reversed())
+                .limit(20)
+                .map(session -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("sessionId", session.getId());
+                    row.put("queuedFrames", session.queuedFrames());
+                    row.put("queuedBytes", session.queuedBytes());
+                    row.put("sending", session.sendStartedAt > 0);
+                    return row;
+                })
+                .toList();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions.size());
+        stats.put("queuedFrames", sessions.values().stream().mapToInt(GuardedSession::queuedFrames).sum());
+        stats.put("sentFrames", sentFrames.sum());
+        stats.put("droppedFrames", droppedFrames.sum());
+        stats.put("overflowDisconnects", overflowDisconnects.sum());
+        stats.put("slowSendDisconnects", slowSendDisconnects.sum());
+        stats.put("overflowPolicy", overflowPolicy);
+        stats.put("busiestSessions", busiest);
+        return stats;
+    }
+
+    public void shutdown() {
+        watchdog.shutdownNow();
+        writers.shutdownNow();
+    }
+
+    /**
+     * Session whose sends are queued and written by the writer pool.
+     */
+    private final class GuardedSession extends WebSocketSessionDecorator {
+
+        private final ArrayDeque<WebSocketMessage<?>> queue = new ArrayDeque<>();
+        private int queuedBytes;
+        private boolean draining;
+        private volatile boolean closing;
+        private volatile long sendStartedAt;
+
+        private GuardedSession(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            if (closing) {
+                return;
+            }
+            boolean overflow = false;
+            boolean startDrain = false;
+            synchronized (this) {
+                queue.addLast(message);
+                queuedBytes += message.getPayloadLength();
+                if (queue.size() > maxQueuedFrames || queuedBytes > maxQueuedBytes) {
+                    overflow = overflowPolicy == OverflowPolicy.DISCONNECT || !dropOldest();
+                }
+                if (!overflow && !draining) {
+                    draining = true;
+                    startDrain = true;
+                }
+            }
+            if (overflow) {
+                overflowDisconnects.increment();
+                logger.info("WebSocket session {} fell {} frames behind, disconnecting", getId(), queuedFrames());
+                closeForPolicy();
+            } else if (startDrain) {
+                writers.execute(this::drain);
+            }
+        }
+
+        // Drop oldest MESSAGE frames until back within limits; false if that is not possible
+        private boolean dropOldest() {
+            Iterator<WebSocketMessage<?>> it = queue.iterator();
+            while ((queue.size() > maxQueuedFrames || queuedBytes > maxQueuedBytes) && it.hasNext()) {
+                WebSocketMessage<?> candidate = it.next();
+                if (candidate instanceof TextMessage text && text.getPayload().startsWith("MESSAGE")) {
+                    it.remove();
+                    queuedBytes -= candidate.getPayloadLength();
+                    droppedFrames.increment();
+                }
+            }
+            return queue.size() <= maxQueuedFrames && queuedBytes <= maxQueuedBytes;
+        }
+
+        private void drain() {
+            while (true) {
+                WebSocketMessage<?> next;
+                synchronized (this) {
+                    next = closing ? null : queue.pollFirst();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                    queuedBytes -= next.getPayloadLength();
+                }
+                sendStartedAt = System.currentTimeMillis();
+                try {
+                    getDelegate().sendMessage(next);
+                    sentFrames.increment();
+                } catch (IOException | RuntimeException e) {
+                    logger.debug("WebSocket send to {} failed: {}", getId(), e.getMessage());
+                    closeForPolicy();
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+        }
+
+        private void closeForPolicy() {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            discardQueue();
+            try {
+                getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Closing WebSocket session {} failed: {}", getId(), e.getMessage());
+            }
+        }
+
+        private synchronized void discardQueue() {
+            queue.clear();
+            queuedBytes = 0;
+        }
+
+        private synchronized int queuedFrames() {
+            return queue.size();
+        }
+
+        private synchronized int queuedBytes() {
+            return queuedBytes;
+        }
+    }
+}
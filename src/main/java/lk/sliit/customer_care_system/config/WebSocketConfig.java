@@ -1,13 +1,103 @@
 package lk.sliit.customer_care_system.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.*;
 
+/**
+ * STOMP over SockJS at /chat.
+ *
+ * {@code chat.broker.mode} picks the broker behind /topic and /queue:
+ * simple (in-process, single node, default), relay (external STOMP broker such as RabbitMQ or
+ * ActiveMQ, so several app nodes share subscriptions) or embedded (relay to an
+ * {@link EmbeddedStompBroker} started in this process, a local stand-in for the external one).
+ * Clients may ask for {@link CompactChatEncoding} chat frames when they connect; inbound frames
+ * feed {@link ChatPresenceRegistry}.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Value("${chat.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${chat.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${chat.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${chat.broker.relay.client-login:guest}")
+    private String clientLogin;
+
+    @Value("${chat.broker.relay.client-passcode:guest}")
+    private String clientPasscode;
+
+    @Value("${chat.broker.relay.system-login:guest}")
+    private String systemLogin;
+
+    @Value("${chat.broker.relay.system-passcode:guest}")
+    private String systemPasscode;
+
+    @Value("${chat.broker.relay.virtual-host:}")
+    private String virtualHost;
+
+    @Value("${chat.broker.embedded.port:61613}")
+    private int embeddedPort;
+
+    // --- Transport policy (see OutboundSessionGuard) ---
+
+    @Value("${chat.transport.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${chat.transport.inbound.max-pool-size:16}")
+    private int inboundMaxPoolSize;
+
+    @Value("${chat.transport.inbound.queue-capacity:2000}")
+    private int inboundQueueCapacity;
+
+    @Value("${chat.transport.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${chat.transport.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+
+    @Value("${chat.transport.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${chat.transport.writer-threads:8}")
+    private int writerThreads;
+
+    @Value("${chat.transport.max-queued-frames:500}")
+    private int maxQueuedFrames;
+
+    @Value("${chat.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${chat.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${chat.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${chat.transport.overflow-policy:DISCONNECT}")
+    private OutboundSessionGuard.OverflowPolicy overflowPolicy;
+
+    @Value("${chat.encoding.cache-size:256}")
+    private int encodingCacheSize;
+
+    @Value("${chat.presence.heartbeat-ms:10000}")
+    private long heartbeatMs;
+
+    @Value("${chat.presence.stale-after-ms:30000}")
+    private long presenceStaleAfterMs;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/chat").setAllowedOriginPatterns("*").withSockJS();
@@ -15,7 +105,95 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        switch (brokerMode) {
+            case "simple" -> config.enableSimpleBroker("/topic", "/queue")
+                    // Client heart-beats keep presence last-seen times fresh while nobody types
+                    .setHeartbeatValue(new long[] {heartbeatMs, heartbeatMs})
+                    .setTaskScheduler(heartbeatScheduler());
+            case "relay" -> configureRelay(config, relayHost, relayPort);
+            case "embedded" -> configureRelay(config, "127.0.0.1", embeddedPort);
+            default -> throw new IllegalArgumentException("Unknown chat.broker.mode: " + brokerMode
+                    + " (expected simple, relay or embedded)");
+        }
         config.setApplicationDestinationPrefixes("/app");
+        config.setUserDestinationPrefix("/user");
+    }
+
+    private void configureRelay(MessageBrokerRegistry config, String host, int port) {
+        StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                .setRelayHost(host)
+                .setRelayPort(port)
+                .setClientLogin(clientLogin)
+                .setClientPasscode(clientPasscode)
+                .setSystemLogin(systemLogin)
+                .setSystemPasscode(systemPasscode)
+                // Client heart-beats are passed through and negotiated by the broker itself
+                .setSystemHeartbeatSendInterval(heartbeatMs)
+                .setSystemHeartbeatReceiveInterval(heartbeatMs)
+                // /user/queue/... targets a session that may live on another node
+                .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                .setUserRegistryBroadcast("/topic/simp-user-registry");
+        if (!virtualHost.isBlank()) {
+            relay.setVirtualHost(virtualHost);
+        }
+    }
+
+    private ThreadPoolTaskScheduler heartbeatScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("ws-heartbeat-");
+        scheduler.setDaemon(true);
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    // Started before the relay connects to it
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "chat.broker.mode", havingValue = "embedded")
+    public EmbeddedStompBroker embeddedStompBroker() {
+        // The broker answers CONNECT, so it decides whether relayed clients send heart-beats
+        return new EmbeddedStompBroker(embeddedPort, heartbeatMs);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public OutboundSessionGuard outboundSessionGuard() {
+        return new OutboundSessionGuard(writerThreads, maxQueuedFrames, sendBufferSizeLimit, sendTimeLimitMs, overflowPolicy);
+    }
+
+    @Bean
+    public ChatPresenceRegistry chatPresenceRegistry() {
+        return new ChatPresenceRegistry(presenceStaleAfterMs);
+    }
+
+    @Bean
+    public CompactChatEncoding compactChatEncoding() {
+        return new CompactChatEncoding(encodingCacheSize);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setMessageSizeLimit(messageSizeLimit)
+                // Spring's own per-session limits stay as a backstop; the guard's queue sits in front of them
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .addDecoratorFactory(outboundSessionGuard()::decorate);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+        registration.interceptors(new TicketTopicSubscriptionInterceptor(), compactChatEncoding(), chatPresenceRegistry());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+        registration.interceptors(compactChatEncoding());
     }
 }
@@ -1,15 +1,18 @@
 package lk.sliit.customer_care_system.controller;
 
-import lk.sliit.customer_care_system.modelentity.ChatMessage;
 import lk.sliit.customer_care_system.modelentity.ChatSession;
 import lk.sliit.customer_care_system.modelentity.FAQ;
-import lk.sliit.customer_care_system.modelentity.Ticket;
 import lk.sliit.customer_care_system.modelentity.User;
 import lk.sliit.customer_care_system.repository.ChatSessionRepository;
-import lk.sliit.customer_care_system.repository.ChatMessageRepository;
 import lk.sliit.customer_care_system.repository.FAQRepository;
 import lk.sliit.customer_care_system.repository.TicketRepository;
 import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.service.AnalyticsService;
+import lk.sliit.customer_care_system.service.ChatLookupCache;
+import lk.sliit.customer_care_system.service.ChatPurgeService;
+import lk.sliit.customer_care_system.service.ChatSessionBoard;
+import lk.sliit.customer_care_system.service.TicketChangeService;
+import lk.sliit.customer_care_system.service.TicketRoutingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -41,15 +44,30 @@ public class AdminController {
     @Autowired
     private ChatSessionRepository chatSessionRepository;
 
-    @Autowired
-    private ChatMessageRepository chatMessageRepository;
-
     @Autowired
     private FAQRepository faqRepository;
 
     @Autowired
     private lk.sliit.customer_care_system.repository.FeedbackRepository feedbackRepository;
 
+    @Autowired
+    private TicketChangeService ticketChangeService;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private TicketRoutingService ticketRoutingService;
+
+    @Autowired
+    private ChatLookupCache chatLookupCache;
+
+    @Autowired
+    private ChatSessionBoard chatSessionBoard;
+
+    @Autowired
+    private ChatPurgeService chatPurgeService;
+
     // Create new agent
     @PostMapping("/create-agent")
     public String createAgent(@RequestParam String username,
@@ -87,7 +105,8 @@ public class AdminController {
         agent.setPhoneNumber(phoneNumber);
         agent.setAddress(address);
 
-        userRepository.save(agent);
+        User savedAgent = userRepository.save(agent);
+        ticketRoutingService.registerAgent(savedAgent);
 
         return "redirect:/admin/dashboard?success=AgentCreated";
     }
@@ -145,24 +164,12 @@ public class AdminController {
             // 1. Delete chat sessions where this user is the user
             System.out.println("Deleting chat sessions for user: " + user.getUsername());
             List<ChatSession> userSessions = chatSessionRepository.findByUserOrderByCreatedAtDesc(user);
-            for (ChatSession session : userSessions) {
-                // Delete messages in each session first using a custom query
-                chatMessageRepository.deleteAll(
-                        chatMessageRepository.findByChatSessionIdOrderByCreatedAtAsc(session.getSessionId()));
-                // Then delete the session
-                chatSessionRepository.delete(session);
-            }
+            // Messages in chunks, then the session rows (ChatPurgeService also clears caches and the board)
+            chatPurgeService.deleteSessions(userSessions.stream().map(ChatSession::getSessionId).toList());
 
             // 2. Delete any remaining chat messages sent by this user
             System.out.println("Deleting remaining chat messages for user: " + user.getUsername());
-            // Use a more efficient approach - delete messages in batches
-            List<ChatMessage> allMessages = chatMessageRepository.findAll();
-            List<ChatMessage> userMessages = allMessages.stream()
-                    .filter(msg -> msg.getSender() != null && msg.getSender().getId().equals(user.getId()))
-                    .toList();
-            if (!userMessages.isEmpty()) {
-                chatMessageRepository.deleteAll(userMessages);
-            }
+            chatPurgeService.deleteMessagesBySender(user.getId());
 
             // 3. Update chat sessions where this user is the agent (set agent to null)
             System.out.println("Updating chat sessions where user is agent: " + user.getUsername());
@@ -170,6 +177,12 @@ public class AdminController {
             for (ChatSession session : agentSessions) {
                 session.setAgent(null);
                 chatSessionRepository.save(session);
+                chatSessionBoard.update(session);
+            }
+
+            // 3b. Move the agent's routed tickets to other agents and clear the rest
+            if ("ROLE_AGENT".equals(user.getRole())) {
+                ticketRoutingService.removeAgent(user.getId());
             }
 
             // 4. Handle Feedbacks (set user to null/anonymous)
@@ -204,10 +217,13 @@ public class AdminController {
             // cascade)
             System.out.println("Deleting tickets for user: " + user.getUsername());
             // Tickets should be deleted automatically due to cascade configuration
+            List<Long> ticketIds = ticketRepository.findIdsByUser(user);
 
             // 8. Finally delete the user
             System.out.println("Deleting user: " + user.getUsername());
             userRepository.delete(user);
+            ticketChangeService.recordDeletions(ticketIds);
+            chatLookupCache.invalidateUser(user.getId());
             System.out.println("User deleted successfully: " + user.getUsername());
 
             return ResponseEntity.ok(Map.of(
@@ -284,36 +300,30 @@ public class AdminController {
 
     @GetMapping("/analytics")
     public String getAnalytics(Model model) {
-        // User Statistics
-        List<User> allUsers = userRepository.findAll();
-        long totalUsers = allUsers.stream().filter(u -> "ROLE_USER".equals(u.getRole())).count();
-        long totalAgents = allUsers.stream().filter(u -> "ROLE_AGENT".equals(u.getRole())).count();
-        long totalAdmins = allUsers.stream().filter(u -> "ROLE_ADMIN".equals(u.getRole())).count();
-
-        // Ticket Statistics
-        List<Ticket> allTickets = ticketRepository.findAll();
-        long totalTickets = allTickets.size();
-        long openTickets = allTickets.stream().filter(t -> "OPEN".equals(t.getStatus())).count();
-        long inProgressTickets = allTickets.stream().filter(t -> "IN_PROGRESS".equals(t.getStatus())).count();
-        long resolvedTickets = allTickets.stream().filter(t -> "RESOLVED".equals(t.getStatus())).count();
-        long closedTickets = allTickets.stream().filter(t -> "CLOSED".equals(t.getStatus())).count();
+        // User Statistics (one GROUP BY role)
+        Map<String, Long> usersByRole = analyticsService.usersByRole();
+        long totalUsers = usersByRole.getOrDefault("ROLE_USER", 0L);
+        long totalAgents = usersByRole.getOrDefault("ROLE_AGENT", 0L);
+        long totalAdmins = usersByRole.getOrDefault("ROLE_ADMIN", 0L);
+
+        // Ticket Statistics (one GROUP BY status, category)
+        Map<String, Map<String, Long>> ticketStatusByCategory = analyticsService.ticketStatusByCategory();
+        Map<String, Long> ticketsByStatus = AnalyticsService.totalsByStatus(ticketStatusByCategory);
+        long totalTickets = ticketsByStatus.values().stream().mapToLong(Long::longValue).sum();
+        long openTickets = ticketsByStatus.getOrDefault("Open", 0L);
+        long inProgressTickets = ticketsByStatus.getOrDefault("In Progress", 0L);
+        long resolvedTickets = ticketsByStatus.getOrDefault("Resolved", 0L);
+        long closedTickets = ticketsByStatus.getOrDefault("Closed", 0L);
 
         // Ticket Category Breakdown
-        Map<String, Long> ticketsByCategory = allTickets.stream()
-                .collect(Collectors.groupingBy(Ticket::getCategory, Collectors.counting()));
-
-        // Chat Session Statistics
-        List<ChatSession> allSessions = chatSessionRepository.findAll();
-        long totalChatSessions = allSessions.size();
-        long activeChatSessions = allSessions.stream()
-                .filter(s -> s.getStatus() == ChatSession.ChatStatus.ACTIVE)
-                .count();
-        long waitingChatSessions = allSessions.stream()
-                .filter(s -> s.getStatus() == ChatSession.ChatStatus.WAITING)
-                .count();
-        long closedChatSessions = allSessions.stream()
-                .filter(s -> s.getStatus() == ChatSession.ChatStatus.CLOSED)
-                .count();
+        Map<String, Long> ticketsByCategory = AnalyticsService.totalsByCategory(ticketStatusByCategory);
+
+        // Chat Session Statistics (one GROUP BY status)
+        Map<String, Long> sessionsByStatus = analyticsService.chatSessionsByStatus();
+        long totalChatSessions = sessionsByStatus.values().stream().mapToLong(Long::longValue).sum();
+        long activeChatSessions = sessionsByStatus.getOrDefault(ChatSession.ChatStatus.ACTIVE.name(), 0L);
+        long waitingChatSessions = sessionsByStatus.getOrDefault(ChatSession.ChatStatus.WAITING.name(), 0L);
+        long closedChatSessions = sessionsByStatus.getOrDefault(ChatSession.ChatStatus.CLOSED.name(), 0L);
 
         // Add all statistics to model
         model.addAttribute("totalUsers", totalUsers);
@@ -327,6 +337,7 @@ public class AdminController {
         model.addAttribute("closedTickets", closedTickets);
 
         model.addAttribute("ticketsByCategory", ticketsByCategory);
+        model.addAttribute("ticketStatusByCategory", ticketStatusByCategory);
 
         model.addAttribute("totalChatSessions", totalChatSessions);
         model.addAttribute("activeChatSessions", activeChatSessions);
@@ -6,6 +6,7 @@ import lk.sliit.customer_care_system.modelentity.User;
 import lk.sliit.customer_care_system.repository.AgentResponseRepository;
 import lk.sliit.customer_care_system.repository.TicketRepository;
 import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.service.TicketEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -21,13 +22,16 @@ public class AgentResponseController {
     private final AgentResponseRepository agentResponseRepository;
     private final TicketRepository ticketRepository;
     private final UserRepository userRepository;
+    private final TicketEventPublisher ticketEventPublisher;
 
     public AgentResponseController(AgentResponseRepository agentResponseRepository,
                                    TicketRepository ticketRepository,
-                                   UserRepository userRepository) {
+                                   UserRepository userRepository,
+                                   TicketEventPublisher ticketEventPublisher) {
         this.agentResponseRepository = agentResponseRepository;
         this.ticketRepository = ticketRepository;
         this.userRepository = userRepository;
+        this.ticketEventPublisher = ticketEventPublisher;
     }
 
     // Add or update a response for a ticket
@@ -58,6 +62,7 @@ public class AgentResponseController {
             ticket.setStatus(action);
             ticket.setUpdatedAt(LocalDateTime.now());
             ticketRepository.save(ticket);
+            ticketEventPublisher.responseAdded(ticket);
 
             return "redirect:/agent/tickets?success=true";
         } catch (Exception e) {
@@ -94,6 +99,7 @@ public class AgentResponseController {
                 ticket.setStatus(status);
                 ticket.setUpdatedAt(LocalDateTime.now());
                 ticketRepository.save(ticket);
+                ticketEventPublisher.statusChanged(ticket);
             }
 
             return "redirect:/agent/tickets?updated=true";
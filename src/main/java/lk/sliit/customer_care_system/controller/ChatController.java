@@ -1,14 +1,28 @@
 package lk.sliit.customer_care_system.controller;
 
+import lk.sliit.customer_care_system.config.OutboundSessionGuard;
+import lk.sliit.customer_care_system.dto.ChatClaimResultDTO;
+import lk.sliit.customer_care_system.dto.ChatHistoryPageDTO;
 import lk.sliit.customer_care_system.dto.ChatMessageDTO;
 import lk.sliit.customer_care_system.modelentity.ChatMessage;
 import lk.sliit.customer_care_system.modelentity.ChatSession;
+import lk.sliit.customer_care_system.modelentity.User;
 import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.service.ChatArchiveService;
+import lk.sliit.customer_care_system.service.ChatLookupCache;
+import lk.sliit.customer_care_system.service.ChatPresenceService;
+import lk.sliit.customer_care_system.service.ChatPurgeService;
+import lk.sliit.customer_care_system.service.ChatRateLimiter;
+import lk.sliit.customer_care_system.service.ChatRecentMessageBuffer;
 import lk.sliit.customer_care_system.service.ChatService;
+import lk.sliit.customer_care_system.service.ChatSessionBoard;
+import lk.sliit.customer_care_system.service.ChatWriteBehindService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -30,6 +44,15 @@ public class ChatController {
     @Autowired private ChatService chatService;
     @Autowired private SimpMessagingTemplate messagingTemplate;
     @Autowired private UserRepository userRepository;
+    @Autowired private ChatWriteBehindService chatWriteBehindService;
+    @Autowired private ChatLookupCache chatLookupCache;
+    @Autowired private ChatRecentMessageBuffer chatRecentMessageBuffer;
+    @Autowired private OutboundSessionGuard outboundSessionGuard;
+    @Autowired private ChatPresenceService chatPresenceService;
+    @Autowired private ChatSessionBoard chatSessionBoard;
+    @Autowired private ChatPurgeService chatPurgeService;
+    @Autowired private ChatArchiveService chatArchiveService;
+    @Autowired private ChatRateLimiter chatRateLimiter;
 
     // ---- User Live Chat ----
     @GetMapping("/live-chat")
@@ -54,6 +77,7 @@ public class ChatController {
             var agent = userRepository.findByUsername(auth.getName())
                     .orElseThrow(() -> new RuntimeException("Agent not found"));
             model.addAttribute("agentId", agent.getId());
+            model.addAttribute("agentUsername", agent.getUsername());
             model.addAttribute("waitingSessions", chatService.getWaitingSessions());
             model.addAttribute("agentSessions", chatService.getAllActiveSessions()); // Show all active sessions
         }
@@ -62,11 +86,31 @@ public class ChatController {
 
     // ---- Message Handling ----
     @MessageMapping("/chat.send")
-    public void sendMessage(@Payload Map<String, Object> payload) {
+    public void sendMessage(@Payload Map<String, Object> payload, SimpMessageHeaderAccessor headerAccessor) {
         try {
+            String sessionId = (String) payload.get("sessionId");
+            Long senderId = Long.valueOf(payload.get("senderId").toString());
+
+            // Token buckets per sender and session, plus a node-wide ceiling, before any work is done.
+            // Keyed on the connection's user, not the payload senderId, which the client controls
+            String sender = headerAccessor.getUser() != null
+                    ? headerAccessor.getUser().getName() : headerAccessor.getSessionId();
+            ChatRateLimiter.Decision decision = chatRateLimiter.tryAcquire(sender, sessionId);
+            if (decision != ChatRateLimiter.Decision.ALLOWED) {
+                Map<String, Object> error = new HashMap<>();
+                error.put("type", "error");
+                error.put("code", "rate_limited");
+                error.put("senderId", senderId);
+                error.put("retryAfterMs", chatRateLimiter.retryAfterMillis(sender, sessionId));
+                error.put("message", decision == ChatRateLimiter.Decision.SENDER_LIMITED
+                        ? "You are sending messages too quickly" : "Chat is busy, please try again shortly");
+                messagingTemplate.convertAndSend("/topic/chat/" + sessionId, error);
+                return;
+            }
+
             chatService.sendMessage(
-                    (String) payload.get("sessionId"),
-                    Long.valueOf(payload.get("senderId").toString()),
+                    sessionId,
+                    senderId,
                     (String) payload.get("content"),
                     ChatMessage.SenderType.valueOf(payload.get("senderType").toString())
             );
@@ -78,33 +122,238 @@ public class ChatController {
         }
     }
 
+    // Typing started/stopped; coalesced into at most one broadcast per flush interval per session
+    @MessageMapping("/chat.typing")
+    public void typing(@Payload Map<String, Object> payload, SimpMessageHeaderAccessor headerAccessor) {
+        Object sessionId = payload.get("sessionId");
+        chatPresenceService.typing(headerAccessor.getSessionId(), sessionId != null ? sessionId.toString() : null,
+                Boolean.TRUE.equals(payload.get("typing")));
+    }
+
     // ---- REST APIs ----
+    // Claim: the first agent wins; later clicks get 409 with the agent who holds the session
     @PostMapping("/api/chat/assign-agent")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> assignAgent(@RequestParam String sessionId, @RequestParam Long agentId) {
         try {
-            ChatSession s = chatService.assignAgentToSession(sessionId, agentId);
-            return ResponseEntity.ok(Map.of("success", true, "session", s));
+            ChatClaimResultDTO result = chatService.claimSession(sessionId, agentId);
+            if (result.isSuccess()) {
+                return ResponseEntity.ok(Map.of("success", true, "claim", result));
+            }
+            HttpStatus status = result.getOutcome() == ChatClaimResultDTO.Outcome.NOT_FOUND ? HttpStatus.NOT_FOUND : HttpStatus.CONFLICT;
+            return ResponseEntity.status(status).body(Map.of("success", false, "claim", result,
+                    "message", switch (result.getOutcome()) {
+                        case TAKEN -> "Session already claimed" + (result.getAgentUsername() != null ? " by " + result.getAgentUsername() : "");
+                        case CLOSED -> "Session is closed";
+                        default -> "Session not found";
+                    }));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
         }
     }
 
+    // Paged: ?limit=50 for the latest messages, &before=<id> for older ones, &after=<id> for newer ones
     @GetMapping("/api/chat/history/{sessionId}")
     @ResponseBody
-    public ResponseEntity<List<ChatMessageDTO>> getHistory(@PathVariable String sessionId) {
+    public ResponseEntity<ChatHistoryPageDTO> getHistory(@PathVariable String sessionId,
+                                                         @RequestParam(required = false) Long before,
+                                                         @RequestParam(required = false) Long after,
+                                                         @RequestParam(defaultValue = "50") int limit) {
         try {
-            logger.info("REST API: Fetching chat history for session: {}", sessionId);
-            var messages = chatService.getChatHistory(sessionId);
-            var dto = messages.stream().map(ChatMessageDTO::new).toList();
-            logger.info("REST API: Returning {} messages for session {}", dto.size(), sessionId);
-            return ResponseEntity.ok(dto);
+            logger.info("REST API: Fetching chat history for session: {} (before={}, after={}, limit={})",
+                    sessionId, before, after, limit);
+            ChatHistoryPageDTO page = chatService.getChatHistory(sessionId, before, after, limit);
+            logger.info("REST API: Returning {} messages for session {}", page.getMessages().size(), sessionId);
+            return ResponseEntity.ok(page);
         } catch (Exception e) {
             logger.error("Error fetching chat history for session {}: {}", sessionId, e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    // Reconnect: messages after the last sequence number the client saw (?afterSeq=<seq>&limit=100)
+    @GetMapping("/api/chat/history/{sessionId}/resume")
+    @ResponseBody
+    public ResponseEntity<ChatHistoryPageDTO> resumeHistory(@PathVariable String sessionId,
+                                                            @RequestParam long afterSeq,
+                                                            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            ChatHistoryPageDTO page = chatService.resumeHistory(sessionId, afterSeq, limit);
+            logger.debug("REST API: Resumed session {} after seq {} with {} messages", sessionId, afterSeq,
+                    page.getMessages().size());
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            logger.error("Error resuming chat history for session {}: {}", sessionId, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Write-behind queue depth and insert totals (admins only)
+    @GetMapping("/api/chat/write-behind/stats")
+    @ResponseBody
+    public ResponseEntity<?> getWriteBehindStats(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        return ResponseEntity.ok(chatWriteBehindService.stats());
+    }
+
+    // Session/sender lookup cache hit and miss counts (admins only)
+    @GetMapping("/api/chat/cache/stats")
+    @ResponseBody
+    public ResponseEntity<?> getLookupCacheStats(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        return ResponseEntity.ok(chatLookupCache.stats());
+    }
+
+    // Recent-message ring sizes and hit counts (admins only)
+    @GetMapping("/api/chat/recent-buffer/stats")
+    @ResponseBody
+    public ResponseEntity<?> getRecentBufferStats(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        return ResponseEntity.ok(chatRecentMessageBuffer.stats());
+    }
+
+    // WebSocket send queues per session, drops and slow-client disconnects (admins only)
+    @GetMapping("/api/chat/transport/stats")
+    @ResponseBody
+    public ResponseEntity<?> getTransportStats(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        return ResponseEntity.ok(outboundSessionGuard.stats());
+    }
+
+    // Background purge of closed chat sessions (admins only): start, follow progress, cancel
+    @PostMapping("/api/chat/purge")
+    @ResponseBody
+    public ResponseEntity<?> startPurge(@RequestParam int olderThanDays, Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(chatPurgeService.startPurge(olderThanDays));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/api/chat/purge")
+    @ResponseBody
+    public ResponseEntity<?> getPurgeProgress(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        return ResponseEntity.ok(chatPurgeService.progress());
+    }
+
+    @DeleteMapping("/api/chat/purge")
+    @ResponseBody
+    public ResponseEntity<?> cancelPurge(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        if (!chatPurgeService.cancel()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "No chat purge is running"));
+        }
+        return ResponseEntity.ok(chatPurgeService.progress());
+    }
+
+    @GetMapping("/api/chat/purge/stats")
+    @ResponseBody
+    public ResponseEntity<?> getPurgeStats(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        return ResponseEntity.ok(chatPurgeService.stats());
+    }
+
+    // Archive one batch of old closed sessions now instead of waiting for the schedule
+    @PostMapping("/api/chat/archive/run")
+    @ResponseBody
+    public ResponseEntity<?> runArchive(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        return ResponseEntity.ok(Map.of("archived", chatArchiveService.archiveClosedSessions()));
+    }
+
+    // Chat send rate limiting: accepted and rejected sends (admins only)
+    @GetMapping("/api/chat/rate-limit/stats")
+    @ResponseBody
+    public ResponseEntity<?> getRateLimitStats(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        return ResponseEntity.ok(chatRateLimiter.stats());
+    }
+
+    // Open sessions for the agent console, with the version of the last /topic/sessions diff included
+    @GetMapping("/api/chat/sessions/board")
+    @ResponseBody
+    public ResponseEntity<?> getSessionBoard(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_AGENT", "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Agent role required"));
+        }
+        return ResponseEntity.ok(chatSessionBoard.snapshot());
+    }
+
+    // Who is connected to each chat session (agents and admins), e.g. ?sessionIds=a,b
+    @GetMapping("/api/chat/presence")
+    @ResponseBody
+    public ResponseEntity<?> getPresence(@RequestParam List<String> sessionIds, Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_AGENT", "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Agent role required"));
+        }
+        Map<String, Object> presence = new HashMap<>();
+        for (String sessionId : sessionIds) {
+            presence.put(sessionId, Map.of(
+                    "customerOnline", chatPresenceService.isCustomerOnline(sessionId),
+                    "participants", chatPresenceService.participants(sessionId)));
+        }
+        return ResponseEntity.ok(presence);
+    }
+
+    // Connections, stale connections and typing broadcast counters (admins only)
+    @GetMapping("/api/chat/presence/stats")
+    @ResponseBody
+    public ResponseEntity<?> getPresenceStats(Authentication authentication) {
+        if (!hasAnyRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Admin role required"));
+        }
+        return ResponseEntity.ok(chatPresenceService.stats());
+    }
+
+    // Ends a chat: the session's own customer, agents and admins only
+    @PostMapping("/api/chat/session/{sessionId}/close")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> closeSession(@PathVariable String sessionId, Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("success", false, "message", "Login required"));
+        }
+        if (!hasAnyRole(authentication, "ROLE_AGENT", "ROLE_ADMIN")) {
+            Long userId = userRepository.findByUsername(authentication.getName()).map(User::getId).orElse(null);
+            boolean owner = userId != null && chatLookupCache.session(sessionId)
+                    .map(meta -> userId.equals(meta.getUserId())).orElse(false);
+            if (!owner) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("success", false, "message", "You can only close your own chat"));
+            }
+        }
+        try {
+            ChatSession s = chatService.closeSession(sessionId);
+            return ResponseEntity.ok(Map.of("success", true, "status", s.getStatus()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/api/chat/session/{sessionId}")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> deleteSession(@PathVariable String sessionId) {
@@ -160,4 +409,9 @@ public class ChatController {
             return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
         }
     }
+
+    private static boolean hasAnyRole(Authentication authentication, String... roles) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> List.of(roles).contains(a.getAuthority()));
+    }
 }
@@ -4,7 +4,10 @@ import lk.sliit.customer_care_system.modelentity.Ticket;
 import lk.sliit.customer_care_system.modelentity.User;
 import lk.sliit.customer_care_system.repository.TicketRepository;
 import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.service.OperationalCounters;
 import lk.sliit.customer_care_system.service.SingletonServiceManager;
+import lk.sliit.customer_care_system.service.TicketEventPublisher;
+import lk.sliit.customer_care_system.service.TicketRoutingService;
 import lk.sliit.customer_care_system.strategy.NotificationContext;
 import lk.sliit.customer_care_system.strategy.ValidationContext;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,6 +37,15 @@ public class EnhancedTicketController {
     @Autowired
     private ValidationContext validationContext;
 
+    @Autowired
+    private TicketEventPublisher ticketEventPublisher;
+
+    @Autowired
+    private OperationalCounters operationalCounters;
+
+    @Autowired
+    private TicketRoutingService ticketRoutingService;
+
     /**
      * Create ticket with enhanced validation and notification
      */
@@ -66,8 +78,18 @@ public class EnhancedTicketController {
         ticket.setStatus("Open");
         ticket.setCreatedAt(LocalDateTime.now());
 
+        // Route to the least-loaded available agent
+        ticketRoutingService.assign(ticket);
+
         // Save ticket
-        Ticket savedTicket = ticketRepository.save(ticket);
+        Ticket savedTicket;
+        try {
+            savedTicket = ticketRepository.save(ticket);
+        } catch (RuntimeException e) {
+            ticketRoutingService.cancelAssignment(ticket);
+            throw e;
+        }
+        ticketEventPublisher.ticketCreated(savedTicket);
 
         // Use Strategy pattern for notifications
         notificationContext.sendInAppNotification(
@@ -101,6 +123,7 @@ public class EnhancedTicketController {
         ticket.setStatus(status);
         ticket.setUpdatedAt(LocalDateTime.now());
         ticketRepository.save(ticket);
+        ticketEventPublisher.statusChanged(ticket);
 
         // Use Strategy pattern for notifications
         notificationContext.sendInAppNotification(
@@ -113,21 +136,17 @@ public class EnhancedTicketController {
     }
 
     /**
-     * Get ticket statistics using singleton pattern
+     * Get ticket statistics from the in-memory operational counters
      */
     @GetMapping("/statistics")
     public ResponseEntity<?> getTicketStatistics() {
-        // Use Singleton pattern for repository access
-        TicketRepository ticketRepository = serviceManager.getTicketRepository();
-
         Map<String, Object> statistics = new HashMap<>();
-        statistics.put("totalTickets", ticketRepository.count());
-        statistics.put("openTickets", ticketRepository.countByStatus("Open"));
-        statistics.put("inProgressTickets", ticketRepository.countByStatus("In Progress"));
-        statistics.put("resolvedTickets", ticketRepository.countByStatus("Resolved"));
-        statistics.put("closedTickets", ticketRepository.countByStatus("Closed"));
+        statistics.put("totalTickets", operationalCounters.get(OperationalCounters.TICKETS_TOTAL));
+        statistics.put("openTickets", operationalCounters.get(OperationalCounters.ticketStatus("Open")));
+        statistics.put("inProgressTickets", operationalCounters.get(OperationalCounters.ticketStatus("In Progress")));
+        statistics.put("resolvedTickets", operationalCounters.get(OperationalCounters.ticketStatus("Resolved")));
+        statistics.put("closedTickets", operationalCounters.get(OperationalCounters.ticketStatus("Closed")));
 
         return ResponseEntity.ok(statistics);
     }
 }
-
@@ -4,6 +4,7 @@ import lk.sliit.customer_care_system.modelentity.Feedback;
 import lk.sliit.customer_care_system.modelentity.User;
 import lk.sliit.customer_care_system.repository.FeedbackRepository;
 import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.service.OperationalCounters;
 import org.springframework.beans.factory.annotation.Autowired;
 import jakarta.validation.Valid;
 import org.springframework.validation.BindingResult;
@@ -22,11 +23,14 @@ public class FeedbackController {
 
     private final FeedbackRepository feedbackRepository;
     private final UserRepository userRepository;
+    private final OperationalCounters operationalCounters;
 
     @Autowired
-    public FeedbackController(FeedbackRepository feedbackRepository, UserRepository userRepository) {
+    public FeedbackController(FeedbackRepository feedbackRepository, UserRepository userRepository,
+                              OperationalCounters operationalCounters) {
         this.feedbackRepository = feedbackRepository;
         this.userRepository = userRepository;
+        this.operationalCounters = operationalCounters;
     }
 
     // ==================== USER ENDPOINTS ====================
@@ -197,11 +201,11 @@ public class FeedbackController {
         model.addAttribute("currentIsAnonymous", isAnonymous);
         model.addAttribute("currentHasAdminResponse", hasAdminResponse);
 
-        // Add statistics
-        model.addAttribute("totalFeedbacks", feedbackRepository.count());
-        model.addAttribute("newFeedbacks", feedbackRepository.countByStatus("New"));
-        model.addAttribute("respondedFeedbacks", feedbackRepository.countByAdminResponseIsNotNull());
-        model.addAttribute("anonymousFeedbacks", feedbackRepository.countByIsAnonymousTrue());
+        // Add statistics (in-memory counters)
+        model.addAttribute("totalFeedbacks", operationalCounters.get(OperationalCounters.FEEDBACK_TOTAL));
+        model.addAttribute("newFeedbacks", operationalCounters.get(OperationalCounters.feedbackStatus("New")));
+        model.addAttribute("respondedFeedbacks", operationalCounters.get(OperationalCounters.FEEDBACK_RESPONDED));
+        model.addAttribute("anonymousFeedbacks", operationalCounters.get(OperationalCounters.FEEDBACK_ANONYMOUS));
 
         return "admin-feedback-management";
     }
@@ -259,10 +263,10 @@ public class FeedbackController {
     @ResponseBody
     public Object getFeedbackStats() {
         return new Object() {
-            public final long totalFeedbacks = feedbackRepository.count();
-            public final long newFeedbacks = feedbackRepository.countByStatus("New");
-            public final long respondedFeedbacks = feedbackRepository.countByAdminResponseIsNotNull();
-            public final long anonymousFeedbacks = feedbackRepository.countByIsAnonymousTrue();
+            public final long totalFeedbacks = operationalCounters.get(OperationalCounters.FEEDBACK_TOTAL);
+            public final long newFeedbacks = operationalCounters.get(OperationalCounters.feedbackStatus("New"));
+            public final long respondedFeedbacks = operationalCounters.get(OperationalCounters.FEEDBACK_RESPONDED);
+            public final long anonymousFeedbacks = operationalCounters.get(OperationalCounters.FEEDBACK_ANONYMOUS);
         };
     }
 }
@@ -1,14 +1,16 @@
 package lk.sliit.customer_care_system.controller;
 
+import lk.sliit.customer_care_system.dto.AgentTicketRowDTO;
 import lk.sliit.customer_care_system.modelentity.Ticket;
 import lk.sliit.customer_care_system.modelentity.User;
 import lk.sliit.customer_care_system.repository.TicketRepository;
 import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.service.TicketQueryService;
+import org.springframework.data.domain.Page;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
@@ -18,10 +20,13 @@ public class PageController {
 
     private final TicketRepository ticketRepository;
     private final UserRepository userRepository;
+    private final TicketQueryService ticketQueryService;
 
-    public PageController(TicketRepository ticketRepository, UserRepository userRepository) {
+    public PageController(TicketRepository ticketRepository, UserRepository userRepository,
+                          TicketQueryService ticketQueryService) {
         this.ticketRepository = ticketRepository;
         this.userRepository = userRepository;
+        this.ticketQueryService = ticketQueryService;
     }
 
     // ----------------------------
@@ -109,25 +114,28 @@ public class PageController {
     // ----------------------------
     // Agent View Tickets
     // ----------------------------
-    @Transactional(readOnly = true)
     @GetMapping("/agent/tickets")
     public String agentTickets(@RequestParam(required = false) String deleted,
                                @RequestParam(required = false) String error,
                                @RequestParam(required = false) String success,
                                @RequestParam(required = false) String updated,
+                               @RequestParam(required = false) Integer page,
+                               @RequestParam(required = false) Integer size,
+                               @RequestParam(defaultValue = "true") boolean mine,
+                               Authentication authentication,
                                Model model) {
-        // Fetch tickets with user eagerly loaded (responses will be lazily loaded)
-        List<Ticket> tickets = ticketRepository.findAllWithUser();
+        // By default an agent sees the tickets routed to them; mine=false shows the shared queue
+        Long agentId = null;
+        if (mine && authentication != null) {
+            agentId = userRepository.findByUsername(authentication.getName()).map(User::getId).orElse(null);
+        }
 
-        // Initialize responses collection for each ticket to avoid
-        // LazyInitializationException
-        tickets.forEach(ticket -> {
-            if (ticket.getResponses() != null) {
-                ticket.getResponses().size(); // Force initialization
-            }
-        });
+        // Flat row DTOs with responses batch-loaded for the whole page (no per-ticket queries)
+        Page<AgentTicketRowDTO> ticketPage = ticketQueryService.agentQueue(page, size, agentId);
 
-        model.addAttribute("tickets", tickets);
+        model.addAttribute("tickets", ticketPage.getContent());
+        model.addAttribute("ticketPage", ticketPage);
+        model.addAttribute("mine", agentId != null);
 
         // Add success/error messages
         if ("true".equals(deleted)) {
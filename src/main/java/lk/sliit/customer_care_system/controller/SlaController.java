@@ -0,0 +1,52 @@
+package lk.sliit.customer_care_system.controller;
+
+import lk.sliit.customer_care_system.service.SlaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * SLA timer status for agents and admins.
+ */
+@RestController
+@RequestMapping("/api/sla")
+public class SlaController {
+
+    @Autowired
+    private SlaService slaService;
+
+    /**
+     * Tracked tickets, armed timers and breach totals since startup
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats(Authentication authentication) {
+        if (!isAgentOrAdmin(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Agent or admin role required"));
+        }
+        return ResponseEntity.ok(slaService.stats());
+    }
+
+    /**
+     * Current SLA phase and deadline of one open ticket
+     */
+    @GetMapping("/tickets/{id}")
+    public ResponseEntity<?> getTicketSla(@PathVariable Long id, Authentication authentication) {
+        if (!isAgentOrAdmin(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Agent or admin role required"));
+        }
+        Map<String, Object> status = slaService.statusOf(id);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No SLA timer for this ticket"));
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    private boolean isAgentOrAdmin(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_AGENT") || a.getAuthority().equals("ROLE_ADMIN"));
+    }
+}
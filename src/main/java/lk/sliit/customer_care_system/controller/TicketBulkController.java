@@ -0,0 +1,66 @@
+package lk.sliit.customer_care_system.controller;
+
+import lk.sliit.customer_care_system.dto.BulkTicketRequest;
+import lk.sliit.customer_care_system.dto.BulkTicketResultDTO;
+import lk.sliit.customer_care_system.service.OperationalCounterReconciler;
+import lk.sliit.customer_care_system.service.TicketBulkService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Bulk ticket operations for agents and admins (e.g. closing every ticket of an incident).
+ */
+@RestController
+@RequestMapping("/api/tickets/bulk")
+public class TicketBulkController {
+
+    @Autowired
+    private TicketBulkService ticketBulkService;
+
+    @Autowired
+    private OperationalCounterReconciler operationalCounterReconciler;
+
+    /**
+     * Set the status of many tickets at once
+     */
+    @PostMapping("/status")
+    public ResponseEntity<?> bulkUpdateStatus(@RequestBody BulkTicketRequest request, Authentication authentication) {
+        if (!isAgentOrAdmin(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Agent or admin role required"));
+        }
+        try {
+            BulkTicketResultDTO result = ticketBulkService.updateStatus(request);
+            operationalCounterReconciler.reconcile();
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Delete many tickets (and their responses) at once
+     */
+    @PostMapping("/delete")
+    public ResponseEntity<?> bulkDelete(@RequestBody BulkTicketRequest request, Authentication authentication) {
+        if (!isAgentOrAdmin(authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Agent or admin role required"));
+        }
+        try {
+            BulkTicketResultDTO result = ticketBulkService.delete(request);
+            operationalCounterReconciler.reconcile();
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private boolean isAgentOrAdmin(Authentication authentication) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_AGENT") || a.getAuthority().equals("ROLE_ADMIN"));
+    }
+}
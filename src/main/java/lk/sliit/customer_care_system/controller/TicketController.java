@@ -1,17 +1,25 @@
 package lk.sliit.customer_care_system.controller;
 
+import lk.sliit.customer_care_system.dto.TicketChangesDTO;
+import lk.sliit.customer_care_system.dto.TicketPageDTO;
 import lk.sliit.customer_care_system.modelentity.AgentResponse;
 import lk.sliit.customer_care_system.modelentity.Ticket;
 import lk.sliit.customer_care_system.modelentity.User;
 import lk.sliit.customer_care_system.repository.AgentResponseRepository;
 import lk.sliit.customer_care_system.repository.TicketRepository;
 import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.service.TicketChangeService;
+import lk.sliit.customer_care_system.service.TicketEventPublisher;
+import lk.sliit.customer_care_system.service.TicketQueryService;
+import lk.sliit.customer_care_system.service.TicketRoutingService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import jakarta.validation.Valid;
 import org.springframework.validation.BindingResult;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -23,13 +31,25 @@ public class TicketController {
     private final TicketRepository ticketRepository;
     private final UserRepository userRepository;
     private final AgentResponseRepository agentResponseRepository;
+    private final TicketQueryService ticketQueryService;
+    private final TicketChangeService ticketChangeService;
+    private final TicketEventPublisher ticketEventPublisher;
+    private final TicketRoutingService ticketRoutingService;
 
     public TicketController(TicketRepository ticketRepository,
                             UserRepository userRepository,
-                            AgentResponseRepository agentResponseRepository) {
+                            AgentResponseRepository agentResponseRepository,
+                            TicketQueryService ticketQueryService,
+                            TicketChangeService ticketChangeService,
+                            TicketEventPublisher ticketEventPublisher,
+                            TicketRoutingService ticketRoutingService) {
         this.ticketRepository = ticketRepository;
         this.userRepository = userRepository;
         this.agentResponseRepository = agentResponseRepository;
+        this.ticketQueryService = ticketQueryService;
+        this.ticketChangeService = ticketChangeService;
+        this.ticketEventPublisher = ticketEventPublisher;
+        this.ticketRoutingService = ticketRoutingService;
     }
 
     // ✅ Show ticket submission form
@@ -80,8 +100,16 @@ public class TicketController {
                     .orElseThrow(() -> new RuntimeException("User not found: " + username));
 
             ticket.setUser(user);
-
-            Ticket savedTicket = ticketRepository.save(ticket);
+            ticketRoutingService.assign(ticket);
+
+            Ticket savedTicket;
+            try {
+                savedTicket = ticketRepository.save(ticket);
+            } catch (RuntimeException e) {
+                ticketRoutingService.cancelAssignment(ticket);
+                throw e;
+            }
+            ticketEventPublisher.ticketCreated(savedTicket);
 
             return "redirect:/tickets/success?id=" + savedTicket.getId();
         } catch (Exception e) {
@@ -98,6 +126,31 @@ public class TicketController {
         return ticketRepository.findAll();
     }
 
+    // ✅ Paginated ticket listing (keyset cursor, optional status/category filters)
+    @ResponseBody
+    @GetMapping("/page")
+    public TicketPageDTO getTicketPage(@RequestParam(required = false) String cursor,
+                                       @RequestParam(required = false) Integer size,
+                                       @RequestParam(required = false) String status,
+                                       @RequestParam(required = false) String category) {
+        return ticketQueryService.listTickets(cursor, size, status, category);
+    }
+
+    // ✅ Delta sync: tickets changed/deleted since the client's token (304 when nothing moved)
+    @ResponseBody
+    @GetMapping("/changes")
+    public ResponseEntity<TicketChangesDTO> getTicketChanges(@RequestParam(required = false) String since,
+                                                             WebRequest webRequest) {
+        TicketChangeService.Watermark watermark = ticketChangeService.currentWatermark();
+        String etag = ticketChangeService.etagFor(watermark);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(ticketChangeService.changesSince(since, watermark));
+    }
+
     // ✅ Update ticket status (used by Agent UI)
     @PostMapping("/update-status/{id}")
     public String updateStatus(@PathVariable Long id, @RequestParam String status) {
@@ -108,6 +161,7 @@ public class TicketController {
         ticket.setUpdatedAt(LocalDateTime.now());
 
         ticketRepository.save(ticket);
+        ticketEventPublisher.statusChanged(ticket);
 
         // redirect back to agent's ticket view
         return "redirect:/agent/tickets";
@@ -159,6 +213,7 @@ public class TicketController {
         existingTicket.setUpdatedAt(LocalDateTime.now());
 
         ticketRepository.save(existingTicket);
+        ticketEventPublisher.ticketUpdated(existingTicket);
 
         return "redirect:/user/tickets?updated=true";
     }
@@ -191,7 +246,10 @@ public class TicketController {
             }
 
             // Delete the ticket
+            String ownerUsername = ticket.getUser().getUsername();
             ticketRepository.delete(ticket);
+            ticketChangeService.recordDeletion(ticket.getId());
+            ticketEventPublisher.ticketDeleted(ticket.getId(), ownerUsername);
 
             // Redirect based on user role
             if (isAgent || isAdmin) {
@@ -0,0 +1,86 @@
+package lk.sliit.customer_care_system.controller;
+
+import lk.sliit.customer_care_system.modelentity.User;
+import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.service.TicketRoutingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Agent availability for ticket routing.
+ * Agents switch themselves online/offline; admins can switch any agent.
+ */
+@RestController
+@RequestMapping("/api/routing")
+public class TicketRoutingController {
+
+    @Autowired
+    private TicketRoutingService ticketRoutingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Current load and availability of every agent
+     */
+    @GetMapping("/agents")
+    public ResponseEntity<?> getAgents(Authentication authentication) {
+        if (!hasRole(authentication, "ROLE_AGENT") && !hasRole(authentication, "ROLE_ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Agent or admin role required"));
+        }
+        return ResponseEntity.ok(ticketRoutingService.snapshot());
+    }
+
+    /**
+     * Take an agent offline; their open tickets are rebalanced across online agents
+     */
+    @PostMapping("/agents/{id}/offline")
+    public ResponseEntity<?> goOffline(@PathVariable Long id, Authentication authentication) {
+        if (!canChange(id, authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not allowed"));
+        }
+        try {
+            int moved = ticketRoutingService.goOffline(id);
+            return ResponseEntity.ok(Map.of("message", "Agent is offline", "reassignedTickets", moved));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Bring an agent back online; unassigned open tickets are handed out
+     */
+    @PostMapping("/agents/{id}/online")
+    public ResponseEntity<?> goOnline(@PathVariable Long id, Authentication authentication) {
+        if (!canChange(id, authentication)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Not allowed"));
+        }
+        try {
+            int assigned = ticketRoutingService.goOnline(id);
+            return ResponseEntity.ok(Map.of("message", "Agent is online", "assignedTickets", assigned));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private boolean canChange(Long agentId, Authentication authentication) {
+        if (hasRole(authentication, "ROLE_ADMIN")) {
+            return true;
+        }
+        if (!hasRole(authentication, "ROLE_AGENT")) {
+            return false;
+        }
+        User current = userRepository.findByUsername(authentication.getName()).orElse(null);
+        return current != null && current.getId().equals(agentId);
+    }
+
+    private boolean hasRole(Authentication authentication, String role) {
+        return authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals(role));
+    }
+}
@@ -0,0 +1,49 @@
+package lk.sliit.customer_care_system.controller;
+
+import lk.sliit.customer_care_system.dto.TicketSearchHitDTO;
+import lk.sliit.customer_care_system.service.TicketSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranked full-text ticket search for agents and admins.
+ */
+@RestController
+@RequestMapping("/api/tickets/search")
+public class TicketSearchController {
+
+    @Autowired
+    private TicketSearchService ticketSearchService;
+
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(required = false) String status,
+                                    @RequestParam(required = false) String category,
+                                    @RequestParam(required = false) Integer limit,
+                                    Authentication authentication) {
+        boolean allowed = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_AGENT") || a.getAuthority().equals("ROLE_ADMIN"));
+        if (!allowed) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Agent or admin role required"));
+        }
+        if (!ticketSearchService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Search index is still loading"));
+        }
+
+        long started = System.nanoTime();
+        List<TicketSearchHitDTO> hits = ticketSearchService.search(q, status, category, limit);
+        double tookMs = (System.nanoTime() - started) / 1_000_000.0;
+
+        return ResponseEntity.ok(Map.of(
+                "query", q,
+                "hits", hits,
+                "total", hits.size(),
+                "tookMs", tookMs));
+    }
+}
@@ -2,6 +2,7 @@ package lk.sliit.customer_care_system.controller;
 
 import lk.sliit.customer_care_system.modelentity.User;
 import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.service.ChatLookupCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import jakarta.validation.Valid;
 import org.springframework.validation.annotation.Validated;
@@ -25,6 +26,9 @@ public class UserController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ChatLookupCache chatLookupCache;
+
     //  Get all users
     @GetMapping
     public List<User> getAllUsers() {
@@ -63,6 +67,7 @@ public class UserController {
             }
             user.setRole(updatedUser.getRole());
             userRepository.save(user);
+            chatLookupCache.invalidateUser(id);
             return ResponseEntity.ok(Map.of("message", "User updated successfully!"));
         }).orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "User not found!")));
     }
@@ -74,6 +79,7 @@ public class UserController {
             return new ResponseEntity<>("User not found!", HttpStatus.NOT_FOUND);
         }
         userRepository.deleteById(id);
+        chatLookupCache.invalidateUser(id);
         return new ResponseEntity<>("User deleted successfully!", HttpStatus.OK);
     }
 }
@@ -0,0 +1,43 @@
+package lk.sliit.customer_care_system.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agent response as shown under a ticket in the agent queue (agent username instead of a User proxy).
+ */
+public class AgentResponseRowDTO {
+
+    private Long id;
+    private Long ticketId;
+    private String agentUsername;
+    private String responseText;
+    private LocalDateTime createdAt;
+
+    public AgentResponseRowDTO() {}
+
+    // Used by JPQL constructor expressions in AgentResponseRepository
+    public AgentResponseRowDTO(Long id, Long ticketId, String agentUsername, String responseText,
+                               LocalDateTime createdAt) {
+        this.id = id;
+        this.ticketId = ticketId;
+        this.agentUsername = agentUsername;
+        this.responseText = responseText;
+        this.createdAt = createdAt;
+    }
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getTicketId() { return ticketId; }
+    public void setTicketId(Long ticketId) { this.ticketId = ticketId; }
+
+    public String getAgentUsername() { return agentUsername; }
+    public void setAgentUsername(String agentUsername) { this.agentUsername = agentUsername; }
+
+    public String getResponseText() { return responseText; }
+    public void setResponseText(String responseText) { this.responseText = responseText; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
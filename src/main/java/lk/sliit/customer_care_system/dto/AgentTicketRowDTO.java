@@ -0,0 +1,73 @@
+package lk.sliit.customer_care_system.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flat row for the agent ticket queue: ticket columns, owner username and response aggregates.
+ * Built from projections so rendering the queue never touches lazy entity associations.
+ */
+public class AgentTicketRowDTO {
+
+    private Long id;
+    private String title;
+    private String description;
+    private String category;
+    private String status;
+    private LocalDateTime createdAt;
+    private String ownerUsername;
+    private String assignedAgentUsername;
+    private long responseCount;
+    private LocalDateTime latestResponseAt;
+    private List<AgentResponseRowDTO> responses = new ArrayList<>();
+
+    public AgentTicketRowDTO() {}
+
+    // Used by JPQL constructor expressions in TicketRepository
+    public AgentTicketRowDTO(Long id, String title, String description, String category, String status,
+                             LocalDateTime createdAt, String ownerUsername, String assignedAgentUsername) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.category = category;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.ownerUsername = ownerUsername;
+        this.assignedAgentUsername = assignedAgentUsername;
+    }
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getOwnerUsername() { return ownerUsername; }
+    public void setOwnerUsername(String ownerUsername) { this.ownerUsername = ownerUsername; }
+
+    public String getAssignedAgentUsername() { return assignedAgentUsername; }
+    public void setAssignedAgentUsername(String assignedAgentUsername) { this.assignedAgentUsername = assignedAgentUsername; }
+
+    public long getResponseCount() { return responseCount; }
+    public void setResponseCount(long responseCount) { this.responseCount = responseCount; }
+
+    public LocalDateTime getLatestResponseAt() { return latestResponseAt; }
+    public void setLatestResponseAt(LocalDateTime latestResponseAt) { this.latestResponseAt = latestResponseAt; }
+
+    public List<AgentResponseRowDTO> getResponses() { return responses; }
+    public void setResponses(List<AgentResponseRowDTO> responses) { this.responses = responses; }
+}
@@ -0,0 +1,30 @@
+package lk.sliit.customer_care_system.dto;
+
+import java.util.List;
+
+/**
+ * Body of a bulk ticket operation. Either an explicit id list or a status/category filter
+ * selects the tickets; {@code status} is the target status for bulk status updates.
+ */
+public class BulkTicketRequest {
+
+    private List<Long> ids;
+    private String filterStatus;
+    private String filterCategory;
+    private String status;
+
+    public BulkTicketRequest() {}
+
+    // Getters & Setters
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+
+    public String getFilterStatus() { return filterStatus; }
+    public void setFilterStatus(String filterStatus) { this.filterStatus = filterStatus; }
+
+    public String getFilterCategory() { return filterCategory; }
+    public void setFilterCategory(String filterCategory) { this.filterCategory = filterCategory; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
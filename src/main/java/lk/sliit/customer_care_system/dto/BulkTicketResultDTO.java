@@ -0,0 +1,39 @@
+package lk.sliit.customer_care_system.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk ticket operation: one result code per requested id plus totals.
+ */
+public class BulkTicketResultDTO {
+
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    private Map<Long, String> results = new LinkedHashMap<>();
+    private int succeeded;
+    private int failed;
+
+    public BulkTicketResultDTO() {}
+
+    public void record(Long id, String result) {
+        results.put(id, result);
+        if (NOT_FOUND.equals(result)) {
+            failed++;
+        } else {
+            succeeded++;
+        }
+    }
+
+    // Getters & Setters
+    public Map<Long, String> getResults() { return results; }
+    public void setResults(Map<Long, String> results) { this.results = results; }
+
+    public int getSucceeded() { return succeeded; }
+    public void setSucceeded(int succeeded) { this.succeeded = succeeded; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+}
@@ -0,0 +1,41 @@
+package lk.sliit.customer_care_system.dto;
+
+/**
+ * Outcome of an agent claiming a chat session; on a lost race it names the agent who won.
+ */
+public class ChatClaimResultDTO {
+
+    public enum Outcome {
+        CLAIMED,        // this call assigned the agent
+        ALREADY_YOURS,  // the agent already had the session (e.g. a second click)
+        TAKEN,          // another agent claimed it first
+        CLOSED,         // the session ended
+        NOT_FOUND
+    }
+
+    private final Outcome outcome;
+    private final String sessionId;
+    private final Long agentId;
+    private final String agentUsername;
+
+    public ChatClaimResultDTO(Outcome outcome, String sessionId, Long agentId, String agentUsername) {
+        this.outcome = outcome;
+        this.sessionId = sessionId;
+        this.agentId = agentId;
+        this.agentUsername = agentUsername;
+    }
+
+    // The requesting agent holds the session
+    public boolean isSuccess() {
+        return outcome == Outcome.CLAIMED || outcome == Outcome.ALREADY_YOURS;
+    }
+
+    // Getters
+    public Outcome getOutcome() { return outcome; }
+
+    public String getSessionId() { return sessionId; }
+
+    public Long getAgentId() { return agentId; }
+
+    public String getAgentUsername() { return agentUsername; }
+}
@@ -0,0 +1,51 @@
+package lk.sliit.customer_care_system.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One page of a session's chat history, oldest message first.
+ * hasMore says whether further messages exist in the direction that was read
+ * (older for latest/before pages, newer for after pages).
+ * archived says the page came from the transcript archive (closed, archived sessions).
+ * newestSeq is the highest sequence number on the page, the client's next resume cursor.
+ */
+public class ChatHistoryPageDTO {
+
+    private List<ChatMessageDTO> messages;
+    private boolean hasMore;
+    private Long oldestId;
+    private Long newestId;
+    private Long newestSeq;
+    private boolean archived; // served from the transcript archive, not chat_messages
+
+    public ChatHistoryPageDTO() {}
+
+    public ChatHistoryPageDTO(List<ChatMessageDTO> messages, boolean hasMore) {
+        this.messages = messages;
+        this.hasMore = hasMore;
+        // Messages not stored yet have no id; cursors use the outermost stored ones
+        this.oldestId = messages.stream().map(ChatMessageDTO::getId).filter(Objects::nonNull).findFirst().orElse(null);
+        this.newestId = messages.stream().map(ChatMessageDTO::getId).filter(Objects::nonNull).reduce((a, b) -> b).orElse(null);
+        this.newestSeq = messages.stream().map(ChatMessageDTO::getSeq).filter(Objects::nonNull).max(Long::compare).orElse(null);
+    }
+
+    // Getters & Setters
+    public List<ChatMessageDTO> getMessages() { return messages; }
+    public void setMessages(List<ChatMessageDTO> messages) { this.messages = messages; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    public Long getOldestId() { return oldestId; }
+    public void setOldestId(Long oldestId) { this.oldestId = oldestId; }
+
+    public Long getNewestId() { return newestId; }
+    public void setNewestId(Long newestId) { this.newestId = newestId; }
+
+    public Long getNewestSeq() { return newestSeq; }
+    public void setNewestSeq(Long newestSeq) { this.newestSeq = newestSeq; }
+
+    public boolean isArchived() { return archived; }
+    public void setArchived(boolean archived) { this.archived = archived; }
+}
@@ -6,8 +6,11 @@ import java.time.LocalDateTime;
 
 public class ChatMessageDTO {
     private Long id;
+    private Long messageKey;
+    private Long seq;
     private String content;
     private String senderUsername;
+    private Long senderId;
     private SenderType senderType;
     private String sessionId;
     private LocalDateTime createdAt;
@@ -18,10 +21,13 @@ public class ChatMessageDTO {
 
     public ChatMessageDTO(ChatMessage message) {
         this.id = message.getId();
+        this.messageKey = message.getMessageKey();
+        this.seq = message.getSeq();
         this.content = message.getContent();
         // Safely get username with null checks
         if (message.getSender() != null) {
             this.senderUsername = message.getSender().getUsername();
+            this.senderId = message.getSender().getId();
         } else {
             this.senderUsername = "System";
         }
@@ -33,6 +39,23 @@ public class ChatMessageDTO {
         this.isDeleted = message.getIsDeleted();
     }
 
+    // Used by JPQL constructor expressions in ChatMessageRepository (history pages, no entities)
+    public ChatMessageDTO(Long id, Long messageKey, String content, String senderUsername, Long senderId,
+                          SenderType senderType, String sessionId, LocalDateTime createdAt, Boolean isEdited,
+                          Long seq) {
+        this.id = id;
+        this.messageKey = messageKey;
+        this.seq = seq;
+        this.content = content;
+        this.senderUsername = senderUsername;
+        this.senderId = senderId;
+        this.senderType = senderType;
+        this.sessionId = sessionId;
+        this.createdAt = createdAt;
+        this.isEdited = isEdited;
+        this.isDeleted = false;
+    }
+
     // Extra constructor for system messages
     public ChatMessageDTO(String senderUsername, String content, SenderType senderType, String sessionId) {
         this.senderUsername = senderUsername;
@@ -46,12 +69,21 @@ public class ChatMessageDTO {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public Long getMessageKey() { return messageKey; }
+    public void setMessageKey(Long messageKey) { this.messageKey = messageKey; }
+
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
 
     public String getSenderUsername() { return senderUsername; }
     public void setSenderUsername(String senderUsername) { this.senderUsername = senderUsername; }
 
+    public Long getSenderId() { return senderId; }
+    public void setSenderId(Long senderId) { this.senderId = senderId; }
+
     public SenderType getSenderType() { return senderType; }
     public void setSenderType(SenderType senderType) { this.senderType = senderType; }
 
@@ -0,0 +1,25 @@
+package lk.sliit.customer_care_system.dto;
+
+/**
+ * Identity of a chat message sender (cached, so immutable).
+ */
+public class ChatSenderDTO {
+
+    private final Long id;
+    private final String username;
+    private final String role;
+
+    // Used by JPQL constructor expressions in UserRepository
+    public ChatSenderDTO(Long id, String username, String role) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+
+    public String getUsername() { return username; }
+
+    public String getRole() { return role; }
+}
@@ -9,6 +9,7 @@ public class ChatSessionDTO {
     private String username;
     private Long userId;
     private Long agentId;
+    private String agentUsername;
     private String status;
     private LocalDateTime createdAt;
 
@@ -19,10 +20,23 @@ public class ChatSessionDTO {
         this.username = session.getUser() != null ? session.getUser().getUsername() : "Unknown";
         this.userId = session.getUser() != null ? session.getUser().getId() : null;
         this.agentId = session.getAgent() != null ? session.getAgent().getId() : null;
+        this.agentUsername = session.getAgent() != null ? session.getAgent().getUsername() : null;
         this.status = session.getStatus() != null ? session.getStatus().name() : "WAITING";
         this.createdAt = session.getCreatedAt();
     }
 
+    // Used by JPQL constructor expressions in ChatSessionRepository (session board, no entities)
+    public ChatSessionDTO(String sessionId, String username, Long userId, Long agentId, String agentUsername,
+                          ChatSession.ChatStatus status, LocalDateTime createdAt) {
+        this.sessionId = sessionId;
+        this.username = username != null ? username : "Unknown";
+        this.userId = userId;
+        this.agentId = agentId;
+        this.agentUsername = agentUsername;
+        this.status = status != null ? status.name() : "WAITING";
+        this.createdAt = createdAt;
+    }
+
     // Getters & Setters
     public String getSessionId() { return sessionId; }
     public void setSessionId(String sessionId) { this.sessionId = sessionId; }
@@ -36,6 +50,9 @@ public class ChatSessionDTO {
     public Long getAgentId() { return agentId; }
     public void setAgentId(Long agentId) { this.agentId = agentId; }
 
+    public String getAgentUsername() { return agentUsername; }
+    public void setAgentUsername(String agentUsername) { this.agentUsername = agentUsername; }
+
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
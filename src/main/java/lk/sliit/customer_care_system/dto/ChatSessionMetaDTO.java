@@ -0,0 +1,35 @@
+package lk.sliit.customer_care_system.dto;
+
+import lk.sliit.customer_care_system.modelentity.ChatSession;
+
+/**
+ * The few chat session fields the message path needs (cached, so immutable).
+ */
+public class ChatSessionMetaDTO {
+
+    private final Long id;
+    private final String sessionId;
+    private final ChatSession.ChatStatus status;
+    private final Long userId;
+    private final Long agentId;
+
+    // Used by JPQL constructor expressions in ChatSessionRepository
+    public ChatSessionMetaDTO(Long id, String sessionId, ChatSession.ChatStatus status, Long userId, Long agentId) {
+        this.id = id;
+        this.sessionId = sessionId;
+        this.status = status;
+        this.userId = userId;
+        this.agentId = agentId;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+
+    public String getSessionId() { return sessionId; }
+
+    public ChatSession.ChatStatus getStatus() { return status; }
+
+    public Long getUserId() { return userId; }
+
+    public Long getAgentId() { return agentId; }
+}
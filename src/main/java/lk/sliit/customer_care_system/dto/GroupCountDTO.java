@@ -0,0 +1,31 @@
+package lk.sliit.customer_care_system.dto;
+
+import lk.sliit.customer_care_system.modelentity.ChatSession;
+
+/**
+ * One row of a GROUP BY count query (group key + number of rows in the group).
+ */
+public class GroupCountDTO {
+
+    private String key;
+    private long count;
+
+    public GroupCountDTO() {}
+
+    // Used by JPQL constructor expressions
+    public GroupCountDTO(String key, Long count) {
+        this.key = key;
+        this.count = count != null ? count : 0L;
+    }
+
+    public GroupCountDTO(ChatSession.ChatStatus key, Long count) {
+        this(key != null ? key.name() : null, count);
+    }
+
+    // Getters & Setters
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
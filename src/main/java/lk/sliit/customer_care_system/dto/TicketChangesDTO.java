@@ -0,0 +1,37 @@
+package lk.sliit.customer_care_system.dto;
+
+import java.util.List;
+
+/**
+ * Delta between a client's sync token and the current ticket table.
+ * When resync is true the client must drop its copy and reload the list.
+ */
+public class TicketChangesDTO {
+
+    private List<TicketSummaryDTO> changed;
+    private List<Long> deletedIds;
+    private String token;
+    private boolean resync;
+
+    public TicketChangesDTO() {}
+
+    public TicketChangesDTO(List<TicketSummaryDTO> changed, List<Long> deletedIds, String token, boolean resync) {
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+        this.token = token;
+        this.resync = resync;
+    }
+
+    // Getters & Setters
+    public List<TicketSummaryDTO> getChanged() { return changed; }
+    public void setChanged(List<TicketSummaryDTO> changed) { this.changed = changed; }
+
+    public List<Long> getDeletedIds() { return deletedIds; }
+    public void setDeletedIds(List<Long> deletedIds) { this.deletedIds = deletedIds; }
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public boolean isResync() { return resync; }
+    public void setResync(boolean resync) { this.resync = resync; }
+}
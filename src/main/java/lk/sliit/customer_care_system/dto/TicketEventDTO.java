@@ -0,0 +1,52 @@
+package lk.sliit.customer_care_system.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ticket change pushed to STOMP subscribers (/topic/tickets and /user/queue/tickets).
+ */
+public class TicketEventDTO {
+
+    private Long ticketId;
+    private String type;
+    private String status;
+    private String title;
+    private String category;
+    private String ownerUsername;
+    private LocalDateTime occurredAt;
+
+    public TicketEventDTO() {}
+
+    public TicketEventDTO(Long ticketId, String type, String status, String title,
+                          String category, String ownerUsername, LocalDateTime occurredAt) {
+        this.ticketId = ticketId;
+        this.type = type;
+        this.status = status;
+        this.title = title;
+        this.category = category;
+        this.ownerUsername = ownerUsername;
+        this.occurredAt = occurredAt;
+    }
+
+    // Getters & Setters
+    public Long getTicketId() { return ticketId; }
+    public void setTicketId(Long ticketId) { this.ticketId = ticketId; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getOwnerUsername() { return ownerUsername; }
+    public void setOwnerUsername(String ownerUsername) { this.ownerUsername = ownerUsername; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+}
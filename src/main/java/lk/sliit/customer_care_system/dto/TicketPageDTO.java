@@ -0,0 +1,32 @@
+package lk.sliit.customer_care_system.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated ticket listing.
+ * nextCursor is null when there are no more rows.
+ */
+public class TicketPageDTO {
+
+    private List<TicketSummaryDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public TicketPageDTO() {}
+
+    public TicketPageDTO(List<TicketSummaryDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+
+    // Getters & Setters
+    public List<TicketSummaryDTO> getItems() { return items; }
+    public void setItems(List<TicketSummaryDTO> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,52 @@
+package lk.sliit.customer_care_system.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One ranked ticket search result.
+ */
+public class TicketSearchHitDTO {
+
+    private Long id;
+    private String title;
+    private String category;
+    private String status;
+    private LocalDateTime createdAt;
+    private String ownerUsername;
+    private double score;
+
+    public TicketSearchHitDTO() {}
+
+    public TicketSearchHitDTO(Long id, String title, String category, String status,
+                              LocalDateTime createdAt, String ownerUsername, double score) {
+        this.id = id;
+        this.title = title;
+        this.category = category;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.ownerUsername = ownerUsername;
+        this.score = score;
+    }
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public String getOwnerUsername() { return ownerUsername; }
+    public void setOwnerUsername(String ownerUsername) { this.ownerUsername = ownerUsername; }
+
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+}
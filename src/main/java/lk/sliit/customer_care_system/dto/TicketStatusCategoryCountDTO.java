@@ -0,0 +1,30 @@
+package lk.sliit.customer_care_system.dto;
+
+/**
+ * Number of tickets in one (status, category) cell of the analytics matrix.
+ */
+public class TicketStatusCategoryCountDTO {
+
+    private String status;
+    private String category;
+    private long count;
+
+    public TicketStatusCategoryCountDTO() {}
+
+    // Used by JPQL constructor expressions
+    public TicketStatusCategoryCountDTO(String status, String category, Long count) {
+        this.status = status;
+        this.category = category;
+        this.count = count != null ? count : 0L;
+    }
+
+    // Getters & Setters
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
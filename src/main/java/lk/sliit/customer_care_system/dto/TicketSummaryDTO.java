@@ -0,0 +1,54 @@
+package lk.sliit.customer_care_system.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight ticket row used by list views.
+ * Carries no description text and no User proxy so large pages stay cheap to build and serialize.
+ */
+public class TicketSummaryDTO {
+
+    private Long id;
+    private String title;
+    private String category;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private String ownerUsername;
+
+    public TicketSummaryDTO() {}
+
+    // Used by JPQL constructor expressions in TicketRepository
+    public TicketSummaryDTO(Long id, String title, String category, String status,
+                            LocalDateTime createdAt, LocalDateTime updatedAt, String ownerUsername) {
+        this.id = id;
+        this.title = title;
+        this.category = category;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.ownerUsername = ownerUsername;
+    }
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public String getOwnerUsername() { return ownerUsername; }
+    public void setOwnerUsername(String ownerUsername) { this.ownerUsername = ownerUsername; }
+}
@@ -6,7 +6,14 @@ import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        // Client-visible key assigned before the row exists (see ChatWriteBehindService)
+        @Index(name = "idx_chat_message_key", columnList = "message_key"),
+        // Cursor pagination of a session's history (latest N / before id / after id)
+        @Index(name = "idx_chat_message_session_id", columnList = "chat_session_id, id"),
+        // Resume after a reconnect: messages of a session after a sequence number
+        @Index(name = "idx_chat_message_session_seq", columnList = "chat_session_id, session_seq")
+})
 public class ChatMessage {
 
     @Id
@@ -43,6 +50,13 @@ public class ChatMessage {
     @Column(name = "is_deleted", nullable = false)
     private Boolean isDeleted = false;
 
+    @Column(name = "message_key")
+    private Long messageKey;
+
+    // Per-session sequence number (ChatSequencer); null for messages from before sequencing
+    @Column(name = "session_seq")
+    private Long seq;
+
     public enum SenderType {
         USER, AGENT, SYSTEM
     }
@@ -92,6 +106,12 @@ public class ChatMessage {
     public Boolean getIsDeleted() { return isDeleted; }
     public void setIsDeleted(Boolean isDeleted) { this.isDeleted = isDeleted; }
 
+    public Long getMessageKey() { return messageKey; }
+    public void setMessageKey(Long messageKey) { this.messageKey = messageKey; }
+
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
@@ -5,6 +5,12 @@ import jakarta.validation.constraints.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        // Open sessions for the agent console (see ChatSessionBoard)
+        @Index(name = "idx_chat_session_status", columnList = "status, created_at"),
+        // Every chat lookup is by sessionId; ids are time-ordered (ChatIdGenerator), so inserts append
+        @Index(name = "idx_chat_session_session_id", columnList = "session_id")
+})
 public class ChatSession {
 
     @Id
@@ -29,6 +35,13 @@ public class ChatSession {
 
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Set once the messages have moved to the transcript archive (ChatArchiveService)
+    private LocalDateTime archivedAt;
+
+    // Last message sequence number handed out (ChatSequencer); null until the first sequenced message
+    @Column(name = "last_seq")
+    private Long lastSeq;
+
     // Enum for chat states ✅
     public enum ChatStatus {
         WAITING,   // User created session, waiting for agent
@@ -64,4 +77,10 @@ public class ChatSession {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(LocalDateTime archivedAt) { this.archivedAt = archivedAt; }
+
+    public Long getLastSeq() { return lastSeq; }
+    public void setLastSeq(Long lastSeq) { this.lastSeq = lastSeq; }
 }
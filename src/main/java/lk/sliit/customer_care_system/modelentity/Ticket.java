@@ -7,9 +7,20 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "ticket")
+@Table(name = "ticket", indexes = {
+        // Keyset pagination on (createdAt, id) for the ticket listing
+        @Index(name = "idx_ticket_created_id", columnList = "created_at, id"),
+        @Index(name = "idx_ticket_status_created", columnList = "status, created_at"),
+        // Delta sync watermark (see TicketChangeService)
+        @Index(name = "idx_ticket_updated_at", columnList = "updated_at"),
+        // Per-agent open load (see TicketRoutingService)
+        @Index(name = "idx_ticket_agent_status", columnList = "assigned_agent_id, status")
+})
 public class Ticket {
 
+    // The only statuses a ticket may have (setStatus, bulk updates)
+    public static final List<String> STATUSES = List.of("Open", "In Progress", "Resolved", "Closed");
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -43,6 +54,12 @@ public class Ticket {
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "tickets"})
     private User user;
 
+    // 👇 Agent the ticket is routed to (null until an agent is available)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "assigned_agent_id")
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "tickets"})
+    private User assignedAgent;
+
     // 👇 NEW: One ticket can have multiple agent responses
     @OneToMany(mappedBy = "ticket", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "ticket"})
@@ -64,7 +81,7 @@ public class Ticket {
     public String getStatus() { return status; }
     public void setStatus(String status) {
         // Validate status value
-        if (status != null && !status.matches("Open|In Progress|Resolved|Closed")) {
+        if (status != null && !STATUSES.contains(status)) {
             throw new IllegalArgumentException("Invalid status: " + status + ". Must be: Open, In Progress, Resolved, or Closed");
         }
         this.status = status != null ? status : "Open";
@@ -79,9 +96,26 @@ public class Ticket {
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 
+    public User getAssignedAgent() { return assignedAgent; }
+    public void setAssignedAgent(User assignedAgent) { this.assignedAgent = assignedAgent; }
+
     public List<lk.sliit.customer_care_system.modelentity.AgentResponse> getResponses() { return responses; }
     public void setResponses(List<lk.sliit.customer_care_system.modelentity.AgentResponse> responses) { this.responses = responses; }
 
+    // Every insert/update moves updatedAt so delta-sync clients see the change
+    @PrePersist
+    protected void onCreate() {
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
     @Override
     public String toString() {
         return "Ticket{" +
@@ -0,0 +1,42 @@
+package lk.sliit.customer_care_system.modelentity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marker row left behind when a ticket is deleted, so delta-sync clients
+ * can learn about deletions without re-reading the whole ticket list.
+ */
+@Entity
+@Table(name = "ticket_tombstone", indexes = {
+        @Index(name = "idx_ticket_tombstone_deleted_at", columnList = "deleted_at")
+})
+public class TicketTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ticket_id", nullable = false)
+    private Long ticketId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public TicketTombstone() {}
+
+    public TicketTombstone(Long ticketId) {
+        this.ticketId = ticketId;
+        this.deletedAt = LocalDateTime.now();
+    }
+
+    // Getters & Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getTicketId() { return ticketId; }
+    public void setTicketId(Long ticketId) { this.ticketId = ticketId; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+}
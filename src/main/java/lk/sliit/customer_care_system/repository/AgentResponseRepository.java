@@ -1,12 +1,33 @@
 package lk.sliit.customer_care_system.repository;
 
+import lk.sliit.customer_care_system.dto.AgentResponseRowDTO;
 import lk.sliit.customer_care_system.modelentity.AgentResponse;
 import lk.sliit.customer_care_system.modelentity.Ticket;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
 import java.util.List;
 
 public interface AgentResponseRepository extends JpaRepository<AgentResponse, Long> {
 
     // Return a list of responses for a ticket (even if there is only one)
     List<AgentResponse> findByTicket(Ticket ticket);
+
+    // Responses for a whole page of tickets in one statement (agent queue)
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.AgentResponseRowDTO(
+            r.id, r.ticket.id, a.username, r.responseText, r.createdAt)
+        FROM AgentResponse r JOIN r.agent a
+        WHERE r.ticket.id IN :ticketIds
+        ORDER BY r.ticket.id, r.createdAt, r.id
+        """)
+    List<AgentResponseRowDTO> findRowsByTicketIds(@Param("ticketIds") Collection<Long> ticketIds);
+
+    // Set-based cleanup of all responses of a chunk of tickets
+    @Modifying
+    @Query("DELETE FROM AgentResponse r WHERE r.ticket.id IN :ticketIds")
+    int deleteByTicketIdIn(@Param("ticketIds") Collection<Long> ticketIds);
 }
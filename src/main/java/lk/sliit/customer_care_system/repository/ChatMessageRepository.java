@@ -1,7 +1,9 @@
 package lk.sliit.customer_care_system.repository;
 
+import lk.sliit.customer_care_system.dto.ChatMessageDTO;
 import lk.sliit.customer_care_system.modelentity.ChatMessage;
 import lk.sliit.customer_care_system.modelentity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,6 +39,54 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     List<ChatMessage> findByChatSessionIdAndIsDeletedFalseOrderByCreatedAtAsc(
             @Param("sessionId") String sessionId);
 
+    // ✅ History pages: slim rows walked along (chat_session_id, id); callers pass limit + 1 to detect more
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.ChatMessageDTO(cm.id, cm.messageKey, cm.content, s.username,
+               s.id, cm.senderType, cm.chatSessionId, cm.createdAt, cm.isEdited, cm.seq)
+        FROM ChatMessage cm JOIN cm.sender s
+        WHERE cm.chatSessionId = :sessionId
+          AND cm.isDeleted = false
+        ORDER BY cm.id DESC
+        """)
+    List<ChatMessageDTO> findLatestRows(@Param("sessionId") String sessionId, Pageable pageable);
+
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.ChatMessageDTO(cm.id, cm.messageKey, cm.content, s.username,
+               s.id, cm.senderType, cm.chatSessionId, cm.createdAt, cm.isEdited, cm.seq)
+        FROM ChatMessage cm JOIN cm.sender s
+        WHERE cm.chatSessionId = :sessionId
+          AND cm.id < :beforeId
+          AND cm.isDeleted = false
+        ORDER BY cm.id DESC
+        """)
+    List<ChatMessageDTO> findRowsBefore(@Param("sessionId") String sessionId, @Param("beforeId") Long beforeId,
+                                        Pageable pageable);
+
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.ChatMessageDTO(cm.id, cm.messageKey, cm.content, s.username,
+               s.id, cm.senderType, cm.chatSessionId, cm.createdAt, cm.isEdited, cm.seq)
+        FROM ChatMessage cm JOIN cm.sender s
+        WHERE cm.chatSessionId = :sessionId
+          AND cm.id > :afterId
+          AND cm.isDeleted = false
+        ORDER BY cm.id ASC
+        """)
+    List<ChatMessageDTO> findRowsAfter(@Param("sessionId") String sessionId, @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    // ✅ Resume after a reconnect: messages after the client's last sequence number (idx_chat_message_session_seq)
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.ChatMessageDTO(cm.id, cm.messageKey, cm.content, s.username,
+               s.id, cm.senderType, cm.chatSessionId, cm.createdAt, cm.isEdited, cm.seq)
+        FROM ChatMessage cm JOIN cm.sender s
+        WHERE cm.chatSessionId = :sessionId
+          AND cm.seq > :afterSeq
+          AND cm.isDeleted = false
+        ORDER BY cm.seq ASC
+        """)
+    List<ChatMessageDTO> findRowsAfterSeq(@Param("sessionId") String sessionId, @Param("afterSeq") Long afterSeq,
+                                          Pageable pageable);
+
     // ✅ Fetch messages for a specific sender (non-deleted only)
     @Query("""
         SELECT cm FROM ChatMessage cm 
@@ -81,4 +132,17 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     @Transactional
     @Query("DELETE FROM ChatMessage cm WHERE cm.chatSessionId = :sessionId")
     void deleteByChatSessionId(@Param("sessionId") String sessionId);
+
+    // ✅ Purge: up to :limit messages of the given sessions per statement, so no delete holds locks for long;
+    // callers repeat until fewer than :limit rows come back (idx_chat_message_session_id)
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE TOP (:limit) FROM chat_messages WHERE chat_session_id IN (:sessionIds)", nativeQuery = true)
+    int deleteChunkBySessionIds(@Param("sessionIds") Collection<String> sessionIds, @Param("limit") int limit);
+
+    // ✅ Purge: up to :limit messages sent by one user per statement
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE TOP (:limit) FROM chat_messages WHERE sender_id = :senderId", nativeQuery = true)
+    int deleteChunkBySenderId(@Param("senderId") Long senderId, @Param("limit") int limit);
 }
@@ -1,12 +1,20 @@
 package lk.sliit.customer_care_system.repository;
 
+import lk.sliit.customer_care_system.dto.ChatSessionDTO;
+import lk.sliit.customer_care_system.dto.ChatSessionMetaDTO;
+import lk.sliit.customer_care_system.dto.GroupCountDTO;
 import lk.sliit.customer_care_system.modelentity.ChatSession;
 import lk.sliit.customer_care_system.modelentity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,8 +23,49 @@ public interface ChatSessionRepository extends JpaRepository<ChatSession, Long>
 
     Optional<ChatSession> findBySessionId(String sessionId);
 
+    // ✅ Status and participants only, for the chat message path (cached in ChatLookupCache)
+    @Query("SELECT new lk.sliit.customer_care_system.dto.ChatSessionMetaDTO(cs.id, cs.sessionId, cs.status, u.id, a.id) " +
+            "FROM ChatSession cs LEFT JOIN cs.user u LEFT JOIN cs.agent a WHERE cs.sessionId = :sessionId")
+    Optional<ChatSessionMetaDTO> findMetaBySessionId(@Param("sessionId") String sessionId);
+
+    // ✅ Board rows of the given statuses (idx_chat_session_status), for ChatSessionBoard
+    @Query("SELECT new lk.sliit.customer_care_system.dto.ChatSessionDTO(cs.sessionId, u.username, u.id, a.id, a.username, cs.status, cs.createdAt) " +
+            "FROM ChatSession cs LEFT JOIN cs.user u LEFT JOIN cs.agent a WHERE cs.status IN :statuses")
+    List<ChatSessionDTO> findBoardRows(@Param("statuses") Collection<ChatSession.ChatStatus> statuses);
+
+    // ✅ Claim: only one agent can move an unassigned open session to ACTIVE; returns rows changed (0 = lost)
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE ChatSession cs SET cs.agent = :agent, cs.status = 'ACTIVE' " +
+            "WHERE cs.sessionId = :sessionId AND cs.agent IS NULL " +
+            "AND cs.status IN ('WAITING', 'ACTIVE')")
+    int claimUnassigned(@Param("sessionId") String sessionId, @Param("agent") User agent);
+
     List<ChatSession> findByUserOrderByCreatedAtDesc(User user);
 
+    // ✅ Purge candidates: closed sessions created before the cutoff, oldest first (idx_chat_session_status)
+    @Query("SELECT cs.sessionId FROM ChatSession cs WHERE cs.status = 'CLOSED' AND cs.createdAt < :before ORDER BY cs.createdAt ASC")
+    List<String> findClosedSessionIdsBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Query("SELECT COUNT(cs) FROM ChatSession cs WHERE cs.status = 'CLOSED' AND cs.createdAt < :before")
+    long countClosedBefore(@Param("before") LocalDateTime before);
+
+    // ✅ Archive candidates: closed sessions not archived yet, created before the cutoff, oldest first
+    @Query("SELECT cs.sessionId FROM ChatSession cs WHERE cs.status = 'CLOSED' AND cs.archivedAt IS NULL " +
+            "AND cs.createdAt < :before ORDER BY cs.createdAt ASC")
+    List<String> findArchiveCandidates(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ChatSession cs SET cs.archivedAt = :archivedAt WHERE cs.sessionId = :sessionId")
+    int markArchived(@Param("sessionId") String sessionId, @Param("archivedAt") LocalDateTime archivedAt);
+
+    // ✅ Purge: one statement for a batch of sessions whose messages are already gone
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChatSession cs WHERE cs.sessionId IN :sessionIds")
+    int deleteBySessionIds(@Param("sessionIds") Collection<String> sessionIds);
+
     List<ChatSession> findByAgentOrderByCreatedAtDesc(User agent);
 
     @Query("SELECT cs FROM ChatSession cs WHERE cs.status = :status ORDER BY cs.createdAt ASC")
@@ -28,9 +77,12 @@ public interface ChatSessionRepository extends JpaRepository<ChatSession, Long>
     @Query("SELECT cs FROM ChatSession cs WHERE cs.agent = :agent AND cs.status = :status ORDER BY cs.createdAt DESC")
     List<ChatSession> findByAgentAndStatusOrderByCreatedAtDesc(@Param("agent") User agent, @Param("status") ChatSession.ChatStatus status);
 
-    @Query("SELECT cs FROM ChatSession cs WHERE cs.status = 'WAITING_FOR_AGENT' ORDER BY cs.createdAt ASC")
+    @Query("SELECT cs FROM ChatSession cs WHERE cs.status = 'WAITING' ORDER BY cs.createdAt ASC")
     List<ChatSession> findWaitingForAgentSessions();
 
     @Query("SELECT cs FROM ChatSession cs WHERE cs.agent IS NULL AND cs.status = 'ACTIVE' ORDER BY cs.createdAt ASC")
     List<ChatSession> findActiveSessionsWithoutAgent();
+
+    @Query("SELECT new lk.sliit.customer_care_system.dto.GroupCountDTO(cs.status, COUNT(cs)) FROM ChatSession cs GROUP BY cs.status")
+    List<GroupCountDTO> countGroupByStatus();
 }
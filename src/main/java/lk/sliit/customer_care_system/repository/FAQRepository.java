@@ -50,6 +50,9 @@ public interface FAQRepository extends JpaRepository<FAQ, Long> {
     // Find all pending FAQs (not approved)
     List<FAQ> findByIsApprovedFalseOrderByCreatedAtDesc();
 
+    // Count pending FAQs (not approved)
+    long countByIsApprovedFalse();
+
     // Find distinct categories from approved FAQs only
     @Query("SELECT DISTINCT f.category FROM FAQ f WHERE f.isApproved = true ORDER BY f.category")
     List<String> findApprovedCategories();
@@ -1,5 +1,6 @@
 package lk.sliit.customer_care_system.repository;
 
+import lk.sliit.customer_care_system.dto.GroupCountDTO;
 import lk.sliit.customer_care_system.modelentity.Feedback;
 import lk.sliit.customer_care_system.modelentity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -58,6 +59,9 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     // Count feedbacks by status
     long countByStatus(String status);
 
+    // Count feedbacks by user
+    long countByUser(User user);
+
     // Count feedbacks by category
     long countByCategory(String category);
 
@@ -67,6 +71,10 @@ public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     // Count feedbacks with admin response
     long countByAdminResponseIsNotNull();
 
+    // Count feedbacks per status in one GROUP BY
+    @Query("SELECT new lk.sliit.customer_care_system.dto.GroupCountDTO(f.status, COUNT(f)) FROM Feedback f GROUP BY f.status")
+    List<GroupCountDTO> countGroupByStatus();
+
     // Find recent feedbacks (last 30 days)
     @Query("SELECT f FROM Feedback f WHERE f.createdAt >= CURRENT_DATE - 30 DAY ORDER BY f.createdAt DESC")
     List<Feedback> findRecentFeedbacks();
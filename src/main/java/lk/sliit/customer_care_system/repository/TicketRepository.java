@@ -1,17 +1,180 @@
 package lk.sliit.customer_care_system.repository;
 
+import lk.sliit.customer_care_system.dto.AgentTicketRowDTO;
+import lk.sliit.customer_care_system.dto.TicketStatusCategoryCountDTO;
+import lk.sliit.customer_care_system.dto.TicketSummaryDTO;
 import lk.sliit.customer_care_system.modelentity.Ticket;
 import lk.sliit.customer_care_system.modelentity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
     List<Ticket> findByUser(User user);  // ✅ get tickets for logged-in user
     long countByStatus(String status);   // ✅ count tickets by status
+    long countByUser(User user);         // ✅ count a user's tickets
+    long countByUserAndStatus(User user, String status);
 
     // ✅ Fetch all tickets with user eagerly loaded (avoid DISTINCT on TEXT columns)
     @Query("SELECT t FROM Ticket t LEFT JOIN FETCH t.user")
     List<Ticket> findAllWithUser();
-}
\ No newline at end of file
+
+    // ✅ Agent queue page: flat rows with owner/assignee usernames, newest first (optionally one agent's tickets)
+    @Query(value = """
+        SELECT new lk.sliit.customer_care_system.dto.AgentTicketRowDTO(
+            t.id, t.title, t.description, t.category, t.status, t.createdAt, u.username, a.username)
+        FROM Ticket t JOIN t.user u LEFT JOIN t.assignedAgent a
+        WHERE (:agentId IS NULL OR t.assignedAgent.id = :agentId)
+        ORDER BY t.createdAt DESC, t.id DESC
+        """,
+        countQuery = "SELECT COUNT(t) FROM Ticket t WHERE (:agentId IS NULL OR t.assignedAgent.id = :agentId)")
+    Page<AgentTicketRowDTO> findAgentQueue(@Param("agentId") Long agentId, Pageable pageable);
+
+    // ✅ First page of the ticket listing (newest first, keyset on createdAt,id)
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.TicketSummaryDTO(
+            t.id, t.title, t.category, t.status, t.createdAt, t.updatedAt, u.username)
+        FROM Ticket t JOIN t.user u
+        WHERE (:status IS NULL OR t.status = :status)
+          AND (:category IS NULL OR t.category = :category)
+        ORDER BY t.createdAt DESC, t.id DESC
+        """)
+    List<TicketSummaryDTO> findSummaryFirstPage(@Param("status") String status,
+                                                @Param("category") String category,
+                                                Pageable limit);
+
+    // ✅ Next page after the (createdAt,id) cursor of the last row already seen
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.TicketSummaryDTO(
+            t.id, t.title, t.category, t.status, t.createdAt, t.updatedAt, u.username)
+        FROM Ticket t JOIN t.user u
+        WHERE (:status IS NULL OR t.status = :status)
+          AND (:category IS NULL OR t.category = :category)
+          AND (t.createdAt < :cursorCreatedAt
+               OR (t.createdAt = :cursorCreatedAt AND t.id < :cursorId))
+        ORDER BY t.createdAt DESC, t.id DESC
+        """)
+    List<TicketSummaryDTO> findSummaryPageAfter(@Param("status") String status,
+                                                @Param("category") String category,
+                                                @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                                @Param("cursorId") Long cursorId,
+                                                Pageable limit);
+
+    // ✅ Rows touched after the given watermark (delta sync), oldest change first
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.TicketSummaryDTO(
+            t.id, t.title, t.category, t.status, t.createdAt, t.updatedAt, u.username)
+        FROM Ticket t JOIN t.user u
+        WHERE t.updatedAt > :since
+        ORDER BY t.updatedAt ASC, t.id ASC
+        """)
+    List<TicketSummaryDTO> findSummaryChangedSince(@Param("since") LocalDateTime since, Pageable limit);
+
+    // ✅ Ids of a user's tickets (used to record tombstones before cascading deletes)
+    @Query("SELECT t.id FROM Ticket t WHERE t.user = :user")
+    List<Long> findIdsByUser(@Param("user") User user);
+
+    // ✅ Status x category ticket matrix for analytics
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.TicketStatusCategoryCountDTO(t.status, t.category, COUNT(t))
+        FROM Ticket t
+        GROUP BY t.status, t.category
+        """)
+    List<TicketStatusCategoryCountDTO> countGroupByStatusAndCategory();
+
+    // ✅ Ids selected by a bulk-operation filter
+    @Query("""
+        SELECT t.id FROM Ticket t
+        WHERE (:status IS NULL OR t.status = :status)
+          AND (:category IS NULL OR t.category = :category)
+        ORDER BY t.id
+        """)
+    List<Long> findIdsByFilter(@Param("status") String status,
+                               @Param("category") String category,
+                               Pageable limit);
+
+    // ✅ Summary rows for a chunk of ids (bulk operations need owner/title for events)
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.TicketSummaryDTO(
+            t.id, t.title, t.category, t.status, t.createdAt, t.updatedAt, u.username)
+        FROM Ticket t JOIN t.user u
+        WHERE t.id IN :ids
+        """)
+    List<TicketSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ✅ Set-based status update for a chunk of ids
+    @Modifying
+    @Query("UPDATE Ticket t SET t.status = :status, t.updatedAt = :updatedAt WHERE t.id IN :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids,
+                           @Param("status") String status,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+
+    // ✅ Set-based delete for a chunk of ids (responses must be removed first)
+    @Modifying
+    @Query("DELETE FROM Ticket t WHERE t.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ✅ Open assignments as (ticketId, agentId) pairs, used to rebuild routing loads
+    @Query("SELECT t.id, t.assignedAgent.id FROM Ticket t WHERE t.assignedAgent IS NOT NULL AND t.status IN :statuses")
+    List<Object[]> findAssignments(@Param("statuses") Collection<String> statuses);
+
+    // ✅ Open tickets of one agent (reassigned when the agent goes offline)
+    List<Ticket> findByAssignedAgent_IdAndStatusIn(Long agentId, Collection<String> statuses);
+
+    // ✅ Oldest unassigned open tickets (handed out when an agent comes online)
+    List<Ticket> findByAssignedAgentIsNullAndStatusInOrderByCreatedAtAsc(Collection<String> statuses, Pageable limit);
+
+    long countByAssignedAgentAndStatusIn(User agent, Collection<String> statuses);
+
+    // ✅ Drop every assignment of an agent (before the agent account is deleted)
+    @Modifying
+    @Transactional
+    @Query("UPDATE Ticket t SET t.assignedAgent = NULL WHERE t.assignedAgent.id = :agentId")
+    int clearAssignedAgent(@Param("agentId") Long agentId);
+
+    // ✅ Full-text index feed: ticket text plus owner, in id order (see TicketSearchService)
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.AgentTicketRowDTO(
+            t.id, t.title, t.description, t.category, t.status, t.createdAt, u.username, a.username)
+        FROM Ticket t JOIN t.user u LEFT JOIN t.assignedAgent a
+        WHERE t.id > :afterId
+        ORDER BY t.id
+        """)
+    List<AgentTicketRowDTO> findIndexRowsAfter(@Param("afterId") Long afterId, Pageable limit);
+
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.AgentTicketRowDTO(
+            t.id, t.title, t.description, t.category, t.status, t.createdAt, u.username, a.username)
+        FROM Ticket t JOIN t.user u LEFT JOIN t.assignedAgent a
+        WHERE t.updatedAt > :since
+        """)
+    List<AgentTicketRowDTO> findIndexRowsChangedSince(@Param("since") LocalDateTime since);
+
+    @Query("""
+        SELECT new lk.sliit.customer_care_system.dto.AgentTicketRowDTO(
+            t.id, t.title, t.description, t.category, t.status, t.createdAt, u.username, a.username)
+        FROM Ticket t JOIN t.user u LEFT JOIN t.assignedAgent a
+        WHERE t.id = :id
+        """)
+    List<AgentTicketRowDTO> findIndexRowById(@Param("id") Long id);
+
+    // ✅ SLA bootstrap: open tickets with their first response time, in id batches
+    @Query("""
+        SELECT t.id, t.category, t.createdAt, MIN(r.createdAt)
+        FROM Ticket t LEFT JOIN t.responses r
+        WHERE t.status IN :statuses AND t.id > :afterId
+        GROUP BY t.id, t.category, t.createdAt
+        ORDER BY t.id
+        """)
+    List<Object[]> findSlaRowsAfter(@Param("statuses") Collection<String> statuses,
+                                    @Param("afterId") Long afterId,
+                                    Pageable limit);
+}
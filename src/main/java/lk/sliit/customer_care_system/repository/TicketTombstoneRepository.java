@@ -0,0 +1,40 @@
+package lk.sliit.customer_care_system.repository;
+
+import lk.sliit.customer_care_system.modelentity.TicketTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TicketTombstoneRepository extends JpaRepository<TicketTombstone, Long> {
+
+    // ✅ Deleted ticket ids recorded after the given tombstone id
+    @Query("SELECT d.ticketId FROM TicketTombstone d WHERE d.id > :afterId ORDER BY d.id ASC")
+    List<Long> findTicketIdsAfter(@Param("afterId") Long afterId);
+
+    // ✅ Ticket table watermark in one round trip: newest updated_at and newest tombstone id
+    @Query(value = """
+        SELECT CONVERT(varchar(33), (SELECT MAX(updated_at) FROM ticket), 126) AS maxUpdatedAt,
+               (SELECT MAX(id) FROM ticket_tombstone) AS maxTombstoneId
+        """, nativeQuery = true)
+    TicketWatermark findWatermark();
+
+    // ✅ Oldest tombstone still stored (null when there are none)
+    @Query("SELECT MIN(d.id) FROM TicketTombstone d")
+    Long findOldestId();
+
+    // ✅ Drop tombstones older than the retention window, always keeping the newest one so the id watermark never goes back
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TicketTombstone d WHERE d.deletedAt < :before AND d.id < (SELECT MAX(t.id) FROM TicketTombstone t)")
+    int deleteByDeletedAtBefore(@Param("before") LocalDateTime before);
+
+    interface TicketWatermark {
+        String getMaxUpdatedAt();
+        Long getMaxTombstoneId();
+    }
+}
@@ -1,9 +1,14 @@
 package lk.sliit.customer_care_system.repository;
 
+import lk.sliit.customer_care_system.dto.ChatSenderDTO;
+import lk.sliit.customer_care_system.dto.GroupCountDTO;
 import lk.sliit.customer_care_system.modelentity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,4 +22,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     // (Optional) Find user by role
     Optional<User> findByRole(String role);
+
+    // All accounts with a role (e.g. every agent for ticket routing)
+    List<User> findAllByRole(String role);
+
+    // Sender identity for the chat message path (no entity, no ticket collection)
+    @Query("SELECT new lk.sliit.customer_care_system.dto.ChatSenderDTO(u.id, u.username, u.role) FROM User u WHERE u.id = :id")
+    Optional<ChatSenderDTO> findSenderById(@Param("id") Long id);
+
+    // Number of accounts per role (one GROUP BY instead of loading every user)
+    @Query("SELECT new lk.sliit.customer_care_system.dto.GroupCountDTO(u.role, COUNT(u)) FROM User u GROUP BY u.role")
+    List<GroupCountDTO> countGroupByRole();
 }
@@ -0,0 +1,69 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.GroupCountDTO;
+import lk.sliit.customer_care_system.dto.TicketStatusCategoryCountDTO;
+import lk.sliit.customer_care_system.repository.ChatSessionRepository;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import lk.sliit.customer_care_system.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregate counts for the admin analytics page.
+ * Each entity is summarised by a single GROUP BY query, so memory use is O(groups), not O(rows).
+ */
+@Service
+public class AnalyticsService {
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private TicketRepository ticketRepository;
+    @Autowired private ChatSessionRepository chatSessionRepository;
+
+    // role -> number of accounts
+    public Map<String, Long> usersByRole() {
+        return toMap(userRepository.countGroupByRole());
+    }
+
+    // category -> (status -> number of tickets)
+    public Map<String, Map<String, Long>> ticketStatusByCategory() {
+        Map<String, Map<String, Long>> matrix = new TreeMap<>();
+        for (TicketStatusCategoryCountDTO cell : ticketRepository.countGroupByStatusAndCategory()) {
+            matrix.computeIfAbsent(cell.getCategory(), k -> new TreeMap<>())
+                    .merge(cell.getStatus(), cell.getCount(), Long::sum);
+        }
+        return matrix;
+    }
+
+    // chat status -> number of sessions
+    public Map<String, Long> chatSessionsByStatus() {
+        return toMap(chatSessionRepository.countGroupByStatus());
+    }
+
+    // --- Helpers for collapsing the status x category matrix ---
+    public static Map<String, Long> totalsByStatus(Map<String, Map<String, Long>> matrix) {
+        Map<String, Long> totals = new TreeMap<>();
+        matrix.values().forEach(row -> row.forEach((status, count) -> totals.merge(status, count, Long::sum)));
+        return totals;
+    }
+
+    public static Map<String, Long> totalsByCategory(Map<String, Map<String, Long>> matrix) {
+        Map<String, Long> totals = new TreeMap<>();
+        matrix.forEach((category, row) ->
+                totals.put(category, row.values().stream().mapToLong(Long::longValue).sum()));
+        return totals;
+    }
+
+    private static Map<String, Long> toMap(List<GroupCountDTO> rows) {
+        Map<String, Long> counts = new TreeMap<>();
+        for (GroupCountDTO row : rows) {
+            if (row.getKey() != null) {
+                counts.merge(row.getKey(), row.getCount(), Long::sum);
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,125 @@
+package lk.sliit.customer_care_system.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small in-process cache with a size bound (least recently used entry goes first) and a
+ * time-to-live per entry.
+ *
+ * The loader runs outside the lock, so a slow database lookup never blocks other readers; two
+ * threads missing the same key at once may both load it. Each load holds a token for its key,
+ * and {@link #invalidate} drops it: a load that finishes after an invalidation is returned to
+ * its caller but not cached, since it may have read the row before the change. Absent results
+ * are not cached.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // Access order: iteration starts at the least recently used entry
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Key -> token of the load whose result may be cached
+    private final Map<K, Object> loading = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder discardedLoads = new LongAdder();
+
+    public BoundedTtlCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Cached value, or the loader's result (cached when present).
+     */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        long now = System.nanoTime();
+        Object token = new Object();
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return Optional.of(entry.value);
+                }
+                entries.remove(key);
+                expirations.increment();
+            }
+            loading.put(key, token);
+        }
+        misses.increment();
+        Optional<V> loaded = Optional.empty();
+        try {
+            loaded = loader.apply(key);
+        } finally {
+            synchronized (this) {
+                boolean current = loading.remove(key, token);
+                if (loaded.isPresent()) {
+                    if (current) {
+                        put(key, loaded.get());
+                    } else {
+                        discardedLoads.increment(); // invalidated (or superseded) while loading
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+        loading.remove(key);
+    }
+
+    // Loads in flight cannot be tested yet, so none of them is cached
+    public synchronized void invalidateIf(Predicate<V> condition) {
+        entries.values().removeIf(entry -> condition.test(entry.value));
+        loading.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("discardedLoads", discardedLoads.sum());
+        return stats;
+    }
+
+    private record Entry<V>(V value, long loadedAt) {}
+}
@@ -0,0 +1,176 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.ChatHistoryPageDTO;
+import lk.sliit.customer_care_system.dto.ChatMessageDTO;
+import lk.sliit.customer_care_system.repository.ChatMessageRepository;
+import lk.sliit.customer_care_system.repository.ChatSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves the messages of old closed sessions from chat_messages into {@link ChatTranscriptArchive}
+ * and serves them back for the history API.
+ *
+ * A session is archived in three steps: its transcript is appended to the archive and forced to
+ * disk, the session row gets {@code archivedAt}, and only then are its message rows deleted (in
+ * chunks, via {@link ChatPurgeService}). A crash in between at worst archives the session again;
+ * the newer archive entry wins.
+ */
+@Service
+public class ChatArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatArchiveService.class);
+
+    private static final int READ_PAGE_SIZE = 1000;
+
+    @Autowired private ChatSessionRepository chatSessionRepository;
+    @Autowired private ChatMessageRepository chatMessageRepository;
+    @Autowired private ChatTranscriptArchive chatTranscriptArchive;
+    @Autowired private ChatPurgeService chatPurgeService;
+
+    @Value("${chat.archive.after-days:30}")
+    private int afterDays;
+
+    @Value("${chat.archive.batch-size:50}")
+    private int batchSize;
+
+    private final LongAdder sessionsArchived = new LongAdder();
+    private final LongAdder messagesArchived = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder historyPages = new LongAdder();
+    private volatile LocalDateTime lastRunAt;
+
+    // One batch per run; sessions that fail stay unarchived and are retried next time
+    @Scheduled(fixedDelayString = "${chat.archive.interval-ms:600000}",
+            initialDelayString = "${chat.archive.interval-ms:600000}")
+    public synchronized int archiveClosedSessions() {
+        if (!chatTranscriptArchive.isEnabled() || afterDays < 1) {
+            return 0;
+        }
+        lastRunAt = LocalDateTime.now();
+        List<String> candidates = chatSessionRepository.findArchiveCandidates(lastRunAt.minusDays(afterDays),
+                PageRequest.of(0, batchSize));
+        int archived = 0;
+        for (String sessionId : candidates) {
+            try {
+                archiveSession(sessionId);
+                archived++;
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+                logger.warn("Could not archive chat session {}: {}", sessionId, e.getMessage());
+            }
+        }
+        if (archived > 0) {
+            logger.info("Archived {} closed chat sessions", archived);
+        }
+        return archived;
+    }
+
+    void archiveSession(String sessionId) throws IOException {
+        List<ChatMessageDTO> messages = new ArrayList<>();
+        Long afterId = 0L;
+        while (true) {
+            List<ChatMessageDTO> page = chatMessageRepository.findRowsAfter(sessionId, afterId,
+                    PageRequest.of(0, READ_PAGE_SIZE));
+            messages.addAll(page);
+            if (page.size() < READ_PAGE_SIZE) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        chatTranscriptArchive.append(sessionId, messages);
+        chatSessionRepository.markArchived(sessionId, LocalDateTime.now());
+        chatPurgeService.deleteMessages(List.of(sessionId));
+
+        sessionsArchived.increment();
+        messagesArchived.add(messages.size());
+    }
+
+    // --- Reads (ChatService.getChatHistory) ---
+
+    public boolean isArchived(String sessionId) {
+        return chatTranscriptArchive.contains(sessionId);
+    }
+
+    /** A history page cut from the archived transcript, with the same cursor rules as the table. */
+    public ChatHistoryPageDTO historyPage(String sessionId, Long beforeId, Long afterId, int size) {
+        List<ChatMessageDTO> transcript = transcript(sessionId);
+
+        List<ChatMessageDTO> rows;
+        boolean hasMore;
+        if (afterId != null) {
+            int from = 0;
+            while (from < transcript.size() && transcript.get(from).getId() <= afterId) {
+                from++;
+            }
+            int to = Math.min(transcript.size(), from + size);
+            rows = new ArrayList<>(transcript.subList(from, to));
+            hasMore = to < transcript.size();
+        } else {
+            int to = transcript.size();
+            if (beforeId != null) {
+                while (to > 0 && transcript.get(to - 1).getId() >= beforeId) {
+                    to--;
+                }
+            }
+            int from = Math.max(0, to - size);
+            rows = new ArrayList<>(transcript.subList(from, to));
+            hasMore = from > 0;
+        }
+        ChatHistoryPageDTO page = new ChatHistoryPageDTO(rows, hasMore);
+        page.setArchived(true);
+        return page;
+    }
+
+    // Resume by sequence number, for clients reconnecting to a session that was archived meanwhile
+    public ChatHistoryPageDTO resumePage(String sessionId, long afterSeq, int size) {
+        List<ChatMessageDTO> newer = new ArrayList<>();
+        for (ChatMessageDTO message : transcript(sessionId)) {
+            if (message.getSeq() != null && message.getSeq() > afterSeq) {
+                newer.add(message);
+            }
+        }
+        newer.sort(Comparator.comparing(ChatMessageDTO::getSeq));
+        ChatHistoryPageDTO page = new ChatHistoryPageDTO(new ArrayList<>(newer.subList(0, Math.min(size, newer.size()))),
+                newer.size() > size);
+        page.setArchived(true);
+        return page;
+    }
+
+    private List<ChatMessageDTO> transcript(String sessionId) {
+        try {
+            List<ChatMessageDTO> transcript = chatTranscriptArchive.read(sessionId).orElse(List.of());
+            historyPages.increment();
+            return transcript;
+        } catch (IOException e) {
+            throw new RuntimeException("Archived chat history unavailable for " + sessionId, e);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("afterDays", afterDays);
+        stats.put("sessionsArchived", sessionsArchived.sum());
+        stats.put("messagesArchived", messagesArchived.sum());
+        stats.put("failures", failures.sum());
+        stats.put("historyPages", historyPages.sum());
+        stats.put("lastRunAt", lastRunAt != null ? lastRunAt.toString() : null);
+        stats.put("archive", chatTranscriptArchive.stats());
+        return stats;
+    }
+}
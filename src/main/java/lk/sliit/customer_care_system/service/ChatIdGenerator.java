@@ -0,0 +1,167 @@
+package lk.sliit.customer_care_system.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered ids for chat sessions, also used as chat message keys
+ * ({@link ChatWriteBehindService#nextKey}).
+ *
+ * Each id is 64 bits: 41 bits of milliseconds since 2024-01-01 UTC, 10 bits of node id and a
+ * 12-bit sequence within the millisecond. Ids from one node only ever increase, even if the clock
+ * steps back (the last timestamp is reused until the clock catches up), and two nodes with
+ * different {@code chat.id.node-id} values never collide. The text form is 13 characters of
+ * Crockford base32, so ids compare in the same order as strings as they do as numbers and new
+ * sessions are appended to the end of the session id index.
+ */
+@Service
+public class ChatIdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatIdGenerator.class);
+
+    static final long EPOCH_MILLIS = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    static final int ENCODED_LENGTH = 13; // ceil(64 / 5)
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    private final AtomicLong last = new AtomicLong();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder clockRegressions = new LongAdder();
+    private final LongAdder borrowedMillis = new LongAdder();
+
+    public ChatIdGenerator(@Value("${chat.id.node-id:-1}") int nodeId) {
+        this(nodeId < 0 ? derivedNodeId() : nodeId, System::currentTimeMillis);
+    }
+
+    ChatIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("chat.id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        logger.info("Chat id generator using node id {}", nodeId);
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long previousMillis = previous >>> TIMESTAMP_SHIFT;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+
+            long millis;
+            long sequence;
+            if (now > previousMillis) {
+                millis = now;
+                sequence = 0;
+            } else {
+                // Same millisecond, or the clock went back: continue from the last id
+                millis = previousMillis;
+                sequence = (previous & MAX_SEQUENCE) + 1;
+                if (sequence > MAX_SEQUENCE) {
+                    millis++; // sequence exhausted: run one millisecond ahead of the clock
+                    sequence = 0;
+                }
+            }
+
+            long id = (millis << TIMESTAMP_SHIFT) | (nodeId << SEQUENCE_BITS) | sequence;
+            if (last.compareAndSet(previous, id)) {
+                generated.increment();
+                if (now < previousMillis) {
+                    clockRegressions.increment();
+                }
+                if (millis > now) {
+                    borrowedMillis.increment();
+                }
+                return id;
+            }
+        }
+    }
+
+    // New chat session id, e.g. 0DGT2K8Y40000
+    public String nextSessionId() {
+        return encode(nextId());
+    }
+
+    // --- Encoding ---
+
+    static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    static long decode(String encoded) {
+        if (encoded.length() != ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Not a chat id: " + encoded);
+        }
+        long id = 0;
+        for (int i = 0; i < ENCODED_LENGTH; i++) {
+            int digit = indexOf(encoded.charAt(i));
+            if (digit < 0 || (i == 0 && digit > 15)) { // first character holds only 4 bits
+                throw new IllegalArgumentException("Not a chat id: " + encoded);
+            }
+            id = (id << 5) | digit;
+        }
+        return id;
+    }
+
+    private static int indexOf(char c) {
+        char upper = Character.toUpperCase(c);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == upper) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+
+    static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+
+    // No configured node id: hash host name and process id, fine for a handful of instances
+    private static int derivedNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        String source = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        return (source.hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("generated", generated.sum());
+        stats.put("clockRegressions", clockRegressions.sum());
+        stats.put("borrowedMillis", borrowedMillis.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,64 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.ChatSenderDTO;
+import lk.sliit.customer_care_system.dto.ChatSessionMetaDTO;
+import lk.sliit.customer_care_system.repository.ChatSessionRepository;
+import lk.sliit.customer_care_system.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Session metadata and sender identity for the chat message path, so a message does not cost a
+ * session query and a user query every time.
+ *
+ * Entries are bounded in number and age ({@code chat.cache.*}); {@link ChatService} invalidates a
+ * session when it is assigned, closed or deleted, and user changes invalidate the sender.
+ */
+@Service
+public class ChatLookupCache {
+
+    @Autowired private ChatSessionRepository chatSessionRepository;
+    @Autowired private UserRepository userRepository;
+
+    private final BoundedTtlCache<String, ChatSessionMetaDTO> sessions;
+    private final BoundedTtlCache<Long, ChatSenderDTO> senders;
+
+    public ChatLookupCache(@Value("${chat.cache.session.max-size:10000}") int sessionMaxSize,
+                           @Value("${chat.cache.session.ttl:PT5M}") Duration sessionTtl,
+                           @Value("${chat.cache.sender.max-size:10000}") int senderMaxSize,
+                           @Value("${chat.cache.sender.ttl:PT10M}") Duration senderTtl) {
+        this.sessions = new BoundedTtlCache<>(sessionMaxSize, sessionTtl);
+        this.senders = new BoundedTtlCache<>(senderMaxSize, senderTtl);
+    }
+
+    public Optional<ChatSessionMetaDTO> session(String sessionId) {
+        return sessions.get(sessionId, chatSessionRepository::findMetaBySessionId);
+    }
+
+    public Optional<ChatSenderDTO> sender(Long userId) {
+        return senders.get(userId, userRepository::findSenderById);
+    }
+
+    public void invalidateSession(String sessionId) {
+        sessions.invalidate(sessionId);
+    }
+
+    // A deleted or changed user may be the customer or agent of cached sessions too
+    public void invalidateUser(Long userId) {
+        senders.invalidate(userId);
+        sessions.invalidateIf(meta -> userId.equals(meta.getUserId()) || userId.equals(meta.getAgentId()));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", sessions.stats());
+        stats.put("senders", senders.stats());
+        return stats;
+    }
+}
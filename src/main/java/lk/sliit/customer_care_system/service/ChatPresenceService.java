@@ -0,0 +1,133 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.config.ChatPresenceRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Presence and typing indicators for chat sessions, broadcast in batches.
+ *
+ * Typing events from a connection are rate-limited ({@code chat.presence.typing-min-gap-ms}) and
+ * only mark the session's typing state; a flush every {@code chat.presence.flush-interval-ms}
+ * sends at most one {@code type: "typing"} frame per session, and only when the set of typing
+ * users changed. Entries expire after {@code chat.presence.typing-ttl-ms} without a refresh.
+ * Presence changes from {@link ChatPresenceRegistry} go out on the same flush as
+ * {@code type: "presence"} frames to the session topic, and as a customer online/offline summary
+ * to /topic/sessions for the agent dashboard.
+ */
+@Service
+public class ChatPresenceService {
+
+    @Autowired private ChatPresenceRegistry chatPresenceRegistry;
+    @Autowired private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${chat.presence.typing-min-gap-ms:500}")
+    private long typingMinGapMs;
+
+    @Value("${chat.presence.typing-ttl-ms:5000}")
+    private long typingTtlMs;
+
+    // Chat session id -> who is typing there
+    private final Map<String, TypingState> typing = new ConcurrentHashMap<>();
+
+    private final LongAdder typingEvents = new LongAdder();
+    private final LongAdder typingRejected = new LongAdder();
+    private final LongAdder typingBroadcasts = new LongAdder();
+    private final LongAdder presenceBroadcasts = new LongAdder();
+
+    /**
+     * Typing started (refreshes the entry) or stopped. Ignored for connections not subscribed to the
+     * session and for starts faster than the minimum gap; stops always count.
+     */
+    public void typing(String webSocketSessionId, String chatSessionId, boolean isTyping) {
+        String username = chatPresenceRegistry.username(webSocketSessionId);
+        if (username == null || chatSessionId == null
+                || !chatPresenceRegistry.isWatching(webSocketSessionId, chatSessionId)
+                || (isTyping && !chatPresenceRegistry.tryAcquireTyping(webSocketSessionId, typingMinGapMs))) {
+            typingRejected.increment();
+            return;
+        }
+        typingEvents.increment();
+        TypingState state = typing.computeIfAbsent(chatSessionId, k -> new TypingState());
+        if (isTyping) {
+            Long previous = state.expiresAt.put(username, System.currentTimeMillis() + typingTtlMs);
+            if (previous == null) {
+                state.dirty.set(true);
+            }
+        } else if (state.expiresAt.remove(username) != null) {
+            state.dirty.set(true);
+        }
+    }
+
+    public List<ChatPresenceRegistry.Participant> participants(String chatSessionId) {
+        return chatPresenceRegistry.participants(chatSessionId);
+    }
+
+    // Whether the customer (non-staff participant) of a chat session is connected
+    public boolean isCustomerOnline(String chatSessionId) {
+        return participants(chatSessionId).stream().anyMatch(p -> !p.staff() && p.online());
+    }
+
+    @Scheduled(fixedDelayString = "${chat.presence.flush-interval-ms:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Map.Entry<String, TypingState>> it = typing.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, TypingState> entry = it.next();
+            TypingState state = entry.getValue();
+            if (state.expiresAt.values().removeIf(expiresAt -> expiresAt < now)) {
+                state.dirty.set(true);
+            }
+            if (state.dirty.getAndSet(false)) {
+                Map<String, Object> frame = new HashMap<>();
+                frame.put("type", "typing");
+                frame.put("sessionId", entry.getKey());
+                frame.put("users", new ArrayList<>(state.expiresAt.keySet()));
+                messagingTemplate.convertAndSend("/topic/chat/" + entry.getKey(), frame);
+                typingBroadcasts.increment();
+            } else if (state.expiresAt.isEmpty()) {
+                // A start racing this removal lands in the dropped state; the next refresh recreates it
+                it.remove();
+            }
+        }
+
+        for (String chatSessionId : chatPresenceRegistry.drainChanged()) {
+            List<ChatPresenceRegistry.Participant> participants = participants(chatSessionId);
+            Map<String, Object> frame = new HashMap<>();
+            frame.put("type", "presence");
+            frame.put("sessionId", chatSessionId);
+            frame.put("participants", participants);
+            messagingTemplate.convertAndSend("/topic/chat/" + chatSessionId, frame);
+
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("type", "presence");
+            summary.put("sessionId", chatSessionId);
+            summary.put("customerOnline", participants.stream().anyMatch(p -> !p.staff() && p.online()));
+            messagingTemplate.convertAndSend("/topic/sessions", summary);
+            presenceBroadcasts.increment();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(chatPresenceRegistry.stats());
+        stats.put("typingSessions", typing.size());
+        stats.put("typingEvents", typingEvents.sum());
+        stats.put("typingRejected", typingRejected.sum());
+        stats.put("typingBroadcasts", typingBroadcasts.sum());
+        stats.put("presenceBroadcasts", presenceBroadcasts.sum());
+        return stats;
+    }
+
+    private static final class TypingState {
+        // Username -> expiry (epoch millis)
+        private final Map<String, Long> expiresAt = new ConcurrentHashMap<>();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+    }
+}
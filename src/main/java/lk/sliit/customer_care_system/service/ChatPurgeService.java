@@ -0,0 +1,297 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.repository.ChatMessageRepository;
+import lk.sliit.customer_care_system.repository.ChatSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes chat sessions and their messages with set-based statements.
+ *
+ * Messages go in chunks of {@code chat.purge.chunk-size} rows ({@code DELETE TOP (n)}), each chunk
+ * committed on its own, so no statement holds locks on chat_messages for long. A session row is
+ * deleted only after all of its messages, which means an interrupted purge leaves nothing
+ * orphaned and simply continues on the next run. Messages of the sessions still waiting in the
+ * write-behind queue are discarded first, so they cannot be inserted after the purge. Deleted
+ * sessions also leave the transcript archive.
+ *
+ * Bulk purges of closed sessions run as one background job at a time ({@link #startPurge}),
+ * reporting progress through {@link #progress()}; with {@code chat.purge.retention-days} set the
+ * job also runs on {@code chat.purge.cron}.
+ */
+@Service
+public class ChatPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatPurgeService.class);
+
+    public enum JobState { RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    @Autowired private ChatSessionRepository chatSessionRepository;
+    @Autowired private ChatMessageRepository chatMessageRepository;
+    @Autowired private ChatLookupCache chatLookupCache;
+    @Autowired private ChatRecentMessageBuffer chatRecentMessageBuffer;
+    @Autowired private ChatSessionBoard chatSessionBoard;
+    @Autowired private ChatTranscriptArchive chatTranscriptArchive;
+    @Autowired private ChatWriteBehindService chatWriteBehindService;
+
+    @Value("${chat.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${chat.purge.session-batch-size:100}")
+    private int sessionBatchSize;
+
+    // Background job only: pause between chunks so chat traffic gets the table in between
+    @Value("${chat.purge.pause-ms:50}")
+    private long pauseMs;
+
+    // 0 = no scheduled purge
+    @Value("${chat.purge.retention-days:0}")
+    private int retentionDays;
+
+    private final AtomicReference<PurgeJob> job = new AtomicReference<>();
+    private final AtomicLong jobIds = new AtomicLong();
+
+    private final LongAdder sessionsDeleted = new LongAdder();
+    private final LongAdder messagesDeleted = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+
+    // --- Direct deletes (a session from the console, a deleted user's sessions) ---
+
+    /** Deletes the sessions and all of their messages; returns the number of messages deleted. */
+    public long deleteSessions(Collection<String> sessionIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(sessionIds));
+        long messages = 0;
+        for (int from = 0; from < ids.size(); from += sessionBatchSize) {
+            messages += deleteBatch(ids.subList(from, Math.min(ids.size(), from + sessionBatchSize)), null);
+        }
+        return messages;
+    }
+
+    /** Deletes every message sent by the user, chunk by chunk; returns the number deleted. */
+    public long deleteMessagesBySender(Long senderId) {
+        long deleted = 0;
+        int removed;
+        do {
+            removed = chatMessageRepository.deleteChunkBySenderId(senderId, chunkSize);
+            statements.increment();
+            deleted += removed;
+        } while (removed == chunkSize);
+        messagesDeleted.add(deleted);
+        return deleted;
+    }
+
+    /** Deletes the sessions' messages but keeps the session rows (archived sessions). */
+    public long deleteMessages(Collection<String> sessionIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(sessionIds));
+        long messages = 0;
+        for (int from = 0; from < ids.size(); from += sessionBatchSize) {
+            messages += deleteMessageChunks(ids.subList(from, Math.min(ids.size(), from + sessionBatchSize)), null);
+        }
+        return messages;
+    }
+
+    // Messages first, then the session rows; job == null for direct deletes (no pauses, no cancel)
+    private long deleteBatch(List<String> sessionIds, PurgeJob job) {
+        long messages = deleteMessageChunks(sessionIds, job);
+        if (job != null && job.cancelRequested) {
+            return messages;
+        }
+
+        int sessions = chatSessionRepository.deleteBySessionIds(sessionIds);
+        statements.increment();
+        sessionsDeleted.add(sessions);
+        if (job != null) {
+            job.sessions.add(sessions);
+            job.statements.increment();
+        }
+        for (String sessionId : sessionIds) {
+            chatLookupCache.invalidateSession(sessionId);
+            chatRecentMessageBuffer.evict(sessionId);
+            chatSessionBoard.remove(sessionId);
+        }
+        try {
+            chatTranscriptArchive.forget(sessionIds);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not drop archived transcripts", e);
+        }
+        return messages;
+    }
+
+    // Chunks until one comes back short; stops early only when the job is cancelled
+    private long deleteMessageChunks(List<String> sessionIds, PurgeJob job) {
+        sessionIds.forEach(chatWriteBehindService::discardSession);
+        long messages = 0;
+        int removed;
+        do {
+            if (job != null && job.cancelRequested) {
+                return messages;
+            }
+            removed = chatMessageRepository.deleteChunkBySessionIds(sessionIds, chunkSize);
+            statements.increment();
+            messages += removed;
+            messagesDeleted.add(removed);
+            if (job != null) {
+                job.messages.add(removed);
+                job.statements.increment();
+                if (removed == chunkSize) {
+                    pause();
+                }
+            }
+        } while (removed == chunkSize);
+        return messages;
+    }
+
+    // --- Background purge of closed sessions ---
+
+    /**
+     * Starts purging closed sessions created more than {@code olderThanDays} days ago. Throws if a
+     * purge is already running.
+     */
+    public Map<String, Object> startPurge(int olderThanDays) {
+        if (olderThanDays < 1) {
+            throw new IllegalArgumentException("olderThanDays must be at least 1");
+        }
+        PurgeJob previous = job.get();
+        if (previous != null && previous.state == JobState.RUNNING) {
+            throw new IllegalStateException("A chat purge is already running (job " + previous.id + ")");
+        }
+        PurgeJob next = new PurgeJob(jobIds.incrementAndGet(), olderThanDays,
+                LocalDateTime.now().minusDays(olderThanDays));
+        if (!job.compareAndSet(previous, next)) {
+            throw new IllegalStateException("A chat purge is already running");
+        }
+        Thread worker = new Thread(() -> run(next), "chat-purge-" + next.id);
+        worker.setDaemon(true);
+        worker.start();
+        return next.progress();
+    }
+
+    // Latest job (running or finished), or state IDLE
+    public Map<String, Object> progress() {
+        PurgeJob current = job.get();
+        return current != null ? current.progress() : Map.of("state", "IDLE");
+    }
+
+    // Stops after the current chunk; returns false when nothing is running
+    public boolean cancel() {
+        PurgeJob current = job.get();
+        if (current == null || current.state != JobState.RUNNING) {
+            return false;
+        }
+        current.cancelRequested = true;
+        return true;
+    }
+
+    @Scheduled(cron = "${chat.purge.cron:0 30 3 * * *}")
+    public void scheduledPurge() {
+        if (retentionDays < 1) {
+            return;
+        }
+        try {
+            startPurge(retentionDays);
+        } catch (IllegalStateException e) {
+            logger.info("Scheduled chat purge skipped: {}", e.getMessage());
+        }
+    }
+
+    void run(PurgeJob current) {
+        logger.info("Chat purge {} started: closed sessions created before {}", current.id, current.cutoff);
+        try {
+            current.total = chatSessionRepository.countClosedBefore(current.cutoff);
+            while (!current.cancelRequested) {
+                List<String> batch = chatSessionRepository.findClosedSessionIdsBefore(current.cutoff,
+                        PageRequest.of(0, sessionBatchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                deleteBatch(batch, current);
+                pause();
+            }
+            current.finish(current.cancelRequested ? JobState.CANCELLED : JobState.COMPLETED, null);
+        } catch (RuntimeException e) {
+            logger.error("Chat purge {} failed", current.id, e);
+            current.finish(JobState.FAILED, e.getMessage());
+        }
+        logger.info("Chat purge {} {}: {} sessions, {} messages in {} statements", current.id, current.state,
+                current.sessions.sum(), current.messages.sum(), current.statements.sum());
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static final class PurgeJob {
+        final long id;
+        final int olderThanDays;
+        final LocalDateTime cutoff;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final LongAdder sessions = new LongAdder();
+        final LongAdder messages = new LongAdder();
+        final LongAdder statements = new LongAdder();
+        volatile long total = -1; // closed sessions past the cutoff when the job started
+        volatile JobState state = JobState.RUNNING;
+        volatile boolean cancelRequested;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        PurgeJob(long id, int olderThanDays, LocalDateTime cutoff) {
+            this.id = id;
+            this.olderThanDays = olderThanDays;
+            this.cutoff = cutoff;
+        }
+
+        void finish(JobState finalState, String failure) {
+            error = failure;
+            finishedAt = LocalDateTime.now();
+            state = finalState;
+        }
+
+        Map<String, Object> progress() {
+            Map<String, Object> progress = new LinkedHashMap<>();
+            progress.put("jobId", id);
+            progress.put("state", state.name());
+            progress.put("olderThanDays", olderThanDays);
+            progress.put("cutoff", cutoff.toString());
+            progress.put("sessionsTotal", total);
+            progress.put("sessionsDeleted", sessions.sum());
+            progress.put("messagesDeleted", messages.sum());
+            progress.put("statements", statements.sum());
+            progress.put("percent", total > 0 ? Math.min(100, sessions.sum() * 100 / total) : (total == 0 ? 100 : 0));
+            progress.put("startedAt", startedAt.toString());
+            progress.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+            progress.put("error", error);
+            return progress;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessionsDeleted", sessionsDeleted.sum());
+        stats.put("messagesDeleted", messagesDeleted.sum());
+        stats.put("statements", statements.sum());
+        stats.put("chunkSize", chunkSize);
+        stats.put("retentionDays", retentionDays);
+        stats.put("job", progress());
+        return stats;
+    }
+}
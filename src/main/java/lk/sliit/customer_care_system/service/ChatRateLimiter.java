@@ -0,0 +1,125 @@
+package lk.sliit.customer_care_system.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets for chat sends: one per sender and session ({@code chat.rate-limit.sender.*}) and
+ * one for the whole node ({@code chat.rate-limit.global.*}), checked in that order.
+ *
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full again
+ * (the GCRA form of a token bucket): a send is allowed while that time is less than one burst
+ * ahead of now, and moves it forward by one token's worth. Updates are compare-and-set, so busy
+ * senders never block each other. Full buckets are dropped by {@link #sweep()}.
+ *
+ * The sender is the authenticated STOMP user (or the WebSocket session when there is none), never
+ * an id from the message payload, which a client could change on every send.
+ */
+@Service
+public class ChatRateLimiter {
+
+    public enum Decision { ALLOWED, SENDER_LIMITED, GLOBAL_LIMITED }
+
+    private final long senderInterval;   // nanos per token
+    private final long senderTolerance;  // nanos of burst beyond the first token
+    private final long globalInterval;
+    private final long globalTolerance;
+    private final LongSupplier clock;
+
+    private final Map<String, AtomicLong> senderBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong globalBucket = new AtomicLong(Long.MIN_VALUE);
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder senderRejected = new LongAdder();
+    private final LongAdder globalRejected = new LongAdder();
+    private final LongAdder casRetries = new LongAdder();
+
+    public ChatRateLimiter(@Value("${chat.rate-limit.sender.per-second:5}") double senderPerSecond,
+                           @Value("${chat.rate-limit.sender.burst:10}") int senderBurst,
+                           @Value("${chat.rate-limit.global.per-second:500}") double globalPerSecond,
+                           @Value("${chat.rate-limit.global.burst:1000}") int globalBurst) {
+        this(senderPerSecond, senderBurst, globalPerSecond, globalBurst, System::nanoTime);
+    }
+
+    ChatRateLimiter(double senderPerSecond, int senderBurst, double globalPerSecond, int globalBurst, LongSupplier clock) {
+        if (senderPerSecond <= 0 || globalPerSecond <= 0 || senderBurst < 1 || globalBurst < 1) {
+            throw new IllegalArgumentException("chat.rate-limit rates must be positive and bursts at least 1");
+        }
+        this.senderInterval = (long) (TimeUnit.SECONDS.toNanos(1) / senderPerSecond);
+        this.senderTolerance = senderInterval * (senderBurst - 1);
+        this.globalInterval = (long) (TimeUnit.SECONDS.toNanos(1) / globalPerSecond);
+        this.globalTolerance = globalInterval * (globalBurst - 1);
+        this.clock = clock;
+    }
+
+    /** Takes one token for this sender in this session, then one from the global bucket. */
+    public Decision tryAcquire(String sender, String sessionId) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = senderBuckets.computeIfAbsent(sender + "|" + sessionId, k -> new AtomicLong(Long.MIN_VALUE));
+        if (!take(bucket, now, senderInterval, senderTolerance)) {
+            senderRejected.increment();
+            return Decision.SENDER_LIMITED;
+        }
+        if (!take(globalBucket, now, globalInterval, globalTolerance)) {
+            globalRejected.increment();
+            return Decision.GLOBAL_LIMITED;
+        }
+        allowed.increment();
+        return Decision.ALLOWED;
+    }
+
+    // Suggested wait before the sender's next message will be accepted
+    public long retryAfterMillis(String sender, String sessionId) {
+        AtomicLong bucket = senderBuckets.get(sender + "|" + sessionId);
+        long now = clock.getAsLong();
+        long senderWait = bucket == null ? 0 : waitNanos(bucket.get(), senderTolerance, now);
+        long globalWait = waitNanos(globalBucket.get(), globalTolerance, now);
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(senderWait, globalWait)) + 1;
+    }
+
+    private static long waitNanos(long tat, long tolerance, long now) {
+        return tat == Long.MIN_VALUE ? 0 : Math.max(0, tat - tolerance - now);
+    }
+
+    // tat = theoretical arrival time: when the bucket is full again
+    private boolean take(AtomicLong bucket, long now, long interval, long tolerance) {
+        while (true) {
+            long tat = bucket.get();
+            long start = tat == Long.MIN_VALUE || tat - now < 0 ? now : tat;
+            if (start - now > tolerance) {
+                return false;
+            }
+            if (bucket.compareAndSet(tat, start + interval)) {
+                return true;
+            }
+            casRetries.increment();
+        }
+    }
+
+    // Buckets that have refilled completely behave exactly like new ones, so they can go
+    // (a send racing the removal gets at most one extra token)
+    @Scheduled(fixedDelayString = "${chat.rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = clock.getAsLong();
+        senderBuckets.values().removeIf(bucket -> bucket.get() == Long.MIN_VALUE || bucket.get() - now < 0);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("allowed", allowed.sum());
+        stats.put("senderRejected", senderRejected.sum());
+        stats.put("globalRejected", globalRejected.sum());
+        stats.put("casRetries", casRetries.sum());
+        stats.put("senderBuckets", senderBuckets.size());
+        return stats;
+    }
+}
@@ -0,0 +1,364 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.ChatHistoryPageDTO;
+import lk.sliit.customer_care_system.dto.ChatMessageDTO;
+import lk.sliit.customer_care_system.repository.ChatMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The last N messages of recently read chat sessions, so page reloads of an active chat are
+ * answered from memory instead of the database.
+ *
+ * A session's ring is filled from the database on the first history read and kept current by
+ * {@link ChatService} (send, edit, delete) and {@link ChatWriteBehindService} (ids of stored
+ * messages). Rings are dropped when their session closes or is deleted, when idle for
+ * {@code chat.recent-buffer.idle-timeout}, and least recently used first when the estimated size
+ * of all rings exceeds {@code chat.recent-buffer.max-bytes}.
+ */
+@Service
+public class ChatRecentMessageBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatRecentMessageBuffer.class);
+
+    // Rough per-message overhead (DTO, boxed fields, deque slot) on top of the strings
+    static final int MESSAGE_OVERHEAD_BYTES = 160;
+
+    @Autowired private ChatMessageRepository chatMessageRepository;
+
+    private final int messagesPerSession;
+    private final long maxBytes;
+    private final long idleTimeoutMs;
+
+    // Access order: iteration starts at the least recently used session
+    private final LinkedHashMap<String, SessionRing> rings = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ChatRecentMessageBuffer(@Value("${chat.recent-buffer.messages-per-session:100}") int messagesPerSession,
+                                   @Value("${chat.recent-buffer.max-bytes:33554432}") long maxBytes,
+                                   @Value("${chat.recent-buffer.idle-timeout:PT30M}") Duration idleTimeout) {
+        this.messagesPerSession = messagesPerSession;
+        this.maxBytes = maxBytes;
+        this.idleTimeoutMs = idleTimeout.toMillis();
+    }
+
+    // --- Reads ---
+
+    /**
+     * Latest {@code limit} messages of a session, oldest first. Filled from the database on a miss;
+     * {@code unpersisted} supplies messages accepted but not stored yet, which the database read
+     * cannot see.
+     */
+    public ChatHistoryPageDTO latest(String sessionId, int limit, Supplier<List<ChatMessageDTO>> unpersisted) {
+        ChatHistoryPageDTO page = fromRing(sessionId, limit);
+        if (page != null) {
+            hits.increment();
+            return page;
+        }
+        misses.increment();
+        if (limit > messagesPerSession || !startLoading(sessionId)) {
+            return null; // too large for a ring, or another request is filling it
+        }
+        try {
+            // Snapshot first, then the table: a message stored in between shows up in both and is de-duplicated
+            List<ChatMessageDTO> pending = unpersisted.get();
+            List<ChatMessageDTO> stored = new ArrayList<>(chatMessageRepository.findLatestRows(sessionId,
+                    PageRequest.of(0, messagesPerSession + 1)));
+            boolean olderInDatabase = stored.size() > messagesPerSession;
+            Long droppedSeq = null;
+            if (olderInDatabase) {
+                droppedSeq = stored.remove(stored.size() - 1).getSeq();
+            }
+            Collections.reverse(stored);
+            finishLoading(sessionId, stored, pending, olderInDatabase, droppedSeq);
+        } catch (RuntimeException e) {
+            evict(sessionId);
+            throw e;
+        }
+        return fromRing(sessionId, limit);
+    }
+
+    private synchronized ChatHistoryPageDTO fromRing(String sessionId, int limit) {
+        SessionRing ring = rings.get(sessionId);
+        if (ring == null || !ring.ready) {
+            return null;
+        }
+        int available = ring.messages.size();
+        if (available < limit && ring.olderInDatabase) {
+            return null; // the ring cannot fill this page on its own
+        }
+        ring.lastAccess = System.currentTimeMillis();
+        List<ChatMessageDTO> all = new ArrayList<>(ring.messages);
+        List<ChatMessageDTO> slice = new ArrayList<>(all.subList(Math.max(0, available - limit), available));
+        return new ChatHistoryPageDTO(slice, available > limit || ring.olderInDatabase);
+    }
+
+    /**
+     * Messages with a sequence number above {@code afterSeq}, in sequence order, for a client
+     * resuming after a reconnect. Null when the ring is not loaded or has already dropped
+     * messages the client has not seen.
+     */
+    public synchronized ChatHistoryPageDTO after(String sessionId, long afterSeq, int limit) {
+        SessionRing ring = rings.get(sessionId);
+        if (ring == null || !ring.ready || afterSeq < ring.droppedSeq) {
+            return null;
+        }
+        ring.lastAccess = System.currentTimeMillis();
+        List<ChatMessageDTO> newer = new ArrayList<>();
+        for (ChatMessageDTO message : ring.messages) {
+            if (message.getSeq() != null && message.getSeq() > afterSeq) {
+                newer.add(message);
+            }
+        }
+        newer.sort(Comparator.comparing(ChatMessageDTO::getSeq));
+        boolean hasMore = newer.size() > limit;
+        return new ChatHistoryPageDTO(new ArrayList<>(newer.subList(0, Math.min(limit, newer.size()))), hasMore);
+    }
+
+    private synchronized boolean startLoading(String sessionId) {
+        if (rings.containsKey(sessionId)) {
+            return false;
+        }
+        rings.put(sessionId, new SessionRing());
+        return true;
+    }
+
+    // Merge stored rows, unstored snapshot and anything appended meanwhile (by message key)
+    private synchronized void finishLoading(String sessionId, List<ChatMessageDTO> stored,
+                                            List<ChatMessageDTO> pending, boolean olderInDatabase, Long droppedSeq) {
+        SessionRing ring = rings.get(sessionId);
+        if (ring == null || ring.ready) {
+            return; // evicted (session closed) while loading
+        }
+        if (ring.modifiedWhileLoading) {
+            remove(sessionId); // an edit/delete may have raced the read; the next read starts over
+            return;
+        }
+        List<ChatMessageDTO> appended = new ArrayList<>(ring.messages);
+        ring.messages.clear();
+        totalBytes -= ring.bytes;
+        ring.bytes = 0;
+
+        Set<Long> keys = new HashSet<>();
+        for (ChatMessageDTO message : stored) {
+            if (message.getMessageKey() != null) {
+                keys.add(message.getMessageKey());
+            }
+            push(ring, message);
+        }
+        List<ChatMessageDTO> unstored = new ArrayList<>(pending);
+        unstored.addAll(appended);
+        unstored.sort(Comparator.comparing(ChatMessageDTO::getMessageKey));
+        for (ChatMessageDTO message : unstored) {
+            if (keys.add(message.getMessageKey())) {
+                push(ring, message);
+            }
+        }
+        ring.olderInDatabase |= olderInDatabase;
+        if (droppedSeq != null) {
+            ring.droppedSeq = Math.max(ring.droppedSeq, droppedSeq);
+        }
+        ring.ready = true;
+        ring.lastAccess = System.currentTimeMillis();
+        enforceBudget(sessionId);
+    }
+
+    // --- Updates from ChatService / ChatWriteBehindService ---
+
+    // New message; ignored for sessions without a ring (they are filled on their next read)
+    public synchronized void append(String sessionId, ChatMessageDTO message) {
+        SessionRing ring = rings.get(sessionId);
+        if (ring == null) {
+            return;
+        }
+        push(ring, message);
+        enforceBudget(sessionId);
+    }
+
+    // Message that was appended but then rejected by the write-behind queue
+    public synchronized void discard(String sessionId, Long messageKey) {
+        SessionRing ring = rings.get(sessionId);
+        if (ring == null) {
+            return;
+        }
+        Iterator<ChatMessageDTO> it = ring.messages.iterator();
+        while (it.hasNext()) {
+            ChatMessageDTO message = it.next();
+            if (messageKey.equals(message.getMessageKey())) {
+                it.remove();
+                ring.bytes -= sizeOf(message);
+                totalBytes -= sizeOf(message);
+                return;
+            }
+        }
+    }
+
+    public synchronized void markPersisted(String sessionId, Long messageKey, Long id) {
+        SessionRing ring = rings.get(sessionId);
+        if (ring == null) {
+            return;
+        }
+        for (ChatMessageDTO message : ring.messages) {
+            if (messageKey.equals(message.getMessageKey())) {
+                message.setId(id);
+                return;
+            }
+        }
+    }
+
+    // Edited message replaces the buffered copy (matched by id)
+    public synchronized void replace(String sessionId, ChatMessageDTO edited) {
+        SessionRing ring = rings.get(sessionId);
+        if (ring == null) {
+            return;
+        }
+        if (!ring.ready) {
+            ring.modifiedWhileLoading = true;
+            return;
+        }
+        List<ChatMessageDTO> copy = new ArrayList<>(ring.messages);
+        for (int i = 0; i < copy.size(); i++) {
+            if (edited.getId().equals(copy.get(i).getId())) {
+                long delta = sizeOf(edited) - sizeOf(copy.get(i));
+                copy.set(i, edited);
+                ring.messages.clear();
+                ring.messages.addAll(copy);
+                ring.bytes += delta;
+                totalBytes += delta;
+                return;
+            }
+        }
+    }
+
+    public synchronized void remove(String sessionId, Long messageId) {
+        SessionRing ring = rings.get(sessionId);
+        if (ring == null) {
+            return;
+        }
+        if (!ring.ready) {
+            ring.modifiedWhileLoading = true;
+            return;
+        }
+        Iterator<ChatMessageDTO> it = ring.messages.iterator();
+        while (it.hasNext()) {
+            ChatMessageDTO message = it.next();
+            if (messageId.equals(message.getId())) {
+                it.remove();
+                ring.bytes -= sizeOf(message);
+                totalBytes -= sizeOf(message);
+                return;
+            }
+        }
+    }
+
+    // Session closed or deleted
+    public synchronized void evict(String sessionId) {
+        remove(sessionId);
+    }
+
+    // --- Eviction ---
+
+    @Scheduled(fixedDelayString = "${chat.recent-buffer.sweep-interval-ms:60000}")
+    public synchronized void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        int before = rings.size();
+        Iterator<Map.Entry<String, SessionRing>> it = rings.entrySet().iterator();
+        while (it.hasNext()) {
+            SessionRing ring = it.next().getValue();
+            if (ring.ready && ring.lastAccess < cutoff) {
+                totalBytes -= ring.bytes;
+                it.remove();
+                evictions.increment();
+            }
+        }
+        if (rings.size() < before) {
+            logger.debug("Evicted {} idle chat rings, {} left", before - rings.size(), rings.size());
+        }
+    }
+
+    // Least recently used rings go first; the ring just written is kept
+    private void enforceBudget(String keep) {
+        Iterator<Map.Entry<String, SessionRing>> it = rings.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, SessionRing> eldest = it.next();
+            if (eldest.getKey().equals(keep) || !eldest.getValue().ready) {
+                continue;
+            }
+            totalBytes -= eldest.getValue().bytes;
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(String sessionId) {
+        SessionRing ring = rings.remove(sessionId);
+        if (ring != null) {
+            totalBytes -= ring.bytes;
+        }
+    }
+
+    // Appends and drops the oldest message once the ring is full
+    private void push(SessionRing ring, ChatMessageDTO message) {
+        if (ring.messages.size() == messagesPerSession) {
+            ChatMessageDTO dropped = ring.messages.pollFirst();
+            ring.bytes -= sizeOf(dropped);
+            totalBytes -= sizeOf(dropped);
+            ring.olderInDatabase = true;
+            if (dropped.getSeq() != null) {
+                ring.droppedSeq = Math.max(ring.droppedSeq, dropped.getSeq());
+            }
+        }
+        ring.messages.addLast(message);
+        long size = sizeOf(message);
+        ring.bytes += size;
+        totalBytes += size;
+    }
+
+    private static long sizeOf(ChatMessageDTO message) {
+        int chars = length(message.getContent()) + length(message.getSenderUsername()) + length(message.getSessionId());
+        return MESSAGE_OVERHEAD_BYTES + 2L * chars;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", rings.size());
+        stats.put("estimatedBytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        stats.put("messagesPerSession", messagesPerSession);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private static final class SessionRing {
+        private final ArrayDeque<ChatMessageDTO> messages = new ArrayDeque<>();
+        private boolean ready;
+        private boolean olderInDatabase;
+        private boolean modifiedWhileLoading;
+        private long droppedSeq; // highest sequence number no longer in the ring
+        private long bytes;
+        private long lastAccess = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,33 @@
+package lk.sliit.customer_care_system.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Per-session message sequence numbers: 1, 2, 3, ... in the order {@link ChatService#sendMessage}
+ * accepts messages, so a reconnecting client can ask for everything after the last number it saw
+ * and notice a missed broadcast as a gap.
+ *
+ * The counter is the session's {@code last_seq} column, incremented and read back in one
+ * {@code UPDATE ... OUTPUT} statement, so every node behind a shared broker draws from the same
+ * sequence. Sessions from before sequencing start after the highest number already stored.
+ */
+@Service
+public class ChatSequencer {
+
+    static final String NEXT_SEQ_SQL = "UPDATE chat_session "
+            + "SET last_seq = COALESCE(last_seq, (SELECT MAX(session_seq) FROM chat_messages WHERE chat_session_id = ?), 0) + 1 "
+            + "OUTPUT INSERTED.last_seq WHERE session_id = ?";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    public long next(String sessionId) {
+        try {
+            return jdbcTemplate.queryForObject(NEXT_SEQ_SQL, Long.class, sessionId, sessionId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new RuntimeException("Chat session not found");
+        }
+    }
+}
@@ -1,70 +1,177 @@
 package lk.sliit.customer_care_system.service;
 
+import lk.sliit.customer_care_system.dto.ChatClaimResultDTO;
+import lk.sliit.customer_care_system.dto.ChatHistoryPageDTO;
 import lk.sliit.customer_care_system.dto.ChatMessageDTO;
+import lk.sliit.customer_care_system.dto.ChatSenderDTO;
+import lk.sliit.customer_care_system.dto.ChatSessionMetaDTO;
 import lk.sliit.customer_care_system.dto.ChatSessionDTO;
 import lk.sliit.customer_care_system.modelentity.*;
 import lk.sliit.customer_care_system.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class ChatService {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
 
+    static final int MAX_HISTORY_PAGE_SIZE = 200;
+
     @Autowired private lk.sliit.customer_care_system.repository.ChatMessageRepository chatMessageRepository;
     @Autowired private lk.sliit.customer_care_system.repository.ChatSessionRepository chatSessionRepository;
     @Autowired private lk.sliit.customer_care_system.repository.UserRepository userRepository;
     @Autowired private SimpMessagingTemplate messagingTemplate;
+    @Autowired private ChatWriteBehindService chatWriteBehindService;
+    @Autowired private ChatLookupCache chatLookupCache;
+    @Autowired private ChatRecentMessageBuffer chatRecentMessageBuffer;
+    @Autowired private ChatSessionBoard chatSessionBoard;
+    @Autowired private ChatIdGenerator chatIdGenerator;
+    @Autowired private ChatPurgeService chatPurgeService;
+    @Autowired private ChatArchiveService chatArchiveService;
+    @Autowired private ChatSequencer chatSequencer;
 
     // --- Send message ---
+    // Validated and broadcast right away; the insert happens in ChatWriteBehindService, which
+    // announces the database id with a "persisted" frame on the same topic.
+    // Sender and session come from ChatLookupCache, so a message normally costs no query here.
     public void sendMessage(String sessionId, Long senderId, String content, lk.sliit.customer_care_system.modelentity.ChatMessage.SenderType senderType) {
-        lk.sliit.customer_care_system.modelentity.User sender = userRepository.findById(senderId)
+        ChatSenderDTO sender = chatLookupCache.sender(senderId)
                 .orElseThrow(() -> new RuntimeException("Sender not found"));
-        lk.sliit.customer_care_system.modelentity.ChatSession session = chatSessionRepository.findBySessionId(sessionId)
+        ChatSessionMetaDTO session = chatLookupCache.session(sessionId)
                 .orElseThrow(() -> new RuntimeException("Chat session not found"));
+        if (session.getStatus() == lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus.CLOSED) {
+            throw new RuntimeException("Chat session is closed");
+        }
+        // The write-behind insert bypasses bean validation, so check the entity constraints here
+        if (content == null || content.isBlank()) {
+            throw new RuntimeException("Message content is required");
+        }
+        if (content.length() > 1000) {
+            throw new RuntimeException("Message is too long (max 1000 characters)");
+        }
 
-        lk.sliit.customer_care_system.modelentity.ChatMessage message = new lk.sliit.customer_care_system.modelentity.ChatMessage(content, sender, senderType, sessionId);
-        // No need to set chatSession relationship - we use chatSessionId string
-        message.setCreatedAt(LocalDateTime.now());
-        chatMessageRepository.save(message);
+        ChatMessageDTO message = new ChatMessageDTO(sender.getUsername(), content, senderType, sessionId);
+        message.setSenderId(sender.getId());
+        message.setMessageKey(chatWriteBehindService.nextKey());
+        message.setSeq(chatSequencer.next(sessionId));
+        message.setIsEdited(false);
+        message.setIsDeleted(false);
+
+        // Accepted (queued or stored) before anyone sees it, so a broadcast message is never lost
+        chatWriteBehindService.submit(new ChatWriteBehindService.PendingChatMessage(message.getMessageKey(),
+                sessionId, message.getSeq(), sender.getId(), senderType, content, message.getCreatedAt(), sender.getUsername()));
 
         // ✅ Broadcast message to all clients in the chat session
-        messagingTemplate.convertAndSend("/topic/chat/" + sessionId, new ChatMessageDTO(message));
+        messagingTemplate.convertAndSend("/topic/chat/" + sessionId, message);
     }
 
-    public List<lk.sliit.customer_care_system.modelentity.ChatMessage> getChatHistory(String sessionId) {
-        logger.info("Loading chat history for session: {}", sessionId);
-        List<lk.sliit.customer_care_system.modelentity.ChatMessage> messages = chatMessageRepository.findByChatSessionIdAndIsDeletedFalseOrderByCreatedAtAsc(sessionId);
-        logger.info("Found {} messages for session {}", messages.size(), sessionId);
-        return messages;
+    // --- Chat history (cursor pages by message id) ---
+    // Without cursors: the latest messages. before: older than that id. after: newer than that id.
+    public ChatHistoryPageDTO getChatHistory(String sessionId, Long beforeId, Long afterId, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        // Archived sessions have no rows left in chat_messages; same cursors, read from the archive
+        if (chatArchiveService.isArchived(sessionId)) {
+            return chatArchiveService.historyPage(sessionId, beforeId, afterId, size);
+        }
+        // One extra row tells whether another page exists
+        if (beforeId == null && afterId == null) {
+            // Reloads of an active chat are answered from the session's ring of recent messages
+            ChatHistoryPageDTO recent = chatRecentMessageBuffer.latest(sessionId, size,
+                    () -> chatWriteBehindService.unpersisted(sessionId));
+            if (recent != null) {
+                return recent;
+            }
+        }
+        Pageable pageable = PageRequest.of(0, size + 1);
+
+        List<ChatMessageDTO> rows;
+        if (afterId != null) {
+            rows = new ArrayList<>(chatMessageRepository.findRowsAfter(sessionId, afterId, pageable));
+        } else if (beforeId != null) {
+            rows = new ArrayList<>(chatMessageRepository.findRowsBefore(sessionId, beforeId, pageable));
+        } else {
+            rows = new ArrayList<>(chatMessageRepository.findLatestRows(sessionId, pageable));
+        }
+
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows.remove(rows.size() - 1);
+        }
+        if (afterId == null) {
+            Collections.reverse(rows); // read newest first, shown oldest first
+        }
+        logger.debug("Chat history page for {}: {} messages, hasMore={}", sessionId, rows.size(), hasMore);
+        return new ChatHistoryPageDTO(rows, hasMore);
+    }
+
+    // --- Resume after a reconnect (by sequence number) ---
+    // Everything after the client's last seen sequence number, in order: from the session's ring
+    // when it reaches back that far, otherwise from the table plus messages not stored yet.
+    // hasMore means the client should ask again from newestSeq.
+    public ChatHistoryPageDTO resumeHistory(String sessionId, long afterSeq, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        if (chatArchiveService.isArchived(sessionId)) {
+            return chatArchiveService.resumePage(sessionId, afterSeq, size);
+        }
+        ChatHistoryPageDTO recent = chatRecentMessageBuffer.after(sessionId, afterSeq, size);
+        if (recent != null) {
+            return recent;
+        }
+
+        // Snapshot first, then the table: a message stored in between shows up in both and is de-duplicated
+        List<ChatMessageDTO> pending = chatWriteBehindService.unpersisted(sessionId);
+        List<ChatMessageDTO> rows = new ArrayList<>(chatMessageRepository.findRowsAfterSeq(sessionId, afterSeq,
+                PageRequest.of(0, size + 1)));
+        // A full page may stop short of stored messages numbered below the pending ones
+        long pendingLimit = rows.size() > size ? rows.get(rows.size() - 1).getSeq() : Long.MAX_VALUE;
+        Set<Long> keys = new HashSet<>();
+        rows.forEach(row -> keys.add(row.getMessageKey()));
+        for (ChatMessageDTO message : pending) {
+            if (message.getSeq() != null && message.getSeq() > afterSeq && message.getSeq() < pendingLimit
+                    && keys.add(message.getMessageKey())) {
+                rows.add(message);
+            }
+        }
+        rows.sort(Comparator.comparing(ChatMessageDTO::getSeq));
+
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows.subList(size, rows.size()).clear();
+        }
+        logger.debug("Chat resume for {} after seq {}: {} messages, hasMore={}", sessionId, afterSeq, rows.size(), hasMore);
+        return new ChatHistoryPageDTO(rows, hasMore);
     }
 
     public lk.sliit.customer_care_system.modelentity.ChatSession getOrCreateActiveSession(lk.sliit.customer_care_system.modelentity.User user) {
         var existing = chatSessionRepository.findByUserAndStatusOrderByCreatedAtDesc(user, lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus.ACTIVE);
         if (!existing.isEmpty()) return existing.get(0);
 
-        lk.sliit.customer_care_system.modelentity.ChatSession session = new lk.sliit.customer_care_system.modelentity.ChatSession("session-" + System.currentTimeMillis(), user);
+        lk.sliit.customer_care_system.modelentity.ChatSession session = new lk.sliit.customer_care_system.modelentity.ChatSession(chatIdGenerator.nextSessionId(), user);
         session.setStatus(lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus.WAITING);
         chatSessionRepository.save(session);
 
-        // ✅ Broadcast new waiting session to all agents
-        broadcastNewSession(session);
+        // ✅ Board pushes the new waiting session to all agents
+        chatSessionBoard.update(session);
 
         return session;
     }
 
-    public void broadcastNewSession(lk.sliit.customer_care_system.modelentity.ChatSession session) {
-        messagingTemplate.convertAndSend("/topic/sessions", new ChatSessionDTO(session));
-    }
-
-    public List<lk.sliit.customer_care_system.modelentity.ChatSession> getWaitingSessions() {
-        return chatSessionRepository.findWaitingForAgentSessions();
+    // Agent console lists come from ChatSessionBoard, never from a table scan
+    public List<ChatSessionDTO> getWaitingSessions() {
+        return chatSessionBoard.byStatus(lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus.WAITING);
     }
 
     public List<lk.sliit.customer_care_system.modelentity.ChatSession> getAgentSessions(Long agentId) {
@@ -73,43 +180,70 @@ public class ChatService {
         return chatSessionRepository.findByAgentOrderByCreatedAtDesc(agent);
     }
 
-    public List<lk.sliit.customer_care_system.modelentity.ChatSession> getAllActiveSessions() {
-        // Get all waiting and active sessions for agents to see
-        return chatSessionRepository.findAll().stream()
-                .filter(s -> s.getStatus() == lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus.WAITING ||
-                        s.getStatus() == lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus.ACTIVE)
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .toList();
+    public List<ChatSessionDTO> getAllActiveSessions() {
+        // All waiting and active sessions, newest first
+        return chatSessionBoard.openSessions();
     }
 
     public void deleteSession(String sessionId) {
         lk.sliit.customer_care_system.modelentity.ChatSession session = chatSessionRepository.findBySessionId(sessionId)
                 .orElseThrow(() -> new RuntimeException("Session not found"));
 
-        // Delete all messages in this session
-        List<lk.sliit.customer_care_system.modelentity.ChatMessage> messages = chatMessageRepository.findByChatSessionIdOrderByCreatedAtAsc(sessionId);
-        chatMessageRepository.deleteAll(messages);
-
-        // Delete the session
-        chatSessionRepository.delete(session);
+        // Messages in chunks, then the session row (set-based, no per-row deletes)
+        chatPurgeService.deleteSessions(List.of(session.getSessionId()));
     }
 
-    public lk.sliit.customer_care_system.modelentity.ChatSession assignAgentToSession(String sessionId, Long agentId) {
+    public lk.sliit.customer_care_system.modelentity.ChatSession closeSession(String sessionId) {
         lk.sliit.customer_care_system.modelentity.ChatSession session = chatSessionRepository.findBySessionId(sessionId)
                 .orElseThrow(() -> new RuntimeException("Session not found"));
-        lk.sliit.customer_care_system.modelentity.User agent = userRepository.findById(agentId)
-                .orElseThrow(() -> new RuntimeException("Agent not found"));
-        session.setAgent(agent);
-        session.setStatus(lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus.ACTIVE);
+        session.setStatus(lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus.CLOSED);
         chatSessionRepository.save(session);
+        chatLookupCache.invalidateSession(sessionId);
+        chatRecentMessageBuffer.evict(sessionId);
+        chatSessionBoard.update(session);
 
-        // Notify this session's topic (optional)
         messagingTemplate.convertAndSend("/topic/chat/" + sessionId,
-                new ChatMessageDTO("System", "Agent joined the chat", lk.sliit.customer_care_system.modelentity.ChatMessage.SenderType.SYSTEM, sessionId));
-
+                new ChatMessageDTO("System", "Chat ended", lk.sliit.customer_care_system.modelentity.ChatMessage.SenderType.SYSTEM, sessionId));
         return session;
     }
 
+    // --- Claiming a session ---
+    // One conditional UPDATE decides between agents racing for the same session, so exactly one
+    // wins; the others get TAKEN with the winner's name. The winner is announced on the session
+    // topic and, through the board, on /topic/sessions.
+    public ChatClaimResultDTO claimSession(String sessionId, Long agentId) {
+        ChatSenderDTO agent = chatLookupCache.sender(agentId)
+                .orElseThrow(() -> new RuntimeException("Agent not found"));
+        if (!"ROLE_AGENT".equals(agent.getRole()) && !"ROLE_ADMIN".equals(agent.getRole())) {
+            throw new RuntimeException("Only agents can claim chat sessions");
+        }
+
+        if (chatSessionRepository.claimUnassigned(sessionId, userRepository.getReferenceById(agentId)) == 1) {
+            chatLookupCache.invalidateSession(sessionId);
+            chatSessionRepository.findBySessionId(sessionId).ifPresent(chatSessionBoard::update);
+            messagingTemplate.convertAndSend("/topic/chat/" + sessionId,
+                    new ChatMessageDTO("System", "Agent joined the chat", lk.sliit.customer_care_system.modelentity.ChatMessage.SenderType.SYSTEM, sessionId));
+            logger.info("Chat session {} claimed by agent {}", sessionId, agentId);
+            return new ChatClaimResultDTO(ChatClaimResultDTO.Outcome.CLAIMED, sessionId, agentId, agent.getUsername());
+        }
+
+        // Nothing changed: say why, from the row as it is now
+        lk.sliit.customer_care_system.modelentity.ChatSession current = chatSessionRepository.findBySessionId(sessionId).orElse(null);
+        if (current == null) {
+            return new ChatClaimResultDTO(ChatClaimResultDTO.Outcome.NOT_FOUND, sessionId, null, null);
+        }
+        lk.sliit.customer_care_system.modelentity.User holder = current.getAgent();
+        if (current.getStatus() == lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus.CLOSED) {
+            return new ChatClaimResultDTO(ChatClaimResultDTO.Outcome.CLOSED, sessionId,
+                    holder != null ? holder.getId() : null, holder != null ? holder.getUsername() : null);
+        }
+        if (holder != null && holder.getId().equals(agentId)) {
+            return new ChatClaimResultDTO(ChatClaimResultDTO.Outcome.ALREADY_YOURS, sessionId, agentId, agent.getUsername());
+        }
+        return new ChatClaimResultDTO(ChatClaimResultDTO.Outcome.TAKEN, sessionId,
+                holder != null ? holder.getId() : null, holder != null ? holder.getUsername() : null);
+    }
+
     // --- Edit message ---
     public lk.sliit.customer_care_system.modelentity.ChatMessage editMessage(Long messageId, String newContent, Long userId) {
         logger.info("Editing message {} by user {}", messageId, userId);
@@ -131,6 +265,7 @@ public class ChatService {
 
         // Broadcast update
         ChatMessageDTO dto = new ChatMessageDTO(message);
+        chatRecentMessageBuffer.replace(message.getChatSessionId(), dto);
         messagingTemplate.convertAndSend("/topic/chat/" + message.getChatSessionId(), dto);
 
         return message;
@@ -156,6 +291,7 @@ public class ChatService {
 
         // Broadcast deletion
         ChatMessageDTO dto = new ChatMessageDTO(message);
+        chatRecentMessageBuffer.remove(message.getChatSessionId(), messageId);
         messagingTemplate.convertAndSend("/topic/chat/" + message.getChatSessionId(), dto);
 
         return message;
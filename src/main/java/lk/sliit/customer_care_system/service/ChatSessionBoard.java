@@ -0,0 +1,213 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.ChatSessionDTO;
+import lk.sliit.customer_care_system.modelentity.ChatSession;
+import lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus;
+import lk.sliit.customer_care_system.repository.ChatSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The agent console's view of open (WAITING and ACTIVE) chat sessions, kept in memory.
+ *
+ * Loaded once from the status index, then updated by {@link ChatService} on every transition
+ * (created, agent assigned, closed, deleted). Each change is pushed to /topic/sessions as a
+ * diff keyed by session ({@code session-upsert} / {@code session-remove}). Diffs are not numbered:
+ * behind the relay broker several nodes publish to the topic, so clients apply them as idempotent
+ * upserts and treat a removal as final (sessions never reopen). A periodic reconcile against the
+ * table brings this node's copy up to date with changes made elsewhere (other nodes, direct
+ * repository writes).
+ */
+@Service
+public class ChatSessionBoard {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatSessionBoard.class);
+
+    static final Set<ChatStatus> OPEN_STATUSES = EnumSet.of(ChatStatus.WAITING, ChatStatus.ACTIVE);
+
+    // Newest first, as the console lists them
+    private static final Comparator<ChatSessionDTO> NEWEST_FIRST = Comparator.comparing(ChatSessionDTO::getCreatedAt,
+            Comparator.nullsLast(Comparator.reverseOrder()));
+
+    @Autowired private ChatSessionRepository chatSessionRepository;
+    @Autowired private SimpMessagingTemplate messagingTemplate;
+
+    private final Map<String, ChatSessionDTO> sessions = new HashMap<>();
+    private final Map<String, Set<String>> byStatus = new HashMap<>();
+    private final Map<Long, Set<String>> byAgent = new HashMap<>();
+    private boolean loaded;
+
+    private final LongAdder diffs = new LongAdder();
+    private final LongAdder reconcileCorrections = new LongAdder();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            ensureLoaded();
+        } catch (RuntimeException e) {
+            logger.warn("Chat session board not loaded at startup: {}", e.getMessage());
+        }
+    }
+
+    // --- Reads ---
+
+    public synchronized List<ChatSessionDTO> openSessions() {
+        ensureLoaded();
+        return sorted(sessions.keySet());
+    }
+
+    public synchronized List<ChatSessionDTO> byStatus(ChatStatus status) {
+        ensureLoaded();
+        return sorted(byStatus.getOrDefault(status.name(), Set.of()));
+    }
+
+    public synchronized List<ChatSessionDTO> byAgent(Long agentId) {
+        ensureLoaded();
+        return sorted(byAgent.getOrDefault(agentId, Set.of()));
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        ensureLoaded();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("sessions", sorted(sessions.keySet()));
+        return snapshot;
+    }
+
+    private List<ChatSessionDTO> sorted(Collection<String> sessionIds) {
+        List<ChatSessionDTO> rows = new ArrayList<>(sessionIds.size());
+        for (String sessionId : sessionIds) {
+            rows.add(sessions.get(sessionId));
+        }
+        rows.sort(NEWEST_FIRST);
+        return rows;
+    }
+
+    // --- Transitions (ChatService) ---
+
+    // Created or changed session; closed sessions leave the board
+    public synchronized void update(ChatSession session) {
+        ensureLoaded();
+        apply(new ChatSessionDTO(session));
+    }
+
+    public synchronized void remove(String sessionId) {
+        ensureLoaded();
+        if (unindex(sessionId) != null) {
+            publishRemove(sessionId);
+        }
+    }
+
+    private void apply(ChatSessionDTO row) {
+        if (!OPEN_STATUSES.contains(ChatStatus.valueOf(row.getStatus()))) {
+            remove(row.getSessionId());
+            return;
+        }
+        unindex(row.getSessionId());
+        index(row);
+        publishUpsert(row);
+    }
+
+    // --- Consistency ---
+
+    @Scheduled(fixedDelayString = "${chat.board.reconcile-interval-ms:300000}",
+            initialDelayString = "${chat.board.reconcile-interval-ms:300000}")
+    public synchronized void reconcile() {
+        if (!loaded) {
+            return;
+        }
+        Map<String, ChatSessionDTO> stored = new HashMap<>();
+        for (ChatSessionDTO row : chatSessionRepository.findBoardRows(OPEN_STATUSES)) {
+            stored.put(row.getSessionId(), row);
+        }
+        for (String sessionId : new ArrayList<>(sessions.keySet())) {
+            if (!stored.containsKey(sessionId)) {
+                unindex(sessionId);
+                publishRemove(sessionId);
+                reconcileCorrections.increment();
+            }
+        }
+        for (ChatSessionDTO row : stored.values()) {
+            ChatSessionDTO current = sessions.get(row.getSessionId());
+            if (current == null || !sameState(current, row)) {
+                unindex(row.getSessionId());
+                index(row);
+                publishUpsert(row);
+                reconcileCorrections.increment();
+            }
+        }
+    }
+
+    private static boolean sameState(ChatSessionDTO a, ChatSessionDTO b) {
+        return Objects.equals(a.getStatus(), b.getStatus()) && Objects.equals(a.getAgentId(), b.getAgentId())
+                && Objects.equals(a.getUsername(), b.getUsername());
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        List<ChatSessionDTO> rows = chatSessionRepository.findBoardRows(OPEN_STATUSES);
+        rows.forEach(this::index);
+        loaded = true;
+        logger.info("Chat session board loaded with {} open sessions", rows.size());
+    }
+
+    private void index(ChatSessionDTO row) {
+        sessions.put(row.getSessionId(), row);
+        byStatus.computeIfAbsent(row.getStatus(), k -> new HashSet<>()).add(row.getSessionId());
+        if (row.getAgentId() != null) {
+            byAgent.computeIfAbsent(row.getAgentId(), k -> new HashSet<>()).add(row.getSessionId());
+        }
+    }
+
+    private ChatSessionDTO unindex(String sessionId) {
+        ChatSessionDTO row = sessions.remove(sessionId);
+        if (row == null) {
+            return null;
+        }
+        byStatus.computeIfPresent(row.getStatus(), (k, ids) -> ids.remove(sessionId) && ids.isEmpty() ? null : ids);
+        if (row.getAgentId() != null) {
+            byAgent.computeIfPresent(row.getAgentId(), (k, ids) -> ids.remove(sessionId) && ids.isEmpty() ? null : ids);
+        }
+        return row;
+    }
+
+    // Sent under the board's lock, so this node's diffs for a session go out in order
+    private void publishUpsert(ChatSessionDTO row) {
+        Map<String, Object> diff = new HashMap<>();
+        diff.put("type", "session-upsert");
+        diff.put("session", row);
+        messagingTemplate.convertAndSend("/topic/sessions", diff);
+        diffs.increment();
+    }
+
+    private void publishRemove(String sessionId) {
+        Map<String, Object> diff = new HashMap<>();
+        diff.put("type", "session-remove");
+        diff.put("sessionId", sessionId);
+        messagingTemplate.convertAndSend("/topic/sessions", diff);
+        diffs.increment();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", loaded);
+        stats.put("sessions", sessions.size());
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        byStatus.forEach((status, ids) -> counts.put(status, ids.size()));
+        stats.put("byStatus", counts);
+        stats.put("agents", byAgent.size());
+        stats.put("diffs", diffs.sum());
+        stats.put("reconcileCorrections", reconcileCorrections.sum());
+        return stats;
+    }
+}
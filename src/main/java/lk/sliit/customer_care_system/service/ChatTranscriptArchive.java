@@ -0,0 +1,358 @@
+package lk.sliit.customer_care_system.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lk.sliit.customer_care_system.dto.ChatMessageDTO;
+import lk.sliit.customer_care_system.modelentity.ChatMessage.SenderType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.*;
+
+/**
+ * Closed chat transcripts on local disk, out of the chat_messages table.
+ *
+ * Each transcript is one deflate-compressed record appended to the current segment file
+ * ({@code segment-NNNNNN.dat}, a new one every {@code chat.archive.segment-max-bytes}). An
+ * append-only index file maps session id to segment, offset, length and CRC; it is read into
+ * memory at startup, and the last entry for a session wins. Reads map the segment into memory
+ * once and inflate just the one record, so an archived transcript costs no database query.
+ *
+ * With {@code chat.archive.path} empty the archive is disabled: nothing is written and no
+ * session counts as archived.
+ */
+@Service
+public class ChatTranscriptArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatTranscriptArchive.class);
+
+    // 2 added the per-session sequence number; version 1 records are still read
+    private static final int FORMAT_VERSION = 2;
+    private static final byte INDEX_PUT = 1;
+    private static final byte INDEX_REMOVE = 2;
+    private static final String INDEX_FILE = "index.dat";
+
+    private static final SenderType[] SENDER_TYPES = SenderType.values();
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final Map<Integer, MappedByteBuffer> mapped = new ConcurrentHashMap<>();
+
+    private DataOutputStream indexOut;
+    private FileChannel indexChannel;
+    private FileChannel segment;
+    private int segmentNumber;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder appendedBytes = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+
+    record Entry(int segment, long offset, int length, int messages, long crc) {}
+
+    public ChatTranscriptArchive(@Value("${chat.archive.path:}") String path,
+                                 @Value("${chat.archive.segment-max-bytes:67108864}") long segmentMaxBytes) {
+        this.directory = path == null || path.isBlank() ? null : Paths.get(path);
+        this.segmentMaxBytes = segmentMaxBytes;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        loadIndex();
+        segmentNumber = Math.max(1, index.values().stream().mapToInt(Entry::segment).max().orElse(1));
+        try (var files = Files.list(directory)) {
+            segmentNumber = Math.max(segmentNumber, files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith("segment-") && name.endsWith(".dat"))
+                    .mapToInt(name -> Integer.parseInt(name.substring(8, name.length() - 4)))
+                    .max().orElse(1));
+        }
+        openSegment();
+        logger.info("Chat archive at {}: {} transcripts, writing segment {}", directory, index.size(), segmentNumber);
+    }
+
+    // Replays the index; a torn last entry (crash mid-append) is cut off
+    private void loadIndex() throws IOException {
+        Path file = directory.resolve(INDEX_FILE);
+        long good = 0;
+        if (Files.exists(file)) {
+            CountingInputStream counted = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            try (DataInputStream in = new DataInputStream(counted)) {
+                while (true) {
+                    byte type = in.readByte();
+                    String sessionId = in.readUTF();
+                    if (type == INDEX_PUT) {
+                        index.put(sessionId, new Entry(in.readInt(), in.readLong(), in.readInt(), in.readInt(), in.readLong()));
+                    } else {
+                        index.remove(sessionId);
+                    }
+                    good = counted.count;
+                }
+            } catch (EOFException e) {
+                // end of index (or a torn entry, truncated below)
+            }
+        }
+        indexChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (indexChannel.size() > good) {
+            logger.warn("Chat archive index had {} torn bytes at the end; truncated", indexChannel.size() - good);
+            indexChannel.truncate(good);
+        }
+        indexChannel.position(good);
+        indexOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(indexChannel)));
+    }
+
+    private void openSegment() throws IOException {
+        segment = FileChannel.open(segmentPath(segmentNumber), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        segment.position(segment.size());
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("segment-%06d.dat", number));
+    }
+
+    // --- Writes (ChatArchiveService) ---
+
+    /**
+     * Stores a session's transcript and makes it durable (segment and index forced to disk)
+     * before returning, so the caller may then delete the rows.
+     */
+    public synchronized void append(String sessionId, List<ChatMessageDTO> messages) throws IOException {
+        if (directory == null) {
+            throw new IllegalStateException("Chat archive is disabled (chat.archive.path is empty)");
+        }
+        byte[] raw = encode(messages);
+        byte[] compressed = deflate(raw);
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+
+        if (segment.size() > 0 && segment.size() + compressed.length > segmentMaxBytes) {
+            segment.force(true);
+            segment.close();
+            segmentNumber++;
+            openSegment();
+        }
+        long offset = segment.size();
+        ByteBuffer buffer = ByteBuffer.wrap(compressed);
+        while (buffer.hasRemaining()) {
+            segment.write(buffer, offset + buffer.position());
+        }
+        segment.force(false);
+
+        Entry entry = new Entry(segmentNumber, offset, compressed.length, messages.size(), crc.getValue());
+        indexOut.writeByte(INDEX_PUT);
+        indexOut.writeUTF(sessionId);
+        indexOut.writeInt(entry.segment());
+        indexOut.writeLong(entry.offset());
+        indexOut.writeInt(entry.length());
+        indexOut.writeInt(entry.messages());
+        indexOut.writeLong(entry.crc());
+        indexOut.flush();
+        indexChannel.force(false);
+
+        index.put(sessionId, entry);
+        appended.increment();
+        appendedBytes.add(compressed.length);
+        rawBytes.add(raw.length);
+    }
+
+    // Deleted sessions: the transcript stays in its segment but is no longer reachable
+    public synchronized void forget(Collection<String> sessionIds) throws IOException {
+        boolean wrote = false;
+        for (String sessionId : sessionIds) {
+            if (index.remove(sessionId) != null) {
+                indexOut.writeByte(INDEX_REMOVE);
+                indexOut.writeUTF(sessionId);
+                wrote = true;
+            }
+        }
+        if (wrote) {
+            indexOut.flush();
+            indexChannel.force(false);
+        }
+    }
+
+    // --- Reads ---
+
+    public boolean contains(String sessionId) {
+        return index.containsKey(sessionId);
+    }
+
+    /** The archived transcript, oldest message first, or empty if the session is not archived. */
+    public Optional<List<ChatMessageDTO>> read(String sessionId) throws IOException {
+        Entry entry = index.get(sessionId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        byte[] compressed = new byte[entry.length()];
+        segmentBuffer(entry).get((int) entry.offset(), compressed);
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+        if (crc.getValue() != entry.crc()) {
+            throw new IOException("Archived transcript of " + sessionId + " is corrupt (segment " + entry.segment() + ")");
+        }
+        reads.increment();
+        return Optional.of(decode(inflate(compressed), sessionId));
+    }
+
+    // Segments are mapped whole; the segment being written is re-mapped once it outgrows the mapping
+    private MappedByteBuffer segmentBuffer(Entry entry) throws IOException {
+        MappedByteBuffer buffer = mapped.get(entry.segment());
+        if (buffer == null || buffer.capacity() < entry.offset() + entry.length()) {
+            try (FileChannel channel = FileChannel.open(segmentPath(entry.segment()), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mapped.put(entry.segment(), buffer);
+        }
+        return buffer;
+    }
+
+    // --- Record format ---
+
+    static byte[] encode(List<ChatMessageDTO> messages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(messages.size());
+        for (ChatMessageDTO message : messages) {
+            out.writeLong(message.getId() != null ? message.getId() : -1L);
+            out.writeLong(message.getMessageKey() != null ? message.getMessageKey() : -1L);
+            out.writeLong(message.getSenderId() != null ? message.getSenderId() : -1L);
+            out.writeUTF(message.getSenderUsername() != null ? message.getSenderUsername() : "");
+            out.writeByte(message.getSenderType() != null ? message.getSenderType().ordinal() : -1);
+            LocalDateTime createdAt = message.getCreatedAt();
+            out.writeLong(createdAt != null ? createdAt.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+            out.writeInt(createdAt != null ? createdAt.getNano() : 0);
+            out.writeBoolean(Boolean.TRUE.equals(message.getIsEdited()));
+            byte[] content = (message.getContent() != null ? message.getContent() : "").getBytes(StandardCharsets.UTF_8);
+            out.writeInt(content.length);
+            out.write(content);
+            out.writeLong(message.getSeq() != null ? message.getSeq() : -1L);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static List<ChatMessageDTO> decode(byte[] raw, String sessionId) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        int version = in.readInt();
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Unknown chat archive record version " + version);
+        }
+        int count = in.readInt();
+        List<ChatMessageDTO> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            long messageKey = in.readLong();
+            long senderId = in.readLong();
+            String senderUsername = in.readUTF();
+            byte senderType = in.readByte();
+            long seconds = in.readLong();
+            int nanos = in.readInt();
+            boolean edited = in.readBoolean();
+            byte[] content = new byte[in.readInt()];
+            in.readFully(content);
+            long seq = version >= 2 ? in.readLong() : -1L;
+            messages.add(new ChatMessageDTO(id < 0 ? null : id, messageKey < 0 ? null : messageKey,
+                    new String(content, StandardCharsets.UTF_8), senderUsername, senderId < 0 ? null : senderId,
+                    senderType < 0 ? null : SENDER_TYPES[senderType], sessionId,
+                    seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC),
+                    edited, seq < 0 ? null : seq));
+        }
+        return messages;
+    }
+
+    private static byte[] deflate(byte[] raw) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, raw.length / 3));
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(raw);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] compressed) throws IOException {
+        Inflater inflater = new Inflater();
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed), inflater)) {
+            return in.readAllBytes();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        indexOut.flush();
+        indexChannel.close();
+        segment.close();
+        mapped.clear();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("transcripts", index.size());
+        stats.put("segment", segmentNumber);
+        stats.put("appended", appended.sum());
+        stats.put("compressedBytes", appendedBytes.sum());
+        stats.put("rawBytes", rawBytes.sum());
+        stats.put("reads", reads.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,529 @@
+package lk.sliit.customer_care_system.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lk.sliit.customer_care_system.dto.ChatMessageDTO;
+import lk.sliit.customer_care_system.modelentity.ChatMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind persistence for chat messages.
+ *
+ * {@link ChatService#sendMessage} validates a message, hands it to {@link #submit} and broadcasts
+ * it right away; a single writer thread drains the bounded queue and stores messages with
+ * multi-row {@code INSERT ... OUTPUT} statements, then tells the session topic which database id
+ * each message key received ({@code type: "persisted"} frames).
+ *
+ * Nothing is dropped: when the queue is full the caller inserts synchronously, failed batches are
+ * retried, and shutdown drains the queue. A batch that fails is retried row by row, so one bad row
+ * (e.g. its sender was deleted) cannot stall the rest; a row the database rejects for good is
+ * quarantined: logged, reported on the session topic and struck from the journal. With
+ * {@code chat.write-behind.journal-path} set, every accepted message is also appended to a journal
+ * that is replayed on startup, so messages survive a process crash between broadcast and insert,
+ * and messages shutdown could not store (database down) are inserted on the next start. The only
+ * messages ever discarded are those of a session being deleted ({@link #discardSession}).
+ */
+@Service
+// Schema update (message_key, session_seq columns) must have run before the startup queries and journal replay
+@DependsOn("entityManagerFactory")
+public class ChatWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatWriteBehindService.class);
+
+    // 10 parameters per row keeps one statement under SQL Server's 2100 parameter limit
+    static final int MAX_ROWS_PER_INSERT = 200;
+    static final long MAX_RETRY_BACKOFF_MS = 5000;
+    static final long SHUTDOWN_TIMEOUT_MS = 10000;
+    static final long DISCARD_WAIT_MS = 5000;
+    private static final String STRUCK = "X";
+
+    private static final String INSERT_PREFIX = "INSERT INTO chat_messages "
+            + "(content, sender_id, sender_type, chat_session_id, created_at, updated_at, is_edited, is_deleted, message_key, session_seq) "
+            + "OUTPUT INSERTED.id, INSERTED.message_key VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private SimpMessagingTemplate messagingTemplate;
+    @Autowired private ChatRecentMessageBuffer chatRecentMessageBuffer;
+    @Autowired private ChatIdGenerator chatIdGenerator;
+
+    @Value("${chat.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${chat.write-behind.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    // Empty = no journal (messages queued at the moment of a crash are lost)
+    @Value("${chat.write-behind.journal-path:}")
+    private String journalPath;
+
+    private BlockingQueue<PendingChatMessage> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    // Message key -> message, from submit until its id is known
+    private final Map<Long, PendingChatMessage> unacknowledged = new ConcurrentHashMap<>();
+    private final Object journalLock = new Object();
+    private BufferedWriter journal;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder synchronousFallbacks = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder quarantined = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    /**
+     * A validated message waiting to be inserted.
+     */
+    public record PendingChatMessage(long messageKey,
+                                     String sessionId,
+                                     Long seq,
+                                     long senderId,
+                                     ChatMessage.SenderType senderType,
+                                     String content,
+                                     LocalDateTime createdAt,
+                                     String senderUsername) {
+
+        ChatMessageDTO toDto() {
+            ChatMessageDTO dto = new ChatMessageDTO(senderUsername, content, senderType, sessionId);
+            dto.setMessageKey(messageKey);
+            dto.setSeq(seq);
+            dto.setSenderId(senderId);
+            dto.setCreatedAt(createdAt);
+            dto.setIsEdited(false);
+            dto.setIsDeleted(false);
+            return dto;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        openJournal();
+
+        running = true;
+        writer = new Thread(this::runWriter, "chat-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Carries the node id, so nodes behind a shared broker never hand out the same key
+    public long nextKey() {
+        return chatIdGenerator.nextId();
+    }
+
+    /**
+     * Accept a message for persistence. Returns once it is queued (or, if the queue is full,
+     * inserted); throws if it could be neither, in which case it must not be broadcast.
+     */
+    public void submit(PendingChatMessage message) {
+        // Registered as unstored before the recent-message ring is checked, and buffered before it
+        // can be stored, so a ring filled concurrently sees it and always receives its id
+        unacknowledged.put(message.messageKey(), message);
+        chatRecentMessageBuffer.append(message.sessionId(), message.toDto());
+        boolean queued;
+        synchronized (journalLock) {
+            appendToJournal(message);
+            queued = running && queue.offer(message);
+        }
+        accepted.increment();
+        if (!queued) {
+            // Back-pressure: the sender pays for the insert instead of the message being dropped
+            synchronousFallbacks.increment();
+            Map<Long, Long> ids;
+            try {
+                ids = insert(List.of(message));
+            } catch (RuntimeException e) {
+                // Rejected, never broadcast: a journal replay must not store it either
+                unacknowledged.remove(message.messageKey());
+                chatRecentMessageBuffer.discard(message.sessionId(), message.messageKey());
+                strikeFromJournal(message.messageKey());
+                throw e;
+            }
+            persisted.increment();
+            acknowledge(List.of(message), ids);
+        }
+    }
+
+    // Accepted but not yet stored messages of a session (the database cannot see them yet)
+    public List<ChatMessageDTO> unpersisted(String sessionId) {
+        return unacknowledged.values().stream()
+                .filter(message -> message.sessionId().equals(sessionId))
+                .map(PendingChatMessage::toDto)
+                .toList();
+    }
+
+    /**
+     * Called before a session's messages are deleted, so none of them is inserted after the purge:
+     * queued messages are dropped and struck from the journal, a batch the writer has already taken
+     * is waited for (the purge then deletes it). Throws if that batch is not stored within
+     * {@link #DISCARD_WAIT_MS}, e.g. while the database is down.
+     */
+    public void discardSession(String sessionId) {
+        List<PendingChatMessage> dropped = new ArrayList<>();
+        synchronized (journalLock) {
+            for (Iterator<PendingChatMessage> it = queue.iterator(); it.hasNext(); ) {
+                PendingChatMessage message = it.next();
+                if (message.sessionId().equals(sessionId)) {
+                    it.remove();
+                    dropped.add(message);
+                }
+            }
+        }
+        for (PendingChatMessage message : dropped) {
+            strikeFromJournal(message.messageKey());
+            unacknowledged.remove(message.messageKey());
+        }
+        discarded.add(dropped.size());
+
+        long deadline = System.currentTimeMillis() + DISCARD_WAIT_MS;
+        while (unacknowledged.values().stream().anyMatch(message -> message.sessionId().equals(sessionId))) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new RuntimeException("Chat session " + sessionId + " still has messages being saved, try again later");
+            }
+            try {
+                Thread.sleep(flushIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for chat messages to be saved");
+            }
+        }
+    }
+
+    // --- Writer thread ---
+
+    private void runWriter() {
+        List<PendingChatMessage> batch = new ArrayList<>(MAX_ROWS_PER_INSERT);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingChatMessage first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    truncateJournalIfIdle();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_ROWS_PER_INSERT - 1);
+                persistWithRetry(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // One statement for the batch; if that fails, one row at a time
+    private void persistWithRetry(List<PendingChatMessage> batch) {
+        try {
+            Map<Long, Long> ids = insert(batch);
+            persisted.add(batch.size());
+            batches.increment();
+            acknowledge(batch, ids);
+            return;
+        } catch (RuntimeException e) {
+            failedAttempts.increment();
+            logger.warn("Chat batch insert of {} messages failed, retrying row by row: {}", batch.size(), e.getMessage());
+        }
+        for (PendingChatMessage message : batch) {
+            persistRow(message);
+        }
+    }
+
+    // Retried while the failure may pass (database down); quarantined once the row itself is rejected
+    private void persistRow(PendingChatMessage message) {
+        long backoff = 100;
+        while (true) {
+            try {
+                Map<Long, Long> ids = insert(List.of(message));
+                persisted.increment();
+                acknowledge(List.of(message), ids);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                failedAttempts.increment();
+                quarantine(message, e);
+                return;
+            } catch (RuntimeException e) {
+                failedAttempts.increment();
+                if (!running) {
+                    logger.error("Dropping chat message {} from memory at shutdown ({}); it remains in the journal",
+                            message.messageKey(), e.getMessage());
+                    return;
+                }
+                logger.warn("Chat insert of message {} failed, retrying in {} ms: {}",
+                        message.messageKey(), backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ignored) {
+                    // shutdown: one more attempt happens on the next loop iteration
+                }
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    // Broadcast but never storable: drop it everywhere and tell the session
+    private void quarantine(PendingChatMessage message, RuntimeException cause) {
+        quarantined.increment();
+        logger.error("Quarantined chat message {} (session {}, sender {}): {}", message.messageKey(),
+                message.sessionId(), message.senderId(), cause.getMessage());
+        unacknowledged.remove(message.messageKey());
+        chatRecentMessageBuffer.discard(message.sessionId(), message.messageKey());
+        strikeFromJournal(message.messageKey());
+        try {
+            Map<String, Object> frame = new HashMap<>();
+            frame.put("type", "error");
+            frame.put("code", "not_persisted");
+            frame.put("senderId", message.senderId());
+            frame.put("messageKey", message.messageKey());
+            frame.put("message", "A message could not be saved and will not appear in the history.");
+            messagingTemplate.convertAndSend("/topic/chat/" + message.sessionId(), frame);
+        } catch (Exception e) {
+            logger.debug("Could not report quarantined message {}: {}", message.messageKey(), e.getMessage());
+        }
+    }
+
+    // One multi-row INSERT; returns message key -> generated id
+    private Map<Long, Long> insert(List<PendingChatMessage> rows) {
+        String sql = INSERT_PREFIX + String.join(", ", Collections.nCopies(rows.size(), ROW_PLACEHOLDERS));
+        Map<Long, Long> ids = new HashMap<>();
+        jdbcTemplate.query(sql, ps -> {
+            int i = 1;
+            for (PendingChatMessage row : rows) {
+                Timestamp createdAt = Timestamp.valueOf(row.createdAt());
+                ps.setString(i++, row.content());
+                ps.setLong(i++, row.senderId());
+                ps.setString(i++, row.senderType().name());
+                ps.setString(i++, row.sessionId());
+                ps.setTimestamp(i++, createdAt);
+                ps.setTimestamp(i++, null);
+                ps.setBoolean(i++, false);
+                ps.setBoolean(i++, false);
+                ps.setLong(i++, row.messageKey());
+                ps.setObject(i++, row.seq(), Types.BIGINT);
+            }
+        }, rs -> {
+            ids.put(rs.getLong(2), rs.getLong(1));
+        });
+        return ids;
+    }
+
+    // One frame per session: which key got which id (clients need the id to edit/delete)
+    private void acknowledge(List<PendingChatMessage> batch, Map<Long, Long> ids) {
+        Map<String, List<Map<String, Object>>> bySession = new LinkedHashMap<>();
+        for (PendingChatMessage message : batch) {
+            unacknowledged.remove(message.messageKey());
+            chatRecentMessageBuffer.markPersisted(message.sessionId(), message.messageKey(), ids.get(message.messageKey()));
+            Map<String, Object> ack = new HashMap<>();
+            ack.put("messageKey", message.messageKey());
+            ack.put("id", ids.get(message.messageKey()));
+            bySession.computeIfAbsent(message.sessionId(), k -> new ArrayList<>()).add(ack);
+        }
+        bySession.forEach((sessionId, messages) -> {
+            try {
+                messagingTemplate.convertAndSend("/topic/chat/" + sessionId,
+                        Map.of("type", "persisted", "messages", messages));
+            } catch (Exception e) {
+                logger.debug("Could not acknowledge persisted messages for {}: {}", sessionId, e.getMessage());
+            }
+        });
+    }
+
+    // --- Journal ---
+
+    private void openJournal() {
+        if (journalPath == null || journalPath.isBlank()) {
+            return;
+        }
+        try {
+            Path path = Paths.get(journalPath);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            replayJournal(path);
+            journal = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            logger.warn("Chat journal {} unavailable, continuing without it: {}", journalPath, e.getMessage());
+            journal = null;
+        }
+    }
+
+    // Insert journaled messages that never reached the table (keys already stored are skipped)
+    private void replayJournal(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<PendingChatMessage> journaled = new ArrayList<>();
+        Set<Long> struck = new HashSet<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            try {
+                String[] f = line.split("\t", -1);
+                if (STRUCK.equals(f[0])) {
+                    struck.add(Long.parseLong(f[1]));
+                    continue;
+                }
+                // Lines written before sequencing have no seventh field
+                Long seq = f.length > 6 && !f[6].isEmpty() ? Long.valueOf(f[6]) : null;
+                journaled.add(new PendingChatMessage(Long.parseLong(f[0]), f[1], seq, Long.parseLong(f[2]),
+                        ChatMessage.SenderType.valueOf(f[3]), new String(Base64.getDecoder().decode(f[5]), StandardCharsets.UTF_8),
+                        LocalDateTime.parse(f[4]), null));
+            } catch (RuntimeException e) {
+                logger.warn("Skipping unreadable chat journal line: {}", e.getMessage());
+            }
+        }
+        journaled.removeIf(message -> struck.contains(message.messageKey()));
+        if (journaled.isEmpty()) {
+            return;
+        }
+
+        int recovered = 0;
+        for (int from = 0; from < journaled.size(); from += MAX_ROWS_PER_INSERT) {
+            List<PendingChatMessage> chunk = journaled.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, journaled.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            Set<Long> stored = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT message_key FROM chat_messages WHERE message_key IN (" + placeholders + ")",
+                    Long.class, chunk.stream().map(PendingChatMessage::messageKey).toArray()));
+            List<PendingChatMessage> missing = chunk.stream().filter(m -> !stored.contains(m.messageKey())).toList();
+            if (!missing.isEmpty()) {
+                insert(missing);
+                recovered += missing.size();
+            }
+        }
+        logger.info("Chat journal replayed: {} entries, {} recovered", journaled.size(), recovered);
+    }
+
+    private void appendToJournal(PendingChatMessage message) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.write(message.messageKey() + "\t" + message.sessionId() + "\t" + message.senderId() + "\t"
+                    + message.senderType().name() + "\t" + message.createdAt() + "\t"
+                    + Base64.getEncoder().encodeToString(message.content().getBytes(StandardCharsets.UTF_8)) + "\t"
+                    + (message.seq() != null ? message.seq() : ""));
+            journal.newLine();
+            // Flushed to the OS on every message: survives a JVM crash, not a power loss
+            journal.flush();
+        } catch (IOException e) {
+            logger.warn("Chat journal write failed: {}", e.getMessage());
+        }
+    }
+
+    // Rejected or quarantined message: a "X<tab>key" line tells replay to skip it
+    private void strikeFromJournal(long messageKey) {
+        synchronized (journalLock) {
+            if (journal == null) {
+                return;
+            }
+            try {
+                journal.write(STRUCK + "\t" + messageKey);
+                journal.newLine();
+                journal.flush();
+            } catch (IOException e) {
+                logger.warn("Chat journal write failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Everything journaled so far is stored once no accepted message is still waiting for its id
+    // (queued, in a batch, being retried or inserted synchronously)
+    private void truncateJournalIfIdle() {
+        if (journal == null) {
+            return;
+        }
+        synchronized (journalLock) {
+            if (!unacknowledged.isEmpty()) {
+                return;
+            }
+            try {
+                journal.close();
+                journal = Files.newBufferedWriter(Paths.get(journalPath), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                logger.warn("Chat journal truncate failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // --- Stats / shutdown ---
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("accepted", accepted.sum());
+        stats.put("persisted", persisted.sum());
+        stats.put("batches", batches.sum());
+        stats.put("synchronousFallbacks", synchronousFallbacks.sum());
+        stats.put("failedAttempts", failedAttempts.sum());
+        stats.put("quarantined", quarantined.sum());
+        stats.put("discarded", discarded.sum());
+        stats.put("journal", journal != null);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            // The writer keeps draining until the queue is empty
+            writer.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            writer.interrupt();
+            logger.warn("Chat writer did not drain within {} ms, {} messages left in queue",
+                    SHUTDOWN_TIMEOUT_MS, queue.size());
+        }
+        if (!unacknowledged.isEmpty()) {
+            logger.warn("{} chat messages not stored at shutdown, kept in the journal for replay", unacknowledged.size());
+        }
+        synchronized (journalLock) {
+            if (journal != null) {
+                try {
+                    journal.close();
+                    // Messages still unacknowledged (queued, cut off mid-batch or given up on while
+                    // the database was down) are only safe in the journal, for the next start to replay
+                    if (unacknowledged.isEmpty()) {
+                        Files.write(Paths.get(journalPath), new byte[0]);
+                    }
+                } catch (IOException e) {
+                    logger.warn("Chat journal close failed: {}", e.getMessage());
+                }
+                journal = null;
+            }
+        }
+        logger.info("Chat write-behind stopped: {} accepted, {} persisted", accepted.sum(), persisted.sum());
+    }
+}
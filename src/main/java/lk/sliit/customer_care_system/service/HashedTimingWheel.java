@@ -0,0 +1,279 @@
+package lk.sliit.customer_care_system.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashed timing wheel: a ring of buckets, each a doubly linked list of timeouts.
+ *
+ * Adding and cancelling a timeout are O(1) (both are queued and applied by the worker on its
+ * next tick); each tick only walks the one bucket under the hand. Timeouts further away than one
+ * rotation carry a remaining-rounds count. Expired tasks run on the supplied executor so slow
+ * tasks never delay the wheel.
+ */
+public class HashedTimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    // Upper bound of queued timeouts moved into buckets per tick, so a burst cannot stall a tick
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    public interface TimerTask {
+        void run(Timeout timeout);
+    }
+
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long tickNanos;
+    private final Executor taskExecutor;
+    private final Thread worker;
+
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final AtomicInteger workerState = new AtomicInteger(0); // 0 init, 1 started, 2 shut down
+
+    private volatile long startTime;
+    private long tick;
+
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int ticksPerWheel, Executor taskExecutor, String threadName) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("ticksPerWheel out of range: " + ticksPerWheel);
+        }
+        // Round up to a power of two so the bucket index is a mask instead of a modulo
+        int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        size = Math.max(size, 1);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.taskExecutor = taskExecutor;
+        this.worker = new Thread(this::runWorker, threadName);
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Schedule a task to run once after the given delay (negative delays fire on the next tick).
+     */
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        start();
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(0, delay)) - startTime;
+        Timeout timeout = new Timeout(this, task, deadline);
+        pendingCount.incrementAndGet();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    // Armed (scheduled but not yet fired or cancelled) timeouts
+    public long pendingTimeouts() {
+        return pendingCount.get();
+    }
+
+    public void start() {
+        if (workerState.compareAndSet(0, 1)) {
+            startTime = System.nanoTime();
+            if (startTime == 0) {
+                startTime = 1; // 0 means "not started" to other threads
+            }
+            worker.start();
+        } else if (workerState.get() == 2) {
+            throw new IllegalStateException("Timing wheel has been stopped");
+        }
+        while (startTime == 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public void stop() {
+        if (workerState.getAndSet(2) == 1) {
+            worker.interrupt();
+        }
+    }
+
+    private void runWorker() {
+        while (workerState.get() == 1) {
+            long deadline = waitForNextTick();
+            if (deadline <= 0) {
+                continue;
+            }
+            processCancelled();
+            Bucket bucket = wheel[(int) (tick & mask)];
+            transferPending();
+            bucket.expire();
+            tick++;
+        }
+    }
+
+    // Sleep until the current tick ends; returns the tick's end relative to startTime
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long current = System.nanoTime() - startTime;
+            long sleepMs = (deadline - current + 999_999) / 1_000_000;
+            if (sleepMs <= 0) {
+                return current;
+            }
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                if (workerState.get() == 2) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // Deadlines already in the past go into the current bucket
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void processCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        if (!timeout.state.compareAndSet(Timeout.INIT, Timeout.EXPIRED)) {
+            return;
+        }
+        pendingCount.decrementAndGet();
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    timeout.task.run(timeout);
+                } catch (Exception e) {
+                    logger.warn("Timer task failed: {}", e.getMessage(), e);
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Could not dispatch timer task: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Handle of one scheduled task.
+     */
+    public static final class Timeout {
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedTimingWheel timer;
+        private final TimerTask task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(INIT);
+
+        // Owned by the worker thread
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout prev;
+        private Bucket bucket;
+
+        private Timeout(HashedTimingWheel timer, TimerTask task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public boolean cancel() {
+            if (!state.compareAndSet(INIT, CANCELLED)) {
+                return false;
+            }
+            timer.pendingCount.decrementAndGet();
+            timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    // Only touched by the worker thread
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    // Cancelled timeouts are just unlinked; fire() ignores them
+                    remove(timeout);
+                    fire(timeout);
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = timeout.next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
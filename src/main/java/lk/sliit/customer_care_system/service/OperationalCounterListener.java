@@ -0,0 +1,119 @@
+package lk.sliit.customer_care_system.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lk.sliit.customer_care_system.modelentity.*;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moves {@link OperationalCounters} from Hibernate's post-commit entity lifecycle events.
+ *
+ * Post-commit events are used instead of JPA @PostPersist/@PostUpdate callbacks because they
+ * carry the previous state of an update (needed for status transitions) and never fire for
+ * rolled-back transactions. Bulk JPQL statements bypass these events; the reconciler covers them.
+ */
+@Component
+public class OperationalCounterListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private OperationalCounters counters;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        keysFor(event.getEntity(), event.getPersister(), event.getState()).forEach(counters::increment);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getOldState() == null) {
+            // Without the previous state the transition is unknown; wait for reconciliation
+            return;
+        }
+        List<String> before = keysFor(event.getEntity(), event.getPersister(), event.getOldState());
+        List<String> after = keysFor(event.getEntity(), event.getPersister(), event.getState());
+        before.stream().filter(key -> !after.contains(key)).forEach(counters::decrement);
+        after.stream().filter(key -> !before.contains(key)).forEach(counters::increment);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        keysFor(event.getEntity(), event.getPersister(), event.getDeletedState()).forEach(counters::decrement);
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {}
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Ticket.class || type == Feedback.class || type == ChatSession.class
+                || type == FAQ.class || type == User.class;
+    }
+
+    // Counter keys an entity contributes to, given one snapshot of its persistent state
+    private List<String> keysFor(Object entity, EntityPersister persister, Object[] state) {
+        List<String> keys = new ArrayList<>();
+        if (state == null) {
+            return keys;
+        }
+        List<String> names = Arrays.asList(persister.getPropertyNames());
+
+        if (entity instanceof Ticket) {
+            keys.add(OperationalCounters.TICKETS_TOTAL);
+            keys.add(OperationalCounters.ticketStatus(String.valueOf(value(names, state, "status"))));
+            keys.add(OperationalCounters.ticketCategory(String.valueOf(value(names, state, "category"))));
+        } else if (entity instanceof Feedback) {
+            keys.add(OperationalCounters.FEEDBACK_TOTAL);
+            keys.add(OperationalCounters.feedbackStatus(String.valueOf(value(names, state, "status"))));
+            if (value(names, state, "adminResponse") != null) {
+                keys.add(OperationalCounters.FEEDBACK_RESPONDED);
+            }
+            if (Boolean.TRUE.equals(value(names, state, "isAnonymous"))) {
+                keys.add(OperationalCounters.FEEDBACK_ANONYMOUS);
+            }
+        } else if (entity instanceof ChatSession) {
+            keys.add(OperationalCounters.CHAT_SESSIONS_TOTAL);
+            keys.add(OperationalCounters.chatStatus(String.valueOf(value(names, state, "status"))));
+        } else if (entity instanceof FAQ) {
+            keys.add(OperationalCounters.FAQ_TOTAL);
+            if (!Boolean.TRUE.equals(value(names, state, "isApproved"))) {
+                keys.add(OperationalCounters.FAQ_PENDING);
+            }
+        } else if (entity instanceof User) {
+            keys.add(OperationalCounters.USERS_TOTAL);
+            keys.add(OperationalCounters.userRole(String.valueOf(value(names, state, "role"))));
+        }
+        return keys;
+    }
+
+    private static Object value(List<String> names, Object[] state, String property) {
+        int index = names.indexOf(property);
+        return index >= 0 ? state[index] : null;
+    }
+}
@@ -0,0 +1,89 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.GroupCountDTO;
+import lk.sliit.customer_care_system.repository.FAQRepository;
+import lk.sliit.customer_care_system.repository.FeedbackRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rebuilds {@link OperationalCounters} from GROUP BY queries on startup and on a fixed schedule.
+ * This corrects drift from bulk statements and from events missed while the listener was down.
+ */
+@Component
+public class OperationalCounterReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationalCounterReconciler.class);
+
+    @Autowired private OperationalCounters counters;
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private FeedbackRepository feedbackRepository;
+    @Autowired private FAQRepository faqRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${counters.reconcile-interval-ms:300000}",
+            initialDelayString = "${counters.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            Map<String, Long> fresh = new HashMap<>();
+
+            // Tickets
+            Map<String, Map<String, Long>> matrix = analyticsService.ticketStatusByCategory();
+            long tickets = 0;
+            for (Map.Entry<String, Long> e : AnalyticsService.totalsByStatus(matrix).entrySet()) {
+                fresh.put(OperationalCounters.ticketStatus(e.getKey()), e.getValue());
+                tickets += e.getValue();
+            }
+            AnalyticsService.totalsByCategory(matrix)
+                    .forEach((category, count) -> fresh.put(OperationalCounters.ticketCategory(category), count));
+            fresh.put(OperationalCounters.TICKETS_TOTAL, tickets);
+
+            // Feedback
+            long feedbacks = 0;
+            for (GroupCountDTO row : feedbackRepository.countGroupByStatus()) {
+                fresh.put(OperationalCounters.feedbackStatus(row.getKey()), row.getCount());
+                feedbacks += row.getCount();
+            }
+            fresh.put(OperationalCounters.FEEDBACK_TOTAL, feedbacks);
+            fresh.put(OperationalCounters.FEEDBACK_RESPONDED, feedbackRepository.countByAdminResponseIsNotNull());
+            fresh.put(OperationalCounters.FEEDBACK_ANONYMOUS, feedbackRepository.countByIsAnonymousTrue());
+
+            // Chat sessions
+            long sessions = 0;
+            for (Map.Entry<String, Long> e : analyticsService.chatSessionsByStatus().entrySet()) {
+                fresh.put(OperationalCounters.chatStatus(e.getKey()), e.getValue());
+                sessions += e.getValue();
+            }
+            fresh.put(OperationalCounters.CHAT_SESSIONS_TOTAL, sessions);
+
+            // FAQs
+            fresh.put(OperationalCounters.FAQ_TOTAL, faqRepository.count());
+            fresh.put(OperationalCounters.FAQ_PENDING, faqRepository.countByIsApprovedFalse());
+
+            // Users
+            long users = 0;
+            for (Map.Entry<String, Long> e : analyticsService.usersByRole().entrySet()) {
+                fresh.put(OperationalCounters.userRole(e.getKey()), e.getValue());
+                users += e.getValue();
+            }
+            fresh.put(OperationalCounters.USERS_TOTAL, users);
+
+            counters.reconcile(fresh);
+            logger.debug("Operational counters reconciled ({} keys)", fresh.size());
+        } catch (Exception e) {
+            logger.warn("Operational counter reconciliation failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package lk.sliit.customer_care_system.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory operational counters (tickets by status/category, feedback, chat sessions, FAQs, users).
+ *
+ * Counters are moved by {@link OperationalCounterListener} as entity changes commit and are
+ * periodically overwritten from the database by {@link OperationalCounterReconciler}, so dashboard
+ * and stats endpoints can read them without touching SQL Server.
+ */
+@Component
+public class OperationalCounters {
+
+    // --- Counter keys ---
+    public static final String TICKETS_TOTAL = "ticket.total";
+    public static final String FEEDBACK_TOTAL = "feedback.total";
+    public static final String FEEDBACK_RESPONDED = "feedback.responded";
+    public static final String FEEDBACK_ANONYMOUS = "feedback.anonymous";
+    public static final String CHAT_SESSIONS_TOTAL = "chat.total";
+    public static final String FAQ_TOTAL = "faq.total";
+    public static final String FAQ_PENDING = "faq.pending";
+    public static final String USERS_TOTAL = "user.total";
+
+    public static String ticketStatus(String status) { return "ticket.status:" + status; }
+    public static String ticketCategory(String category) { return "ticket.category:" + category; }
+    public static String feedbackStatus(String status) { return "feedback.status:" + status; }
+    public static String chatStatus(String status) { return "chat.status:" + status; }
+    public static String userRole(String role) { return "user.role:" + role; }
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public void increment(String key) {
+        add(key, 1);
+    }
+
+    public void decrement(String key) {
+        add(key, -1);
+    }
+
+    public void add(String key, long delta) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+    }
+
+    public long get(String key) {
+        LongAdder adder = counters.get(key);
+        return adder != null ? Math.max(0L, adder.sum()) : 0L;
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((key, adder) -> snapshot.put(key, adder.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Overwrite every counter with values freshly read from the database.
+     * Keys missing from the fresh map are reset to zero.
+     */
+    public void reconcile(Map<String, Long> fresh) {
+        counters.forEach((key, adder) -> {
+            if (!fresh.containsKey(key)) {
+                adder.reset();
+            }
+        });
+        fresh.forEach((key, value) -> {
+            LongAdder adder = counters.computeIfAbsent(key, k -> new LongAdder());
+            // Apply the drift as one delta so concurrent increments are not lost
+            adder.add(value - adder.sum());
+        });
+    }
+}
@@ -0,0 +1,289 @@
+package lk.sliit.customer_care_system.service;
+
+import jakarta.annotation.PreDestroy;
+import lk.sliit.customer_care_system.dto.AgentTicketRowDTO;
+import lk.sliit.customer_care_system.modelentity.User;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.strategy.NotificationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * First-response and resolution SLAs per ticket category.
+ *
+ * Every open ticket has exactly one timer on a {@link HashedTimingWheel}: first the
+ * first-response deadline, then (after the first agent response, or after that deadline was
+ * breached) the resolution deadline. Timers are re-armed or cancelled from ticket change
+ * events, and a breach escalates to the assigned agent and the admins through
+ * {@link NotificationContext}. The wheel is rebuilt from the database on startup.
+ *
+ * Durations: {@code ticket.sla.first-response.<Category>} / {@code ticket.sla.resolution.<Category>}
+ * (ISO-8601, e.g. PT4H), falling back to the {@code .default} entries.
+ */
+@Service
+public class SlaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlaService.class);
+
+    static final int REBUILD_BATCH_SIZE = 5000;
+
+    public enum Phase { FIRST_RESPONSE, RESOLUTION }
+
+    @Autowired private TicketRepository ticketRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private NotificationContext notificationContext;
+    @Autowired private Environment environment;
+
+    private final Map<Long, SlaTimer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Duration> durationCache = new ConcurrentHashMap<>();
+    private final LongAdder firstResponseBreaches = new LongAdder();
+    private final LongAdder resolutionBreaches = new LongAdder();
+
+    private final ExecutorService escalationExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "sla-escalation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HashedTimingWheel wheel;
+
+    public SlaService(@Value("${ticket.sla.tick-ms:1000}") long tickMs,
+                      @Value("${ticket.sla.wheel-size:4096}") int wheelSize) {
+        this.wheel = new HashedTimingWheel(tickMs, TimeUnit.MILLISECONDS, wheelSize, escalationExecutor, "sla-wheel");
+    }
+
+    // --- Ticket lifecycle ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketChanged(TicketChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> track(event.ticketId(), event.category(), event.occurredAt(), false, true);
+            case RESPONDED -> {
+                // The response form also sets the status, often to Resolved or Closed
+                applyStatus(event);
+                firstResponse(event.ticketId());
+            }
+            case UPDATED -> {
+                SlaTimer timer = timers.get(event.ticketId());
+                if (timer != null && !Objects.equals(timer.category, event.category())) {
+                    // Category decides the durations, so re-arm under the new one
+                    track(event.ticketId(), event.category(), timer.createdAt, timer.responded, true);
+                }
+            }
+            case STATUS_CHANGED -> applyStatus(event);
+            case DELETED -> stop(event.ticketId());
+        }
+    }
+
+    // Resolved/Closed tickets have no SLA left; a reopened one gets its resolution SLA back
+    private void applyStatus(TicketChangedEvent event) {
+        if (!TicketRoutingService.OPEN_STATUSES.contains(event.status())) {
+            stop(event.ticketId());
+        } else if (!timers.containsKey(event.ticketId())) {
+            ticketRepository.findIndexRowById(event.ticketId()).forEach(row ->
+                    track(row.getId(), row.getCategory(), row.getCreatedAt(), true, true));
+        }
+    }
+
+    // Replaces any existing timer for the ticket
+    private void track(Long ticketId, String category, LocalDateTime createdAt, boolean responded, boolean notifyOverdue) {
+        SlaTimer timer = new SlaTimer(ticketId, category, createdAt != null ? createdAt : LocalDateTime.now(), responded);
+        SlaTimer previous = timers.put(ticketId, timer);
+        if (previous != null) {
+            previous.cancel();
+        }
+        synchronized (timer) {
+            arm(timer, responded ? Phase.RESOLUTION : Phase.FIRST_RESPONSE, notifyOverdue);
+        }
+    }
+
+    private void firstResponse(Long ticketId) {
+        SlaTimer timer = timers.get(ticketId);
+        if (timer == null) {
+            return;
+        }
+        synchronized (timer) {
+            if (timer.responded) {
+                return;
+            }
+            timer.responded = true;
+            if (timer.phase == Phase.FIRST_RESPONSE) {
+                timer.cancel();
+                arm(timer, Phase.RESOLUTION, true);
+            }
+        }
+    }
+
+    private void stop(Long ticketId) {
+        SlaTimer timer = timers.remove(ticketId);
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    /**
+     * Schedule the deadline of the given phase. A deadline that already passed either escalates
+     * right away (live changes) or is only counted (rebuild after restart, already escalated before).
+     */
+    private void arm(SlaTimer timer, Phase phase, boolean notifyOverdue) {
+        timer.phase = phase;
+        timer.deadline = timer.createdAt.plus(duration(phase, timer.category));
+        long delayMs = Duration.between(LocalDateTime.now(), timer.deadline).toMillis();
+
+        if (delayMs <= 0 && !notifyOverdue) {
+            countBreach(phase);
+            if (phase == Phase.FIRST_RESPONSE) {
+                arm(timer, Phase.RESOLUTION, false);
+            } else {
+                timer.breached = true;
+            }
+            return;
+        }
+        timer.timeout = wheel.newTimeout(timeout -> onDeadline(timer, timeout), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs on the escalation thread
+    private void onDeadline(SlaTimer timer, HashedTimingWheel.Timeout timeout) {
+        Phase phase;
+        synchronized (timer) {
+            if (timers.get(timer.ticketId) != timer || timer.timeout != timeout) {
+                return; // superseded while the task was queued
+            }
+            phase = timer.phase;
+            countBreach(phase);
+            if (phase == Phase.FIRST_RESPONSE) {
+                arm(timer, Phase.RESOLUTION, true);
+            } else {
+                timer.breached = true;
+                timer.timeout = null;
+            }
+        }
+        escalate(timer.ticketId, phase);
+    }
+
+    private void countBreach(Phase phase) {
+        (phase == Phase.FIRST_RESPONSE ? firstResponseBreaches : resolutionBreaches).increment();
+    }
+
+    private void escalate(Long ticketId, Phase phase) {
+        List<AgentTicketRowDTO> rows = ticketRepository.findIndexRowById(ticketId);
+        if (rows.isEmpty()) {
+            return;
+        }
+        AgentTicketRowDTO ticket = rows.get(0);
+        String subject = phase == Phase.FIRST_RESPONSE ? "SLA breach: first response" : "SLA breach: resolution";
+        String message = "Ticket #" + ticket.getId() + " \"" + ticket.getTitle() + "\" (" + ticket.getCategory()
+                + ") missed its " + (phase == Phase.FIRST_RESPONSE ? "first-response" : "resolution") + " deadline.";
+
+        List<User> recipients = new ArrayList<>(userRepository.findAllByRole("ROLE_ADMIN"));
+        if (ticket.getAssignedAgentUsername() != null) {
+            userRepository.findByUsername(ticket.getAssignedAgentUsername()).ifPresent(recipients::add);
+        }
+        recipients.forEach(user -> notificationContext.sendInAppNotification(user, subject, message));
+        logger.info("{} for ticket #{} escalated to {} users", subject, ticketId, recipients.size());
+    }
+
+    private Duration duration(Phase phase, String category) {
+        String prefix = phase == Phase.FIRST_RESPONSE ? "ticket.sla.first-response." : "ticket.sla.resolution.";
+        String fallback = phase == Phase.FIRST_RESPONSE ? "PT4H" : "PT48H";
+        String key = prefix + (category != null ? category : "default");
+        return durationCache.computeIfAbsent(key, k -> Duration.parse(environment.getProperty(k,
+                environment.getProperty(prefix + "default", fallback))));
+    }
+
+    // --- Status ---
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedTickets", timers.size());
+        stats.put("armedTimers", wheel.pendingTimeouts());
+        stats.put("firstResponseBreaches", firstResponseBreaches.sum());
+        stats.put("resolutionBreaches", resolutionBreaches.sum());
+        return stats;
+    }
+
+    public Map<String, Object> statusOf(Long ticketId) {
+        SlaTimer timer = timers.get(ticketId);
+        if (timer == null) {
+            return null;
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ticketId", ticketId);
+        status.put("category", timer.category);
+        status.put("phase", timer.phase);
+        status.put("deadline", timer.deadline);
+        status.put("responded", timer.responded);
+        status.put("breached", timer.breached);
+        return status;
+    }
+
+    // --- Startup / shutdown ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            long lastId = 0;
+            List<Object[]> batch;
+            do {
+                batch = ticketRepository.findSlaRowsAfter(TicketRoutingService.OPEN_STATUSES, lastId,
+                        PageRequest.of(0, REBUILD_BATCH_SIZE));
+                for (Object[] row : batch) {
+                    Long ticketId = (Long) row[0];
+                    track(ticketId, (String) row[1], (LocalDateTime) row[2], row[3] != null, false);
+                    lastId = ticketId;
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            logger.info("SLA wheel rebuilt: {} open tickets, {} armed timers", timers.size(), wheel.pendingTimeouts());
+        } catch (Exception e) {
+            logger.warn("SLA wheel rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.stop();
+        escalationExecutor.shutdown();
+    }
+
+    private static final class SlaTimer {
+        private final Long ticketId;
+        private final String category;
+        private final LocalDateTime createdAt;
+        private volatile boolean responded;
+        private volatile boolean breached;
+        private volatile Phase phase;
+        private volatile LocalDateTime deadline;
+        private volatile HashedTimingWheel.Timeout timeout;
+
+        private SlaTimer(Long ticketId, String category, LocalDateTime createdAt, boolean responded) {
+            this.ticketId = ticketId;
+            this.category = category;
+            this.createdAt = createdAt;
+            this.responded = responded;
+        }
+
+        private void cancel() {
+            HashedTimingWheel.Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.BulkTicketRequest;
+import lk.sliit.customer_care_system.dto.BulkTicketResultDTO;
+import lk.sliit.customer_care_system.dto.TicketSummaryDTO;
+import lk.sliit.customer_care_system.modelentity.Ticket;
+import lk.sliit.customer_care_system.repository.AgentResponseRepository;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based bulk status updates and deletes for tickets.
+ *
+ * Ids are processed in chunks so each statement stays well under SQL Server's 2100 parameter
+ * limit; every chunk costs a handful of statements instead of one round trip per ticket and
+ * commits on its own, so locks are held for one chunk at a time.
+ * Bulk JPQL bypasses entity events, so callers should reconcile {@link OperationalCounters} afterwards.
+ */
+@Service
+public class TicketBulkService {
+
+    public static final int MAX_TICKETS = 10000;
+    static final int CHUNK_SIZE = 1000;
+
+    @Autowired private TicketRepository ticketRepository;
+    @Autowired private AgentResponseRepository agentResponseRepository;
+    @Autowired private TicketChangeService ticketChangeService;
+    @Autowired private TicketEventPublisher ticketEventPublisher;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    public BulkTicketResultDTO updateStatus(BulkTicketRequest request) {
+        String status = request.getStatus();
+        if (status == null || status.isBlank()) {
+            throw new IllegalArgumentException("Target status is required");
+        }
+        // The bulk UPDATE bypasses Ticket.setStatus, so apply the same rule here
+        if (!Ticket.STATUSES.contains(status)) {
+            throw new IllegalArgumentException("Invalid status: " + status + ". Must be: Open, In Progress, Resolved, or Closed");
+        }
+
+        BulkTicketResultDTO result = new BulkTicketResultDTO();
+        LocalDateTime now = LocalDateTime.now();
+        for (List<Long> chunk : chunks(resolveIds(request))) {
+            Map<Long, TicketSummaryDTO> found = transactionTemplate.execute(tx -> {
+                Map<Long, TicketSummaryDTO> rows = findExisting(chunk);
+                if (!rows.isEmpty()) {
+                    ticketRepository.updateStatusByIdIn(rows.keySet(), status, now);
+                    rows.values().forEach(row -> ticketEventPublisher.statusChanged(row, status));
+                }
+                return rows;
+            });
+            chunk.forEach(id -> result.record(id,
+                    found.containsKey(id) ? BulkTicketResultDTO.UPDATED : BulkTicketResultDTO.NOT_FOUND));
+        }
+        return result;
+    }
+
+    public BulkTicketResultDTO delete(BulkTicketRequest request) {
+        BulkTicketResultDTO result = new BulkTicketResultDTO();
+        for (List<Long> chunk : chunks(resolveIds(request))) {
+            Map<Long, TicketSummaryDTO> found = transactionTemplate.execute(tx -> {
+                Map<Long, TicketSummaryDTO> rows = findExisting(chunk);
+                if (!rows.isEmpty()) {
+                    // Responses first (foreign key), then tickets, then tombstones for delta-sync clients
+                    agentResponseRepository.deleteByTicketIdIn(rows.keySet());
+                    ticketRepository.deleteByIdIn(rows.keySet());
+                    ticketChangeService.recordDeletions(rows.keySet());
+                    rows.values().forEach(row -> ticketEventPublisher.ticketDeleted(row.getId(), row.getOwnerUsername()));
+                }
+                return rows;
+            });
+            chunk.forEach(id -> result.record(id,
+                    found.containsKey(id) ? BulkTicketResultDTO.DELETED : BulkTicketResultDTO.NOT_FOUND));
+        }
+        return result;
+    }
+
+    // Explicit ids win over the filter; duplicates are dropped, request order is kept
+    private List<Long> resolveIds(BulkTicketRequest request) {
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            Set<Long> ids = new LinkedHashSet<>(request.getIds());
+            ids.remove(null);
+            if (ids.size() > MAX_TICKETS) {
+                throw new IllegalArgumentException("At most " + MAX_TICKETS + " tickets per bulk request");
+            }
+            return new ArrayList<>(ids);
+        }
+
+        String status = blankToNull(request.getFilterStatus());
+        String category = blankToNull(request.getFilterCategory());
+        if (status == null && category == null) {
+            throw new IllegalArgumentException("Provide ticket ids or a status/category filter");
+        }
+        List<Long> ids = ticketRepository.findIdsByFilter(status, category, PageRequest.of(0, MAX_TICKETS + 1));
+        if (ids.size() > MAX_TICKETS) {
+            throw new IllegalArgumentException("Filter matches more than " + MAX_TICKETS + " tickets");
+        }
+        return ids;
+    }
+
+    private Map<Long, TicketSummaryDTO> findExisting(List<Long> ids) {
+        return ticketRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(TicketSummaryDTO::getId, Function.identity()));
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -0,0 +1,154 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.TicketChangesDTO;
+import lk.sliit.customer_care_system.dto.TicketSummaryDTO;
+import lk.sliit.customer_care_system.modelentity.TicketTombstone;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import lk.sliit.customer_care_system.repository.TicketTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Watermark-based delta sync for the ticket list.
+ *
+ * The sync token encodes the newest ticket.updated_at and the newest tombstone id seen by the
+ * client. The same token doubles as a strong ETag, so an unchanged poll costs one watermark
+ * lookup and a 304.
+ */
+@Service
+public class TicketChangeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketChangeService.class);
+
+    // Larger deltas are cheaper to serve as a full reload
+    static final int MAX_CHANGES = 500;
+    // Re-read a small window before the watermark to catch transactions that committed late
+    static final Duration OVERLAP = Duration.ofSeconds(5);
+    static final Duration TOMBSTONE_RETENTION = Duration.ofDays(7);
+    static final int TOMBSTONE_BATCH_SIZE = 500;
+
+    @Autowired private TicketRepository ticketRepository;
+    @Autowired private TicketTombstoneRepository ticketTombstoneRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    // --- Watermark / ETag ---
+    public Watermark currentWatermark() {
+        TicketTombstoneRepository.TicketWatermark row = ticketTombstoneRepository.findWatermark();
+        LocalDateTime maxUpdatedAt = row.getMaxUpdatedAt() != null ? LocalDateTime.parse(row.getMaxUpdatedAt()) : null;
+        long maxTombstoneId = row.getMaxTombstoneId() != null ? row.getMaxTombstoneId() : 0L;
+        return new Watermark(maxUpdatedAt, maxTombstoneId);
+    }
+
+    public String etagFor(Watermark watermark) {
+        return "\"" + encodeToken(watermark) + "\"";
+    }
+
+    // --- Delta since the client's token ---
+    public TicketChangesDTO changesSince(String since, Watermark current) {
+        String token = encodeToken(current);
+        if (since == null || since.isBlank()) {
+            // No baseline yet: hand out the current token, the client loads the list itself
+            return new TicketChangesDTO(List.of(), List.of(), token, false);
+        }
+
+        Watermark previous;
+        try {
+            previous = decodeToken(since);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejecting ticket sync token {}: {}", since, e.getMessage());
+            return resync(token);
+        }
+
+        boolean newTombstones = previous.maxTombstoneId() < current.maxTombstoneId();
+        if (newTombstones && !canReplayDeletionsAfter(previous.maxTombstoneId())) {
+            return resync(token);
+        }
+
+        LocalDateTime from = previous.maxUpdatedAt() != null
+                ? previous.maxUpdatedAt().minus(OVERLAP)
+                : LocalDateTime.of(1970, 1, 1, 0, 0);
+        List<TicketSummaryDTO> changed = ticketRepository.findSummaryChangedSince(from, PageRequest.of(0, MAX_CHANGES + 1));
+        if (changed.size() > MAX_CHANGES) {
+            return resync(token);
+        }
+
+        List<Long> deletedIds = newTombstones
+                ? ticketTombstoneRepository.findTicketIdsAfter(previous.maxTombstoneId())
+                : List.of();
+
+        return new TicketChangesDTO(changed, deletedIds, token, false);
+    }
+
+    // --- Deletion tracking ---
+    // Pruning removes the oldest tombstones first, so deletions after the given id can be replayed
+    // as long as nothing above it has been pruned yet
+    public boolean canReplayDeletionsAfter(long tombstoneId) {
+        Long oldest = ticketTombstoneRepository.findOldestId();
+        return oldest == null || tombstoneId >= oldest - 1;
+    }
+
+    public void recordDeletion(Long ticketId) {
+        ticketTombstoneRepository.save(new TicketTombstone(ticketId));
+    }
+
+    // IDENTITY ids stop Hibernate from batching inserts, so bulk tombstones go through a JDBC batch
+    public void recordDeletions(Collection<Long> ticketIds) {
+        if (ticketIds.isEmpty()) {
+            return;
+        }
+        Timestamp deletedAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("INSERT INTO ticket_tombstone (ticket_id, deleted_at) VALUES (?, ?)",
+                ticketIds, TOMBSTONE_BATCH_SIZE, (ps, ticketId) -> {
+                    ps.setLong(1, ticketId);
+                    ps.setTimestamp(2, deletedAt);
+                });
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void pruneTombstones() {
+        int removed = ticketTombstoneRepository.deleteByDeletedAtBefore(LocalDateTime.now().minus(TOMBSTONE_RETENTION));
+        logger.info("Pruned {} ticket tombstones", removed);
+    }
+
+    // --- Token encoding (opaque to clients) ---
+    static String encodeToken(Watermark watermark) {
+        String raw = (watermark.maxUpdatedAt() != null ? watermark.maxUpdatedAt().toString() : "-")
+                + "|" + watermark.maxTombstoneId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Watermark decodeToken(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid sync token");
+            }
+            String updatedAt = raw.substring(0, separator);
+            return new Watermark("-".equals(updatedAt) ? null : LocalDateTime.parse(updatedAt),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid sync token");
+        }
+    }
+
+    private static TicketChangesDTO resync(String token) {
+        return new TicketChangesDTO(List.of(), List.of(), token, true);
+    }
+
+    public record Watermark(LocalDateTime maxUpdatedAt, long maxTombstoneId) {}
+}
@@ -0,0 +1,32 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.TicketEventDTO;
+
+import java.time.LocalDateTime;
+
+/**
+ * Application event raised whenever a ticket is created, edited, answered, moved to a new
+ * status or deleted. Listeners that touch other systems should use
+ * {@code @TransactionalEventListener} so they only react to committed changes.
+ */
+public record TicketChangedEvent(Long ticketId,
+                                 Type type,
+                                 String status,
+                                 String title,
+                                 String category,
+                                 String ownerUsername,
+                                 Long assignedAgentId,
+                                 LocalDateTime occurredAt) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        RESPONDED,
+        DELETED
+    }
+
+    public TicketEventDTO toDTO() {
+        return new TicketEventDTO(ticketId, type.name(), status, title, category, ownerUsername, occurredAt);
+    }
+}
@@ -0,0 +1,75 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.TicketEventDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes committed ticket changes to STOMP clients.
+ *
+ * Events are coalesced per ticket and flushed on a short fixed delay, so a burst of updates
+ * (e.g. respond + status change) becomes one frame on /topic/tickets for agents and one frame
+ * per owner on /user/queue/tickets.
+ */
+@Component
+public class TicketEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketEventBroadcaster.class);
+
+    public static final String AGENT_TOPIC = "/topic/tickets";
+    public static final String OWNER_QUEUE = "/queue/tickets";
+
+    private final Map<Long, TicketEventDTO> pending = new ConcurrentHashMap<>();
+
+    @Autowired private SimpMessagingTemplate messagingTemplate;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketChanged(TicketChangedEvent event) {
+        // Latest change wins, but a deletion is never overwritten by an older update
+        pending.merge(event.ticketId(), event.toDTO(),
+                (previous, next) -> "DELETED".equals(previous.getType()) ? previous : next);
+    }
+
+    @Scheduled(fixedDelayString = "${tickets.events.flush-interval-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<TicketEventDTO> batch = new ArrayList<>();
+        for (Long ticketId : pending.keySet()) {
+            TicketEventDTO event = pending.remove(ticketId);
+            if (event != null) {
+                batch.add(event);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<TicketEventDTO>> byOwner = new HashMap<>();
+        for (TicketEventDTO event : batch) {
+            if (event.getOwnerUsername() != null) {
+                byOwner.computeIfAbsent(event.getOwnerUsername(), k -> new ArrayList<>()).add(event);
+            }
+        }
+
+        try {
+            messagingTemplate.convertAndSend(AGENT_TOPIC, batch);
+            byOwner.forEach((owner, events) -> messagingTemplate.convertAndSendToUser(owner, OWNER_QUEUE, events));
+        } catch (Exception e) {
+            logger.warn("Failed to push {} ticket events: {}", batch.size(), e.getMessage());
+        }
+    }
+}
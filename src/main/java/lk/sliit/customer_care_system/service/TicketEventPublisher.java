@@ -0,0 +1,54 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.TicketSummaryDTO;
+import lk.sliit.customer_care_system.modelentity.Ticket;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Single entry point for announcing ticket changes.
+ * Controllers call this after saving; subscribers receive a {@link TicketChangedEvent}.
+ */
+@Component
+public class TicketEventPublisher {
+
+    @Autowired private ApplicationEventPublisher applicationEventPublisher;
+
+    public void ticketCreated(Ticket ticket) {
+        publish(ticket, TicketChangedEvent.Type.CREATED);
+    }
+
+    public void ticketUpdated(Ticket ticket) {
+        publish(ticket, TicketChangedEvent.Type.UPDATED);
+    }
+
+    public void statusChanged(Ticket ticket) {
+        publish(ticket, TicketChangedEvent.Type.STATUS_CHANGED);
+    }
+
+    // Bulk updates change rows without loading entities; the summary row carries the rest
+    public void statusChanged(TicketSummaryDTO row, String status) {
+        applicationEventPublisher.publishEvent(new TicketChangedEvent(row.getId(), TicketChangedEvent.Type.STATUS_CHANGED,
+                status, row.getTitle(), row.getCategory(), row.getOwnerUsername(), null, LocalDateTime.now()));
+    }
+
+    public void responseAdded(Ticket ticket) {
+        publish(ticket, TicketChangedEvent.Type.RESPONDED);
+    }
+
+    // Owner must be captured before the ticket row is gone
+    public void ticketDeleted(Long ticketId, String ownerUsername) {
+        applicationEventPublisher.publishEvent(new TicketChangedEvent(ticketId, TicketChangedEvent.Type.DELETED,
+                null, null, null, ownerUsername, null, LocalDateTime.now()));
+    }
+
+    private void publish(Ticket ticket, TicketChangedEvent.Type type) {
+        String owner = ticket.getUser() != null ? ticket.getUser().getUsername() : null;
+        Long agentId = ticket.getAssignedAgent() != null ? ticket.getAssignedAgent().getId() : null;
+        applicationEventPublisher.publishEvent(new TicketChangedEvent(ticket.getId(), type, ticket.getStatus(),
+                ticket.getTitle(), ticket.getCategory(), owner, agentId, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,119 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.AgentResponseRowDTO;
+import lk.sliit.customer_care_system.dto.AgentTicketRowDTO;
+import lk.sliit.customer_care_system.dto.TicketPageDTO;
+import lk.sliit.customer_care_system.dto.TicketSummaryDTO;
+import lk.sliit.customer_care_system.repository.AgentResponseRepository;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Read-side queries for ticket list views.
+ * Pages are keyset-paginated on (createdAt, id) so every page costs one index seek,
+ * no matter how deep the client has scrolled.
+ */
+@Service
+public class TicketQueryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 25;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired private TicketRepository ticketRepository;
+    @Autowired private AgentResponseRepository agentResponseRepository;
+
+    // --- Keyset page ---
+    public TicketPageDTO listTickets(String cursor, Integer size, String status, String category) {
+        int pageSize = clampPageSize(size);
+        String statusFilter = blankToNull(status);
+        String categoryFilter = blankToNull(category);
+
+        // Fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<TicketSummaryDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = ticketRepository.findSummaryFirstPage(statusFilter, categoryFilter, limit);
+        } else {
+            Cursor position = decodeCursor(cursor);
+            rows = ticketRepository.findSummaryPageAfter(statusFilter, categoryFilter,
+                    position.createdAt(), position.id(), limit);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new TicketPageDTO(rows, null);
+        }
+        List<TicketSummaryDTO> page = rows.subList(0, pageSize);
+        TicketSummaryDTO last = page.get(page.size() - 1);
+        return new TicketPageDTO(page, encodeCursor(last.getCreatedAt(), last.getId()));
+    }
+
+    // --- Agent queue page ---
+    // Three statements per page whatever its size: rows, total count, and all responses of the page
+    // assignedAgentId limits the page to one agent's routed tickets (null = every ticket)
+    public Page<AgentTicketRowDTO> agentQueue(Integer page, Integer size, Long assignedAgentId) {
+        int pageNumber = page == null || page < 0 ? 0 : page;
+        Page<AgentTicketRowDTO> rows = ticketRepository.findAgentQueue(assignedAgentId,
+                PageRequest.of(pageNumber, clampPageSize(size)));
+        if (rows.isEmpty()) {
+            return rows;
+        }
+
+        List<Long> ticketIds = rows.getContent().stream().map(AgentTicketRowDTO::getId).toList();
+        Map<Long, List<AgentResponseRowDTO>> responsesByTicket = agentResponseRepository
+                .findRowsByTicketIds(ticketIds).stream()
+                .collect(Collectors.groupingBy(AgentResponseRowDTO::getTicketId));
+
+        rows.getContent().forEach(row -> {
+            List<AgentResponseRowDTO> responses = responsesByTicket.getOrDefault(row.getId(), List.of());
+            row.setResponses(responses);
+            row.setResponseCount(responses.size());
+            // Responses arrive ordered by createdAt, so the last one is the latest
+            row.setLatestResponseAt(responses.isEmpty() ? null : responses.get(responses.size() - 1).getCreatedAt());
+        });
+        return rows;
+    }
+
+    // --- Cursor encoding (opaque to clients) ---
+    static String encodeCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static int clampPageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    record Cursor(LocalDateTime createdAt, Long id) {}
+}
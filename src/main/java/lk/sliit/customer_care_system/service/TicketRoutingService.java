@@ -0,0 +1,401 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.AgentTicketRowDTO;
+import lk.sliit.customer_care_system.modelentity.Ticket;
+import lk.sliit.customer_care_system.modelentity.User;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import lk.sliit.customer_care_system.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Routes new tickets to the least-loaded online agent who can handle the ticket's category.
+ *
+ * Each category has a skill queue of specialist agents and every agent without configured
+ * skills sits in a shared generalist queue. Queues are TreeSets ordered by open load, so picking
+ * an agent and re-queuing it after its load changes are O(log n). Skills are read from
+ * {@code ticket.routing.agent-skills.<username>=Technical,Billing}.
+ *
+ * Loads live in memory; they are rebuilt from the database on startup and on a fixed schedule.
+ */
+@Service
+public class TicketRoutingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketRoutingService.class);
+
+    // Statuses that count towards an agent's load
+    public static final List<String> OPEN_STATUSES = List.of("Open", "In Progress");
+    static final int MAX_BACKLOG = 200;
+
+    private static final Comparator<AgentSlot> BY_LOAD =
+            Comparator.comparingInt((AgentSlot slot) -> slot.load).thenComparingLong(slot -> slot.agentId);
+
+    @Autowired private TicketRepository ticketRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private Environment environment;
+
+    // All known agents, online or not
+    private final Map<Long, AgentSlot> agents = new HashMap<>();
+    // Online agents without skills, they take any category
+    private final TreeSet<AgentSlot> generalists = new TreeSet<>(BY_LOAD);
+    // Online specialists per category
+    private final Map<String, TreeSet<AgentSlot>> skillQueues = new HashMap<>();
+    // Open ticket id -> assigned agent id, so a closed ticket can release its load
+    private final Map<Long, Long> assignments = new HashMap<>();
+
+    // --- Assignment ---
+
+    /**
+     * Pick an agent for a new ticket and set it on the entity (before it is saved).
+     * Leaves the ticket unassigned when no agent is online. The ticket is reserved against the
+     * agent's load right away, so a burst of submits is spread over the agents instead of all
+     * landing on the one that was least loaded before any of them was stored. The CREATED event
+     * turns the reservation into an assignment; a failed save must call {@link #cancelAssignment}.
+     */
+    public synchronized User assign(Ticket ticket) {
+        AgentSlot slot = pick(ticket.getCategory());
+        if (slot == null) {
+            logger.debug("No online agent for category {}, ticket stays unassigned", ticket.getCategory());
+            return null;
+        }
+        slot.reserved++;
+        changeLoad(slot, 1);
+        User agent = userRepository.getReferenceById(slot.agentId);
+        ticket.setAssignedAgent(agent);
+        return agent;
+    }
+
+    // The ticket picked by assign() was not stored: give the reservation back
+    public synchronized void cancelAssignment(Ticket ticket) {
+        AgentSlot slot = ticket.getAssignedAgent() != null ? agents.get(ticket.getAssignedAgent().getId()) : null;
+        if (slot != null && slot.reserved > 0) {
+            slot.reserved--;
+            changeLoad(slot, -1);
+        }
+    }
+
+    // Specialists of the category compete with generalists; lowest load wins
+    private AgentSlot pick(String category) {
+        TreeSet<AgentSlot> specialists = category != null ? skillQueues.get(category) : null;
+        AgentSlot specialist = specialists == null || specialists.isEmpty() ? null : specialists.first();
+        AgentSlot generalist = generalists.isEmpty() ? null : generalists.first();
+        if (specialist == null) {
+            return generalist;
+        }
+        if (generalist == null) {
+            return specialist;
+        }
+        return BY_LOAD.compare(specialist, generalist) <= 0 ? specialist : generalist;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onTicketChanged(TicketChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> {
+                if (event.assignedAgentId() != null) {
+                    claimReservation(event.ticketId(), event.assignedAgentId());
+                }
+            }
+            // The agent response form sets the status too, usually to Resolved or Closed
+            case STATUS_CHANGED, RESPONDED -> applyStatus(event);
+            case DELETED -> release(event.ticketId());
+            default -> { }
+        }
+    }
+
+    // Closed tickets release their agent; a reopened ticket counts towards its agent again
+    private void applyStatus(TicketChangedEvent event) {
+        if (!OPEN_STATUSES.contains(event.status())) {
+            release(event.ticketId());
+            return;
+        }
+        if (assignments.containsKey(event.ticketId())) {
+            return;
+        }
+        Long agentId = event.assignedAgentId() != null ? event.assignedAgentId() : assignedAgentOf(event.ticketId());
+        if (agentId != null) {
+            hold(event.ticketId(), agentId);
+        }
+    }
+
+    // Bulk status changes carry no agent; read it from the ticket row
+    private Long assignedAgentOf(Long ticketId) {
+        return ticketRepository.findIndexRowById(ticketId).stream()
+                .map(AgentTicketRowDTO::getAssignedAgentUsername)
+                .filter(Objects::nonNull)
+                .flatMap(username -> agents.values().stream().filter(slot -> slot.username.equals(username)))
+                .map(slot -> slot.agentId)
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Load was already counted by assign(); tickets created without it are held normally
+    private void claimReservation(Long ticketId, Long agentId) {
+        AgentSlot slot = agents.get(agentId);
+        if (slot != null && slot.reserved > 0) {
+            slot.reserved--;
+            if (assignments.putIfAbsent(ticketId, agentId) != null) {
+                changeLoad(slot, -1); // a rebuild already counted the stored ticket
+            }
+            return;
+        }
+        hold(ticketId, agentId);
+    }
+
+    private void hold(Long ticketId, Long agentId) {
+        Long previous = assignments.put(ticketId, agentId);
+        if (agentId.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            AgentSlot old = agents.get(previous);
+            if (old != null && old.load > 0) {
+                changeLoad(old, -1);
+            }
+        }
+        AgentSlot slot = agents.get(agentId);
+        if (slot != null) {
+            changeLoad(slot, 1);
+        }
+    }
+
+    private void release(Long ticketId) {
+        Long agentId = assignments.remove(ticketId);
+        AgentSlot slot = agentId != null ? agents.get(agentId) : null;
+        if (slot != null && slot.load > 0) {
+            changeLoad(slot, -1);
+        }
+    }
+
+    // --- Availability ---
+
+    /**
+     * Take an agent out of routing and move their open tickets to the remaining online agents.
+     * Tickets nobody can take are left unassigned and handed out when an agent comes online.
+     */
+    @Transactional
+    public synchronized int goOffline(Long agentId) {
+        AgentSlot slot = agents.get(agentId);
+        if (slot == null) {
+            throw new IllegalArgumentException("Unknown agent: " + agentId);
+        }
+        dequeue(slot);
+        slot.online = false;
+
+        List<Ticket> open = ticketRepository.findByAssignedAgent_IdAndStatusIn(agentId, OPEN_STATUSES);
+        int moved = 0;
+        for (Ticket ticket : open) {
+            assignments.remove(ticket.getId());
+            AgentSlot target = pick(ticket.getCategory());
+            if (target != null) {
+                changeLoad(target, 1);
+                ticket.setAssignedAgent(userRepository.getReferenceById(target.agentId));
+                assignments.put(ticket.getId(), target.agentId);
+                moved++;
+            } else {
+                ticket.setAssignedAgent(null);
+            }
+        }
+        ticketRepository.saveAll(open);
+        slot.load = 0;
+        logger.info("Agent {} went offline, {} of {} open tickets reassigned", slot.username, moved, open.size());
+        return moved;
+    }
+
+    /**
+     * Put an agent back into routing and hand out the oldest unassigned open tickets.
+     */
+    @Transactional
+    public synchronized int goOnline(Long agentId) {
+        AgentSlot slot = agents.get(agentId);
+        if (slot == null) {
+            throw new IllegalArgumentException("Unknown agent: " + agentId);
+        }
+        if (!slot.online) {
+            slot.online = true;
+            enqueue(slot);
+        }
+        return assignBacklog();
+    }
+
+    // Oldest unassigned open tickets go to the least-loaded online agents
+    private int assignBacklog() {
+        List<Ticket> backlog = ticketRepository.findByAssignedAgentIsNullAndStatusInOrderByCreatedAtAsc(
+                OPEN_STATUSES, PageRequest.of(0, MAX_BACKLOG));
+        int assigned = 0;
+        for (Ticket ticket : backlog) {
+            AgentSlot target = pick(ticket.getCategory());
+            if (target == null) {
+                continue;
+            }
+            changeLoad(target, 1);
+            ticket.setAssignedAgent(userRepository.getReferenceById(target.agentId));
+            assignments.put(ticket.getId(), target.agentId);
+            assigned++;
+        }
+        ticketRepository.saveAll(backlog);
+        return assigned;
+    }
+
+    // Agent account is about to be deleted: reassign open work, then drop remaining references
+    @Transactional
+    public void removeAgent(Long agentId) {
+        synchronized (this) {
+            if (agents.containsKey(agentId)) {
+                goOffline(agentId);
+                agents.remove(agentId);
+            }
+        }
+        ticketRepository.clearAssignedAgent(agentId);
+    }
+
+    // New agent accounts join routing immediately
+    public synchronized void registerAgent(User agent) {
+        if (agents.containsKey(agent.getId())) {
+            return;
+        }
+        AgentSlot slot = new AgentSlot(agent.getId(), agent.getUsername(), skillsOf(agent.getUsername()));
+        agents.put(slot.agentId, slot);
+        enqueue(slot);
+    }
+
+    public synchronized List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        agents.values().stream().sorted(BY_LOAD).forEach(slot -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("agentId", slot.agentId);
+            row.put("username", slot.username);
+            row.put("online", slot.online);
+            row.put("openLoad", slot.load);
+            row.put("skills", slot.skills.isEmpty() ? List.of("*") : slot.skills);
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    // --- Rebuild from the database ---
+
+    // Tickets created before routing existed (or while nobody was online) are assigned here
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onStartup() {
+        rebuild();
+        try {
+            int assigned = assignBacklog();
+            if (assigned > 0) {
+                logger.info("Routed {} previously unassigned tickets", assigned);
+            }
+        } catch (Exception e) {
+            logger.warn("Routing unassigned tickets failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ticket.routing.rebuild-interval-ms:300000}",
+            initialDelayString = "${ticket.routing.rebuild-interval-ms:300000}")
+    public synchronized void rebuild() {
+        try {
+            Map<Long, Boolean> wasOnline = new HashMap<>();
+            Map<Long, Integer> reserved = new HashMap<>();
+            agents.values().forEach(slot -> {
+                wasOnline.put(slot.agentId, slot.online);
+                reserved.put(slot.agentId, slot.reserved);
+            });
+
+            agents.clear();
+            generalists.clear();
+            skillQueues.clear();
+            assignments.clear();
+
+            for (User agent : userRepository.findAllByRole("ROLE_AGENT")) {
+                AgentSlot slot = new AgentSlot(agent.getId(), agent.getUsername(), skillsOf(agent.getUsername()));
+                slot.online = wasOnline.getOrDefault(slot.agentId, true);
+                // Tickets picked but not stored yet are not in the table
+                slot.reserved = reserved.getOrDefault(slot.agentId, 0);
+                slot.load = slot.reserved;
+                agents.put(slot.agentId, slot);
+            }
+            for (Object[] row : ticketRepository.findAssignments(OPEN_STATUSES)) {
+                Long ticketId = (Long) row[0];
+                Long agentId = (Long) row[1];
+                assignments.put(ticketId, agentId);
+                AgentSlot slot = agents.get(agentId);
+                if (slot != null) {
+                    slot.load++;
+                }
+            }
+            agents.values().stream().filter(slot -> slot.online).forEach(this::enqueue);
+            logger.debug("Ticket routing rebuilt: {} agents, {} open assignments", agents.size(), assignments.size());
+        } catch (Exception e) {
+            logger.warn("Ticket routing rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    // --- Queue maintenance (callers hold the monitor) ---
+
+    // A slot's sort key must not change while it is inside a TreeSet
+    private void changeLoad(AgentSlot slot, int delta) {
+        boolean queued = slot.online;
+        if (queued) {
+            dequeue(slot);
+        }
+        slot.load += delta;
+        if (queued) {
+            enqueue(slot);
+        }
+    }
+
+    private void enqueue(AgentSlot slot) {
+        if (slot.skills.isEmpty()) {
+            generalists.add(slot);
+        } else {
+            slot.skills.forEach(skill -> skillQueues.computeIfAbsent(skill, k -> new TreeSet<>(BY_LOAD)).add(slot));
+        }
+    }
+
+    private void dequeue(AgentSlot slot) {
+        if (slot.skills.isEmpty()) {
+            generalists.remove(slot);
+        } else {
+            slot.skills.forEach(skill -> {
+                TreeSet<AgentSlot> queue = skillQueues.get(skill);
+                if (queue != null) {
+                    queue.remove(slot);
+                }
+            });
+        }
+    }
+
+    private List<String> skillsOf(String username) {
+        String configured = environment.getProperty("ticket.routing.agent-skills." + username, "");
+        return Arrays.stream(configured.split(","))
+                .map(String::trim)
+                .filter(skill -> !skill.isEmpty())
+                .toList();
+    }
+
+    private static final class AgentSlot {
+        private final Long agentId;
+        private final String username;
+        private final List<String> skills;
+        private int load;
+        // Picked by assign() but not stored yet (included in load)
+        private int reserved;
+        private boolean online = true;
+
+        private AgentSlot(Long agentId, String username, List<String> skills) {
+            this.agentId = agentId;
+            this.username = username;
+            this.skills = skills;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package lk.sliit.customer_care_system.service;
+
+import jakarta.annotation.PreDestroy;
+import lk.sliit.customer_care_system.dto.AgentTicketRowDTO;
+import lk.sliit.customer_care_system.dto.TicketSearchHitDTO;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import lk.sliit.customer_care_system.repository.TicketTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-memory inverted index over ticket title, description and category with BM25 ranking.
+ *
+ * The index is built once from the database (or from an optional snapshot file plus the
+ * changes since it was written) and then kept current from {@link TicketChangedEvent}s,
+ * so searches never touch SQL Server. Title and category terms are weighted above
+ * description terms.
+ */
+@Service
+public class TicketSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketSearchService.class);
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    static final int TITLE_WEIGHT = 3;
+    static final int CATEGORY_WEIGHT = 2;
+    static final int DESCRIPTION_WEIGHT = 1;
+    static final int BUILD_BATCH_SIZE = 1000;
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int SNAPSHOT_MAGIC = 0x54534958; // "TSIX"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "have", "i", "in",
+            "is", "it", "its", "my", "of", "on", "or", "our", "that", "the", "this", "to", "was",
+            "we", "were", "with", "you", "your");
+
+    @Autowired private TicketRepository ticketRepository;
+    @Autowired private TicketTombstoneRepository ticketTombstoneRepository;
+    @Autowired private TicketChangeService ticketChangeService;
+
+    // Empty = keep the index in memory only
+    @Value("${tickets.search.snapshot-path:}")
+    private String snapshotPath;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> (ticket id -> weighted term frequency)
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, IndexedTicket> documents = new HashMap<>();
+    private long totalLength = 0;
+    private volatile boolean ready = false;
+
+    // --- Search ---
+
+    public List<TicketSearchHitDTO> search(String query, String status, String category, Integer limit) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        String statusFilter = status == null || status.isBlank() ? null : status;
+        String categoryFilter = category == null || category.isBlank() ? null : category;
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documentCount;
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> postingList = postings.get(term);
+                if (postingList == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - postingList.size() + 0.5) / (postingList.size() + 0.5));
+                for (Map.Entry<Long, Integer> posting : postingList.entrySet()) {
+                    IndexedTicket doc = documents.get(posting.getKey());
+                    if (!matches(doc, statusFilter, categoryFilter)) {
+                        continue;
+                    }
+                    double tf = posting.getValue();
+                    double norm = K1 * (1 - B + B * doc.length / averageLength);
+                    scores.merge(posting.getKey(), idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            // Keep only the best `max` hits (min-heap on score, newest ticket wins ties)
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(
+                    Map.Entry.<Long, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > max) {
+                    top.poll();
+                }
+            }
+
+            List<TicketSearchHitDTO> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<Long, Double> entry = top.poll();
+                IndexedTicket doc = documents.get(entry.getKey());
+                hits.add(new TicketSearchHitDTO(doc.id, doc.title, doc.category, doc.status, doc.createdAt,
+                        doc.ownerUsername, Math.round(entry.getValue() * 1000) / 1000.0));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean matches(IndexedTicket doc, String status, String category) {
+        return doc != null
+                && (status == null || status.equals(doc.status))
+                && (category == null || category.equals(doc.category));
+    }
+
+    // --- Incremental maintenance ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketChanged(TicketChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> ticketRepository.findIndexRowById(event.ticketId()).forEach(this::index);
+            // A response can move the ticket to a new status as well
+            case STATUS_CHANGED, RESPONDED -> updateStatus(event.ticketId(), event.status());
+            case DELETED -> remove(event.ticketId());
+        }
+    }
+
+    void index(AgentTicketRowDTO row) {
+        IndexedTicket doc = new IndexedTicket(row.getId(), row.getTitle(), row.getDescription(), row.getCategory(),
+                row.getStatus(), row.getCreatedAt(), row.getOwnerUsername());
+        lock.writeLock().lock();
+        try {
+            removeLocked(doc.id);
+            documents.put(doc.id, doc);
+            doc.termFrequencies.forEach((term, tf) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(doc.id, tf));
+            totalLength += doc.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long ticketId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(ticketId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long ticketId) {
+        IndexedTicket previous = documents.remove(ticketId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.termFrequencies.keySet()) {
+            Map<Long, Integer> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(ticketId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= previous.length;
+    }
+
+    private void updateStatus(Long ticketId, String status) {
+        lock.writeLock().lock();
+        try {
+            IndexedTicket doc = documents.get(ticketId);
+            if (doc != null && status != null) {
+                doc.status = status;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Build / snapshot ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            if (!loadSnapshot()) {
+                rebuild();
+            }
+            ready = true;
+        } catch (Exception e) {
+            logger.warn("Ticket search index build failed: {}", e.getMessage());
+        }
+    }
+
+    // Full scan in id order, one batch at a time
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long lastId = 0;
+        List<AgentTicketRowDTO> batch;
+        do {
+            batch = ticketRepository.findIndexRowsAfter(lastId, PageRequest.of(0, BUILD_BATCH_SIZE));
+            batch.forEach(this::index);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == BUILD_BATCH_SIZE);
+        logger.info("Ticket search index built: {} tickets, {} terms", documents.size(), postings.size());
+    }
+
+    @Scheduled(fixedDelayString = "${tickets.search.snapshot-interval-ms:600000}",
+            initialDelayString = "${tickets.search.snapshot-interval-ms:600000}")
+    public void scheduledSnapshot() {
+        if (ready) {
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void onShutdown() {
+        if (ready) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Write every indexed ticket plus the ticket-table watermark to the snapshot file.
+     * Postings are not stored; they are cheap to rebuild from the documents in memory.
+     */
+    void writeSnapshot() {
+        if (snapshotPath == null || snapshotPath.isBlank()) {
+            return;
+        }
+        Path target = Paths.get(snapshotPath);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            // Watermark first: anything that changes while we write is replayed on the next load
+            TicketChangeService.Watermark watermark = ticketChangeService.currentWatermark();
+            List<IndexedTicket> docs;
+            lock.readLock().lock();
+            try {
+                docs = new ArrayList<>(documents.values());
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                writeNullable(out, watermark.maxUpdatedAt() != null ? watermark.maxUpdatedAt().toString() : null);
+                out.writeLong(watermark.maxTombstoneId());
+                out.writeInt(docs.size());
+                for (IndexedTicket doc : docs) {
+                    out.writeLong(doc.id);
+                    writeNullable(out, doc.title);
+                    writeNullable(out, doc.description);
+                    writeNullable(out, doc.category);
+                    writeNullable(out, doc.status);
+                    writeNullable(out, doc.createdAt != null ? doc.createdAt.toString() : null);
+                    writeNullable(out, doc.ownerUsername);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Ticket search snapshot written: {} tickets", docs.size());
+        } catch (IOException e) {
+            logger.warn("Could not write ticket search snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Load the snapshot and replay changes made after it was written.
+     * Returns false when there is no usable snapshot and a full rebuild is needed.
+     */
+    boolean loadSnapshot() {
+        if (snapshotPath == null || snapshotPath.isBlank() || !Files.exists(Paths.get(snapshotPath))) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(Paths.get(snapshotPath)))))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return false;
+            }
+            String maxUpdatedAt = readNullable(in);
+            long maxTombstoneId = in.readLong();
+            LocalDateTime since = maxUpdatedAt != null ? LocalDateTime.parse(maxUpdatedAt) : null;
+
+            // Deletions whose tombstones were pruned since the snapshot can no longer be replayed
+            if (!ticketChangeService.canReplayDeletionsAfter(maxTombstoneId)) {
+                return false;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                AgentTicketRowDTO row = new AgentTicketRowDTO(in.readLong(), readNullable(in), readNullable(in),
+                        readNullable(in), readNullable(in), null, null, null);
+                String createdAt = readNullable(in);
+                row.setCreatedAt(createdAt != null ? LocalDateTime.parse(createdAt) : null);
+                row.setOwnerUsername(readNullable(in));
+                index(row);
+            }
+
+            List<AgentTicketRowDTO> changed = since != null
+                    ? ticketRepository.findIndexRowsChangedSince(since.minus(TicketChangeService.OVERLAP))
+                    : List.of();
+            changed.forEach(this::index);
+            List<Long> deleted = ticketTombstoneRepository.findTicketIdsAfter(maxTombstoneId);
+            deleted.forEach(this::remove);
+            logger.info("Ticket search index loaded from snapshot: {} tickets (+{} changed, -{} deleted)",
+                    count, changed.size(), deleted.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable ticket search snapshot {}: {}", snapshotPath, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // --- Tokenizing ---
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class IndexedTicket {
+        private final Long id;
+        private final String title;
+        private final String description;
+        private final String category;
+        private volatile String status;
+        private final LocalDateTime createdAt;
+        private final String ownerUsername;
+        private final Map<String, Integer> termFrequencies = new HashMap<>();
+        private final int length;
+
+        private IndexedTicket(Long id, String title, String description, String category, String status,
+                              LocalDateTime createdAt, String ownerUsername) {
+            this.id = id;
+            this.title = title;
+            this.description = description;
+            this.category = category;
+            this.status = status;
+            this.createdAt = createdAt;
+            this.ownerUsername = ownerUsername;
+            this.length = count(title, TITLE_WEIGHT) + count(category, CATEGORY_WEIGHT)
+                    + count(description, DESCRIPTION_WEIGHT);
+        }
+
+        private int count(String text, int weight) {
+            List<String> tokens = tokenize(text);
+            tokens.forEach(token -> termFrequencies.merge(token, weight, Integer::sum));
+            return tokens.size() * weight;
+        }
+    }
+}
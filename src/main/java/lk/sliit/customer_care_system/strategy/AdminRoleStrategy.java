@@ -2,6 +2,7 @@ package lk.sliit.customer_care_system.strategy;
 
 import lk.sliit.customer_care_system.modelentity.User;
 import lk.sliit.customer_care_system.repository.*;
+import lk.sliit.customer_care_system.service.OperationalCounters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -15,16 +16,7 @@ import java.util.*;
 public class AdminRoleStrategy implements UserRoleStrategy {
 
     @Autowired
-    private lk.sliit.customer_care_system.repository.UserRepository userRepository;
-
-    @Autowired
-    private lk.sliit.customer_care_system.repository.TicketRepository ticketRepository;
-
-    @Autowired
-    private lk.sliit.customer_care_system.repository.FeedbackRepository feedbackRepository;
-
-    @Autowired
-    private lk.sliit.customer_care_system.repository.FAQRepository faqRepository;
+    private OperationalCounters operationalCounters;
 
     @Override
     public String getRoleName() {
@@ -36,10 +28,10 @@ public class AdminRoleStrategy implements UserRoleStrategy {
         Map<String, Object> dashboardData = new HashMap<>();
 
         // Admin-specific dashboard data
-        dashboardData.put("totalUsers", userRepository.count());
-        dashboardData.put("totalTickets", ticketRepository.count());
-        dashboardData.put("totalFeedbacks", feedbackRepository.count());
-        dashboardData.put("pendingFAQs", faqRepository.findByIsApprovedFalseOrderByCreatedAtDesc().size());
+        dashboardData.put("totalUsers", operationalCounters.get(OperationalCounters.USERS_TOTAL));
+        dashboardData.put("totalTickets", operationalCounters.get(OperationalCounters.TICKETS_TOTAL));
+        dashboardData.put("totalFeedbacks", operationalCounters.get(OperationalCounters.FEEDBACK_TOTAL));
+        dashboardData.put("pendingFAQs", operationalCounters.get(OperationalCounters.FAQ_PENDING));
         dashboardData.put("userRole", "Admin");
         dashboardData.put("canManageUsers", true);
         dashboardData.put("canManageTickets", true);
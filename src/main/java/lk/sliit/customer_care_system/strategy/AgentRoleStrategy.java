@@ -2,6 +2,8 @@ package lk.sliit.customer_care_system.strategy;
 
 import lk.sliit.customer_care_system.modelentity.User;
 import lk.sliit.customer_care_system.repository.*;
+import lk.sliit.customer_care_system.service.OperationalCounters;
+import lk.sliit.customer_care_system.service.TicketRoutingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -15,13 +17,10 @@ import java.util.*;
 public class AgentRoleStrategy implements UserRoleStrategy {
 
     @Autowired
-    private lk.sliit.customer_care_system.repository.TicketRepository ticketRepository;
+    private OperationalCounters operationalCounters;
 
     @Autowired
-    private lk.sliit.customer_care_system.repository.FeedbackRepository feedbackRepository;
-
-    @Autowired
-    private lk.sliit.customer_care_system.repository.FAQRepository faqRepository;
+    private TicketRepository ticketRepository;
 
     @Override
     public String getRoleName() {
@@ -33,10 +32,11 @@ public class AgentRoleStrategy implements UserRoleStrategy {
         Map<String, Object> dashboardData = new HashMap<>();
 
         // Agent-specific dashboard data
-        dashboardData.put("assignedTickets", ticketRepository.count());
-        dashboardData.put("totalTickets", ticketRepository.count());
-        dashboardData.put("pendingFeedbacks", feedbackRepository.countByStatus("New"));
-        dashboardData.put("pendingFAQs", faqRepository.findByIsApprovedFalseOrderByCreatedAtDesc().size());
+        dashboardData.put("assignedTickets",
+                ticketRepository.countByAssignedAgentAndStatusIn(user, TicketRoutingService.OPEN_STATUSES));
+        dashboardData.put("totalTickets", operationalCounters.get(OperationalCounters.TICKETS_TOTAL));
+        dashboardData.put("pendingFeedbacks", operationalCounters.get(OperationalCounters.feedbackStatus("New")));
+        dashboardData.put("pendingFAQs", operationalCounters.get(OperationalCounters.FAQ_PENDING));
         dashboardData.put("userRole", "Agent");
         dashboardData.put("canManageTickets", true);
         dashboardData.put("canManageFeedbacks", true);
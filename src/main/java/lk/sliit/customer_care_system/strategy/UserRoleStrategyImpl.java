@@ -30,10 +30,9 @@ public class UserRoleStrategyImpl implements lk.sliit.customer_care_system.strat
         Map<String, Object> dashboardData = new HashMap<>();
 
         // User-specific dashboard data
-        dashboardData.put("myTickets", ticketRepository.findByUser(user).size());
-        dashboardData.put("openTickets", ticketRepository.findByUser(user).stream()
-                .filter(ticket -> "Open".equals(ticket.getStatus())).count());
-        dashboardData.put("myFeedbacks", feedbackRepository.findByUser(user).size());
+        dashboardData.put("myTickets", ticketRepository.countByUser(user));
+        dashboardData.put("openTickets", ticketRepository.countByUserAndStatus(user, "Open"));
+        dashboardData.put("myFeedbacks", feedbackRepository.countByUser(user));
         dashboardData.put("userRole", "User");
         dashboardData.put("canCreateTickets", true);
         dashboardData.put("canCreateFeedbacks", true);
@@ -0,0 +1,72 @@
+// Decodes chat topic frames, JSON or the compact encoding (see CompactChatEncoding.java).
+// Connect with ChatCodec.connectHeaders() to ask for compact frames; ChatCodec.decode(msg) in subscriptions.
+const ChatCodec = (() => {
+  const CONTENT_TYPE = 'application/x-chat-compact';
+  const SENDER_TYPES = { U: 'USER', A: 'AGENT', S: 'SYSTEM' };
+
+  // Sender id -> username; the server sends each username once per connection
+  const senders = {};
+
+  function decode(msg) {
+    const contentType = msg.headers['content-type'] || '';
+    if (!contentType.startsWith(CONTENT_TYPE)) {
+      return JSON.parse(msg.body);
+    }
+    return decodeCompact(msg.body, msg.headers.destination);
+  }
+
+  // M<id>;<messageKey>;<sender>;<type>;<createdAt>;<flags>;<length>:<content>[;<seq>]
+  function decodeCompact(body, destination) {
+    let pos = 1; // after 'M'
+
+    const field = () => {
+      const end = body.indexOf(';', pos);
+      const value = body.substring(pos, end);
+      pos = end + 1;
+      return value;
+    };
+    const number = value => value === '' ? null : parseInt(value, 36);
+    const string = () => {
+      const colon = body.indexOf(':', pos);
+      const length = parseInt(body.substring(pos, colon), 36);
+      pos = colon + 1 + length;
+      return body.substring(colon + 1, pos);
+    };
+
+    const id = number(field());
+    const messageKey = number(field());
+
+    // <id>, <id>=<length>:<username> or =<length>:<username>
+    let end = pos;
+    while (body[end] !== ';' && body[end] !== '=') end++;
+    const senderId = number(body.substring(pos, end));
+    pos = end;
+    let senderUsername = senderId != null ? (senders[senderId] ?? null) : null;
+    if (body[pos] === '=') {
+      pos++;
+      senderUsername = string();
+      if (senderId != null) senders[senderId] = senderUsername;
+    }
+    pos++; // ';'
+
+    const senderType = SENDER_TYPES[field()];
+    const createdAt = number(field());
+    const flags = parseInt(field(), 10);
+    const content = string();
+    const seq = body[pos] === ';' ? number(body.substring(pos + 1)) : null;
+
+    return {
+      id, messageKey, seq, senderId, senderUsername, senderType, content,
+      createdAt: createdAt != null ? new Date(createdAt) : null,
+      isEdited: (flags & 1) !== 0,
+      isDeleted: (flags & 2) !== 0,
+      sessionId: destination ? destination.substring(destination.lastIndexOf('/') + 1) : null
+    };
+  }
+
+  return {
+    // Fresh object each time: stomp.js adds its own headers to the one it is given
+    connectHeaders: () => ({ 'chat-encoding': 'compact-1' }),
+    decode
+  };
+})();
@@ -0,0 +1,50 @@
+// Typing indicators: sends start/stop for a message input and renders "x is typing…" from typing frames.
+// The server coalesces these (see ChatPresenceService), so the client only needs to be roughly right.
+const ChatTyping = (() => {
+  const REFRESH_MS = 2000; // re-send "typing" while typing; below the server's typing TTL
+  const IDLE_MS = 3000;    // "stopped" after this long without a keystroke
+
+  function attach(input, getClient, getSessionId) {
+    let lastSent = 0;
+    let idleTimer = null;
+
+    const send = typing => {
+      const client = getClient();
+      const sessionId = getSessionId();
+      if (!client || !client.connected || !sessionId) return;
+      client.send('/app/chat.typing', {}, JSON.stringify({ sessionId, typing }));
+    };
+    const stop = () => {
+      clearTimeout(idleTimer);
+      idleTimer = null;
+      if (lastSent) {
+        lastSent = 0;
+        send(false);
+      }
+    };
+
+    input.addEventListener('input', () => {
+      if (input.value.trim() === '') {
+        stop();
+        return;
+      }
+      const now = Date.now();
+      if (now - lastSent > REFRESH_MS) {
+        lastSent = now;
+        send(true);
+      }
+      clearTimeout(idleTimer);
+      idleTimer = setTimeout(stop, IDLE_MS);
+    });
+    input.addEventListener('blur', stop);
+    return { stop };
+  }
+
+  function render(element, users, self) {
+    const others = users.filter(u => u !== self);
+    element.textContent = others.length === 0 ? ''
+      : others.join(', ') + (others.length === 1 ? ' is typing…' : ' are typing…');
+  }
+
+  return { attach, render };
+})();
@@ -0,0 +1,96 @@
+package lk.sliit.customer_care_system.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatPresenceRegistryTest {
+
+    @Test
+    void tracksParticipantsPerChatSession() {
+        ChatPresenceRegistry registry = new ChatPresenceRegistry(60_000);
+        connect(registry, "ws-1", "alice", "ROLE_USER");
+        connect(registry, "ws-2", "bob", "ROLE_AGENT");
+        connect(registry, "ws-3", "alice", "ROLE_USER"); // second tab
+        subscribe(registry, "ws-1", "sub-0", "/topic/chat/s-1");
+        subscribe(registry, "ws-2", "sub-0", "/topic/chat/s-1");
+        subscribe(registry, "ws-3", "sub-0", "/topic/chat/s-1");
+        subscribe(registry, "ws-3", "sub-1", "/topic/tickets");
+
+        assertEquals(Set.of("s-1"), registry.drainChanged());
+        List<ChatPresenceRegistry.Participant> participants = registry.participants("s-1");
+        assertEquals(2, participants.size());
+        assertTrue(participants.stream().anyMatch(p -> p.username().equals("bob") && p.staff() && p.online()));
+        assertTrue(registry.isWatching("ws-2", "s-1"));
+
+        frame(registry, StompCommand.UNSUBSCRIBE, "ws-2", "sub-0", null);
+        frame(registry, StompCommand.DISCONNECT, "ws-1", null, null);
+
+        assertEquals(Set.of("s-1"), registry.drainChanged());
+        assertEquals(List.of("alice"), registry.participants("s-1").stream()
+                .map(ChatPresenceRegistry.Participant::username).toList());
+        assertFalse(registry.isWatching("ws-2", "s-1"));
+        assertTrue(registry.drainChanged().isEmpty());
+    }
+
+    @Test
+    void silentConnectionsGoOfflineUntilHeardFromAgain() throws Exception {
+        ChatPresenceRegistry registry = new ChatPresenceRegistry(50);
+        connect(registry, "ws-1", "alice", "ROLE_USER");
+        subscribe(registry, "ws-1", "sub-0", "/topic/chat/s-1");
+        registry.drainChanged();
+
+        Thread.sleep(80);
+        assertEquals(Set.of("s-1"), registry.drainChanged());
+        assertFalse(registry.participants("s-1").get(0).online());
+
+        StompHeaderAccessor heartbeat = StompHeaderAccessor.createForHeartbeat();
+        heartbeat.setSessionId("ws-1");
+        registry.preSend(MessageBuilder.createMessage(new byte[0], heartbeat.getMessageHeaders()), null);
+
+        assertTrue(registry.participants("s-1").get(0).online());
+        assertEquals(Set.of("s-1"), registry.drainChanged());
+    }
+
+    @Test
+    void typingIsRateLimitedPerConnection() {
+        ChatPresenceRegistry registry = new ChatPresenceRegistry(60_000);
+        connect(registry, "ws-1", "alice", "ROLE_USER");
+
+        assertTrue(registry.tryAcquireTyping("ws-1", 10_000));
+        assertFalse(registry.tryAcquireTyping("ws-1", 10_000));
+        assertFalse(registry.tryAcquireTyping("unknown", 10_000));
+    }
+
+    private static void connect(ChatPresenceRegistry registry, String id, String username, String role) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(id);
+        accessor.setUser(new UsernamePasswordAuthenticationToken(username, null, List.of(new SimpleGrantedAuthority(role))));
+        registry.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private static void subscribe(ChatPresenceRegistry registry, String id, String subscriptionId, String destination) {
+        frame(registry, StompCommand.SUBSCRIBE, id, subscriptionId, destination);
+    }
+
+    private static void frame(ChatPresenceRegistry registry, StompCommand command, String id,
+                              String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(id);
+        if (subscriptionId != null) {
+            accessor.setSubscriptionId(subscriptionId);
+        }
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        registry.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+}
@@ -0,0 +1,126 @@
+package lk.sliit.customer_care_system.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lk.sliit.customer_care_system.dto.ChatMessageDTO;
+import lk.sliit.customer_care_system.modelentity.ChatMessage.SenderType;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactChatEncodingTest {
+
+    // As configured by Spring Boot for the STOMP message converter
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final CompactChatEncoding encoding = new CompactChatEncoding(16);
+
+    @Test
+    void compactConnectionGetsCompactFramesNamingTheSenderEveryTime() throws Exception {
+        connect("compact", "compact-1");
+        LocalDateTime createdAt = LocalDateTime.of(2026, 10, 18, 9, 30, 15, 250_000_000);
+        byte[] json = json(message(7L, 42L, "alice", "hi; a:b", createdAt));
+
+        Message<?> first = send("compact", json);
+        Message<?> second = send("compact", json(message(8L, 43L, "alice", "again", createdAt)));
+
+        long millis = createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        assertEquals("M7;16;9=5:alice;U;" + Long.toString(millis, 36) + ";0;7:hi; a:b", body(first));
+        // Not interned: the frame that named alice first may have been dropped or overtaken
+        assertEquals("M8;17;9=5:alice;U;" + Long.toString(millis, 36) + ";0;5:again", body(second));
+        assertEquals("application/x-chat-compact",
+                StompHeaderAccessor.wrap(first).getFirstNativeHeader("content-type"));
+        assertTrue(body(first).length() < json.length);
+    }
+
+    @Test
+    void jsonConnectionsAndOtherFramesAreUntouched() throws Exception {
+        connect("json", null);
+        connect("compact", "json, compact-1");
+        byte[] json = json(message(7L, 42L, "alice", "hi", LocalDateTime.now()));
+        byte[] ack = json(Map.of("type", "persisted"));
+
+        assertSame(json, send("json", json).getPayload());
+        assertSame(ack, send("compact", ack).getPayload());
+        assertNotSame(json, send("compact", json).getPayload());
+    }
+
+    @Test
+    void sequenceNumberFollowsTheContent() throws Exception {
+        connect("compact", "compact-1");
+        ChatMessageDTO message = message(null, 42L, "alice", "hi;", null);
+        message.setSeq(37L);
+
+        assertEquals("M;16;9=5:alice;U;;0;3:hi;;11", body(send("compact", json(message))));
+    }
+
+    @Test
+    void systemMessagesCarryTheirNameInline() throws Exception {
+        connect("compact", "compact-1");
+        ChatMessageDTO system = new ChatMessageDTO("System", "Chat ended", SenderType.SYSTEM, "s-1");
+        system.setCreatedAt(null);
+
+        assertEquals("M;;=6:System;S;;0;a:Chat ended", body(send("compact", json(system))));
+    }
+
+    @Test
+    void disconnectForgetsTheConnection() throws Exception {
+        connect("compact", "compact-1");
+        StompHeaderAccessor disconnect = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        disconnect.setSessionId("compact");
+        encoding.preSend(MessageBuilder.createMessage(new byte[0], disconnect.getMessageHeaders()), null);
+
+        byte[] json = json(message(7L, 42L, "alice", "hi", LocalDateTime.now()));
+        assertSame(json, send("compact", json).getPayload());
+        assertEquals(0, encoding.stats().get("compactSessions"));
+    }
+
+    private void connect(String sessionId, String encodingHeader) {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(sessionId);
+        if (encodingHeader != null) {
+            connect.setNativeHeader(CompactChatEncoding.ENCODING_HEADER, encodingHeader);
+        }
+        encoding.preSend(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()), null);
+    }
+
+    private Message<?> send(String sessionId, byte[] payload) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setDestination("/topic/chat/s-1");
+        return encoding.preSend(MessageBuilder.createMessage(payload, headers.getMessageHeaders()), null);
+    }
+
+    private static ChatMessageDTO message(Long id, Long key, String sender, String content, LocalDateTime createdAt) {
+        ChatMessageDTO message = new ChatMessageDTO(sender, content, SenderType.USER, "s-1");
+        message.setId(id);
+        message.setMessageKey(key);
+        message.setSenderId(9L);
+        message.setCreatedAt(createdAt);
+        message.setIsEdited(false);
+        message.setIsDeleted(false);
+        return message;
+    }
+
+    private byte[] json(Object value) throws Exception {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    private static String body(Message<?> message) {
+        return new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,154 @@
+package lk.sliit.customer_care_system.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Talks to the embedded broker with Spring's own STOMP TCP client (the codec the relay uses).
+ */
+class EmbeddedStompBrokerTest {
+
+    private EmbeddedStompBroker broker;
+    private ReactorNettyTcpStompClient client;
+    private ThreadPoolTaskScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = new EmbeddedStompBroker(0, 100);
+        broker.start();
+        client = new ReactorNettyTcpStompClient("127.0.0.1", broker.getPort());
+        client.setMessageConverter(new StringMessageConverter());
+        // Receipt tracking needs a scheduler for its timeouts
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.initialize();
+        client.setTaskScheduler(scheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        scheduler.shutdown();
+        broker.stop();
+    }
+
+    @Test
+    void fansOutToEverySubscriberOfTheDestination() throws Exception {
+        BlockingQueue<String> first = new LinkedBlockingQueue<>();
+        BlockingQueue<String> second = new LinkedBlockingQueue<>();
+        BlockingQueue<String> other = new LinkedBlockingQueue<>();
+
+        StompSession subscriberA = connect();
+        StompSession subscriberB = connect();
+        subscriberA.setAutoReceipt(true);
+        subscriberB.setAutoReceipt(true);
+        awaitReceipt(subscriberA.subscribe("/topic/chat/session-1", collector(first)));
+        awaitReceipt(subscriberB.subscribe("/topic/chat/session-1", collector(second)));
+        awaitReceipt(subscriberB.subscribe("/topic/chat/session-2", collector(other)));
+
+        StompSession publisher = connect();
+        publisher.send("/topic/chat/session-1", "hello: world\nline two");
+
+        assertEquals("hello: world\nline two", first.poll(5, TimeUnit.SECONDS));
+        assertEquals("hello: world\nline two", second.poll(5, TimeUnit.SECONDS));
+        assertNull(other.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void unsubscribedAndDisconnectedClientsReceiveNothing() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        StompSession subscriber = connect();
+        subscriber.setAutoReceipt(true);
+        StompSession.Subscription subscription = subscriber.subscribe("/queue/updates", collector(received));
+        awaitReceipt(subscription);
+        subscription.unsubscribe();
+
+        StompSession publisher = connect();
+        publisher.setAutoReceipt(true);
+        awaitReceipt(publisher.send("/queue/updates", "ignored"));
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+
+        subscriber.disconnect();
+        publisher.disconnect();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (broker.connectionCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, broker.connectionCount());
+    }
+
+    @Test
+    void heartBeatsAreNegotiatedAndSent() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", broker.getPort())) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write("CONNECT\naccept-version:1.2\nhost:localhost\nheart-beat:0,150\n\n\0".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            EmbeddedStompBroker.Frame connected = EmbeddedStompBroker.Frame.read(in);
+            assertEquals("CONNECTED", connected.command);
+            assertEquals("100,100", connected.headers.get("heart-beat"));
+
+            // Nothing else is sent on this connection, so the next bytes are heart-beat EOLs
+            long start = System.currentTimeMillis();
+            assertEquals('\n', in.read());
+            assertEquals('\n', in.read());
+            assertTrue(System.currentTimeMillis() - start >= 150, "heart-beats follow the client's interval");
+        }
+    }
+
+    @Test
+    void clientsThatWantNoHeartBeatsGetNone() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", broker.getPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write("CONNECT\naccept-version:1.2\nhost:localhost\nheart-beat:0,0\n\n\0".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            assertEquals("CONNECTED", EmbeddedStompBroker.Frame.read(in).command);
+
+            socket.setSoTimeout(400);
+            assertThrows(SocketTimeoutException.class, in::read);
+        }
+    }
+
+    private StompSession connect() throws Exception {
+        return client.connectAsync(new StompSessionHandlerAdapter() {}).get(5, TimeUnit.SECONDS);
+    }
+
+    private static void awaitReceipt(StompSession.Receiptable receiptable) throws InterruptedException {
+        BlockingQueue<Boolean> done = new LinkedBlockingQueue<>();
+        receiptable.addReceiptTask(() -> done.add(true));
+        receiptable.addReceiptLostTask(() -> done.add(false));
+        assertEquals(Boolean.TRUE, done.poll(5, TimeUnit.SECONDS), "receipt not received");
+    }
+
+    private static StompFrameHandler collector(BlockingQueue<String> sink) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return String.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                sink.add((String) payload);
+            }
+        };
+    }
+}
@@ -0,0 +1,189 @@
+package lk.sliit.customer_care_system.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundSessionGuardTest {
+
+    private OutboundSessionGuard guard;
+
+    @AfterEach
+    void tearDown() {
+        guard.shutdown();
+    }
+
+    @Test
+    void stalledSubscriberDoesNotDelayOthers() throws Exception {
+        guard = new OutboundSessionGuard(2, 50, 1_000_000, 60_000, OutboundSessionGuard.OverflowPolicy.DISCONNECT);
+        Map<String, WebSocketSession> decorated = new ConcurrentHashMap<>();
+        WebSocketHandler handler = guard.decorate(capturing(decorated));
+
+        StubSession stalled = new StubSession("stalled", true);
+        StubSession fastA = new StubSession("fast-a", false);
+        StubSession fastB = new StubSession("fast-b", false);
+        for (StubSession session : List.of(stalled, fastA, fastB)) {
+            handler.afterConnectionEstablished(session);
+        }
+
+        // One outbound thread fans 40 frames out to all three sessions, as the broker would
+        long start = System.nanoTime();
+        for (int i = 0; i < 40; i++) {
+            TextMessage frame = new TextMessage("MESSAGE\ndestination:/topic/chat/s\n\n" + i);
+            for (String id : List.of("stalled", "fast-a", "fast-b")) {
+                decorated.get(id).sendMessage(frame);
+            }
+        }
+        long fanOutMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(fanOutMs < 500, "fan-out blocked for " + fanOutMs + " ms");
+        assertTrue(fastA.awaitFrames(40, 2, TimeUnit.SECONDS), "fast-a got " + fastA.sent.size());
+        assertTrue(fastB.awaitFrames(40, 2, TimeUnit.SECONDS), "fast-b got " + fastB.sent.size());
+        assertEquals(0, stalled.sent.size());
+
+        stalled.release.countDown();
+    }
+
+    @Test
+    void overflowingSubscriberIsDisconnected() throws Exception {
+        guard = new OutboundSessionGuard(2, 5, 1_000_000, 60_000, OutboundSessionGuard.OverflowPolicy.DISCONNECT);
+        Map<String, WebSocketSession> decorated = new ConcurrentHashMap<>();
+        WebSocketHandler handler = guard.decorate(capturing(decorated));
+        StubSession stalled = new StubSession("stalled", true);
+        handler.afterConnectionEstablished(stalled);
+
+        for (int i = 0; i < 10; i++) {
+            decorated.get("stalled").sendMessage(new TextMessage("MESSAGE\n\n" + i));
+        }
+
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, stalled.closeStatus);
+        assertEquals(1L, guard.stats().get("overflowDisconnects"));
+        stalled.release.countDown();
+    }
+
+    @Test
+    void dropPolicyKeepsControlFramesAndNewestMessages() throws Exception {
+        guard = new OutboundSessionGuard(1, 3, 1_000_000, 60_000, OutboundSessionGuard.OverflowPolicy.DROP_OLDEST);
+        Map<String, WebSocketSession> decorated = new ConcurrentHashMap<>();
+        WebSocketHandler handler = guard.decorate(capturing(decorated));
+        StubSession slow = new StubSession("slow", true);
+        handler.afterConnectionEstablished(slow);
+        WebSocketSession session = decorated.get("slow");
+
+        session.sendMessage(new TextMessage("MESSAGE\n\nin-flight"));
+        assertTrue(slow.sending.await(2, TimeUnit.SECONDS));
+        session.sendMessage(new TextMessage("RECEIPT\nreceipt-id:1\n\n"));
+        for (int i = 0; i < 5; i++) {
+            session.sendMessage(new TextMessage("MESSAGE\n\n" + i));
+        }
+        slow.release.countDown();
+
+        assertTrue(slow.awaitFrames(4, 2, TimeUnit.SECONDS));
+        List<String> payloads = slow.sent.stream().map(m -> ((TextMessage) m).getPayload()).toList();
+        assertEquals(List.of("MESSAGE\n\nin-flight", "RECEIPT\nreceipt-id:1\n\n", "MESSAGE\n\n3", "MESSAGE\n\n4"), payloads);
+        assertNull(slow.closeStatus);
+        assertEquals(3L, guard.stats().get("droppedFrames"));
+    }
+
+    @Test
+    void watchdogDisconnectsBlockedSend() throws Exception {
+        guard = new OutboundSessionGuard(1, 100, 1_000_000, 200, OutboundSessionGuard.OverflowPolicy.DISCONNECT);
+        Map<String, WebSocketSession> decorated = new ConcurrentHashMap<>();
+        WebSocketHandler handler = guard.decorate(capturing(decorated));
+        StubSession stalled = new StubSession("stalled", true);
+        handler.afterConnectionEstablished(stalled);
+
+        decorated.get("stalled").sendMessage(new TextMessage("MESSAGE\n\nstuck"));
+
+        assertTrue(stalled.closed.await(2, TimeUnit.SECONDS));
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, stalled.closeStatus);
+        assertEquals(1L, guard.stats().get("slowSendDisconnects"));
+    }
+
+    private static WebSocketHandler capturing(Map<String, WebSocketSession> decorated) {
+        return new AbstractWebSocketHandler() {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) {
+                decorated.put(session.getId(), session);
+            }
+        };
+    }
+
+    /**
+     * Records sent frames; a stalled session blocks every send until released or closed.
+     */
+    private static final class StubSession implements WebSocketSession {
+        private final String id;
+        private final boolean stalls;
+        private final List<WebSocketMessage<?>> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile CloseStatus closeStatus;
+
+        private StubSession(String id, boolean stalls) {
+            this.id = id;
+            this.stalls = stalls;
+        }
+
+        boolean awaitFrames(int count, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (sent.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            return sent.size() >= count;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            sending.countDown();
+            if (stalls) {
+                try {
+                    // A closed socket unblocks a stuck write, like a real transport
+                    while (!release.await(10, TimeUnit.MILLISECONDS) && closeStatus == null) {
+                        Thread.onSpinWait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (closeStatus != null) {
+                    return;
+                }
+            }
+            sent.add(message);
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+            closeStatus = status;
+            closed.countDown();
+        }
+
+        @Override public void close() { close(CloseStatus.NORMAL); }
+        @Override public String getId() { return id; }
+        @Override public URI getUri() { return null; }
+        @Override public HttpHeaders getHandshakeHeaders() { return new HttpHeaders(); }
+        @Override public Map<String, Object> getAttributes() { return new HashMap<>(); }
+        @Override public Principal getPrincipal() { return null; }
+        @Override public InetSocketAddress getLocalAddress() { return null; }
+        @Override public InetSocketAddress getRemoteAddress() { return null; }
+        @Override public String getAcceptedProtocol() { return null; }
+        @Override public void setTextMessageSizeLimit(int messageSizeLimit) { }
+        @Override public int getTextMessageSizeLimit() { return 0; }
+        @Override public void setBinaryMessageSizeLimit(int messageSizeLimit) { }
+        @Override public int getBinaryMessageSizeLimit() { return 0; }
+        @Override public List<WebSocketExtension> getExtensions() { return List.of(); }
+        @Override public boolean isOpen() { return closeStatus == null; }
+    }
+}
@@ -0,0 +1,108 @@
+package lk.sliit.customer_care_system.repository;
+
+import lk.sliit.customer_care_system.modelentity.ChatSession;
+import lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus;
+import lk.sliit.customer_care_system.modelentity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dozens of agents race for the same waiting sessions; the conditional UPDATE must let exactly
+ * one of them win each session. Runs against an in-memory H2 database, outside a test
+ * transaction so every claim commits on its own, as it does in the application.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChatSessionClaimConcurrencyTest {
+
+    private static final int AGENTS = 40;
+    private static final int SESSIONS = 25;
+
+    @Autowired private ChatSessionRepository chatSessionRepository;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void everySessionHasExactlyOneWinner() throws Exception {
+        User customer = userRepository.save(user("customer", "ROLE_USER"));
+        List<User> agents = new ArrayList<>();
+        for (int i = 0; i < AGENTS; i++) {
+            agents.add(userRepository.save(user("agent-" + i, "ROLE_AGENT")));
+        }
+        List<String> sessionIds = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            ChatSession session = new ChatSession("race-" + i, customer);
+            chatSessionRepository.save(session);
+            sessionIds.add(session.getSessionId());
+        }
+
+        Map<String, List<Long>> winners = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(AGENTS);
+        List<Future<?>> runs = new ArrayList<>();
+        for (User agent : agents) {
+            runs.add(pool.submit(() -> {
+                List<String> order = new ArrayList<>(sessionIds);
+                Collections.shuffle(order);
+                start.await();
+                for (String sessionId : order) {
+                    if (chatSessionRepository.claimUnassigned(sessionId, agent) == 1) {
+                        winners.computeIfAbsent(sessionId, k -> new CopyOnWriteArrayList<>()).add(agent.getId());
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> run : runs) {
+            run.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(SESSIONS, winners.size());
+        for (String sessionId : sessionIds) {
+            List<Long> won = winners.get(sessionId);
+            assertEquals(1, won.size(), sessionId + " claimed by " + won);
+            ChatSession stored = chatSessionRepository.findBySessionId(sessionId).orElseThrow();
+            assertEquals(ChatStatus.ACTIVE, stored.getStatus());
+            assertEquals(won.get(0), stored.getAgent().getId());
+        }
+    }
+
+    @Test
+    void closedAndAssignedSessionsCannotBeClaimed() {
+        User customer = userRepository.save(user("closed-customer", "ROLE_USER"));
+        User first = userRepository.save(user("first-agent", "ROLE_AGENT"));
+        User second = userRepository.save(user("second-agent", "ROLE_AGENT"));
+
+        ChatSession closed = new ChatSession("closed-1", customer);
+        closed.setStatus(ChatStatus.CLOSED);
+        chatSessionRepository.save(closed);
+        chatSessionRepository.save(new ChatSession("open-1", customer));
+
+        assertEquals(0, chatSessionRepository.claimUnassigned("closed-1", first));
+        assertEquals(1, chatSessionRepository.claimUnassigned("open-1", first));
+        assertEquals(0, chatSessionRepository.claimUnassigned("open-1", second));
+        assertEquals(first.getId(), chatSessionRepository.findBySessionId("open-1").orElseThrow().getAgent().getId());
+    }
+
+    private static User user(String username, String role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("Passw0rd!");
+        user.setRole(role);
+        user.setPhoneNumber("0771234567");
+        user.setAddress("1 Main Street");
+        return user;
+    }
+}
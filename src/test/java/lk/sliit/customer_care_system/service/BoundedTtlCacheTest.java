@@ -0,0 +1,75 @@
+package lk.sliit.customer_care_system.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedTtlCacheTest {
+
+    @Test
+    void cachesPresentValuesOnly() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("ACTIVE", cache.get("s-1", k -> { loads.incrementAndGet(); return Optional.of("ACTIVE"); }).orElseThrow());
+        assertEquals("ACTIVE", cache.get("s-1", k -> { loads.incrementAndGet(); return Optional.of("other"); }).orElseThrow());
+        assertTrue(cache.get("s-2", k -> { loads.incrementAndGet(); return Optional.empty(); }).isEmpty());
+        assertTrue(cache.get("s-2", k -> { loads.incrementAndGet(); return Optional.empty(); }).isEmpty());
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void expiredEntriesAreLoadedAgain() throws Exception {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(10, Duration.ofMillis(20));
+        cache.put("s-1", 1);
+        Thread.sleep(40);
+
+        assertEquals(2, cache.get("s-1", k -> Optional.of(2)).orElseThrow());
+        assertEquals(1L, cache.stats().get("expirations"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedFirst() {
+        BoundedTtlCache<String, Integer> cache = new BoundedTtlCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a", k -> Optional.empty()); // touch a
+        cache.put("c", 3);
+
+        assertEquals(1, cache.get("a", k -> Optional.of(-1)).orElseThrow());
+        assertEquals(-1, cache.get("b", k -> Optional.of(-1)).orElseThrow());
+    }
+
+    @Test
+    void loadFinishingAfterAnInvalidateIsNotCached() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofMinutes(1));
+
+        // The session is closed (and invalidated) while a send is still reading the old row
+        Optional<String> stale = cache.get("s-1", k -> {
+            cache.invalidate("s-1");
+            return Optional.of("ACTIVE");
+        });
+
+        assertEquals("ACTIVE", stale.orElseThrow()); // the racing caller still gets its read
+        assertEquals("CLOSED", cache.get("s-1", k -> Optional.of("CLOSED")).orElseThrow());
+        assertEquals(1L, cache.stats().get("discardedLoads"));
+    }
+
+    @Test
+    void invalidateIfAlsoDiscardsLoadsInFlight() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofMinutes(1));
+
+        cache.get("s-1", k -> {
+            cache.invalidateIf(value -> true);
+            return Optional.of("stale");
+        });
+
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,93 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.ChatHistoryPageDTO;
+import lk.sliit.customer_care_system.dto.ChatMessageDTO;
+import lk.sliit.customer_care_system.repository.ChatMessageRepository;
+import lk.sliit.customer_care_system.repository.ChatSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatArchiveServiceTest {
+
+    @Mock private ChatSessionRepository chatSessionRepository;
+    @Mock private ChatMessageRepository chatMessageRepository;
+    @Mock private ChatTranscriptArchive chatTranscriptArchive;
+    @Mock private ChatPurgeService chatPurgeService;
+    @InjectMocks private ChatArchiveService archiveService;
+
+    @Test
+    void archivedPagesFollowTheTableCursorRules() throws Exception {
+        // ids 1000..1009
+        when(chatTranscriptArchive.read("s-1")).thenReturn(Optional.of(ChatTranscriptArchiveTest.transcript("s-1", 10)));
+
+        ChatHistoryPageDTO latest = archiveService.historyPage("s-1", null, null, 4);
+        assertEquals(List.of(1006L, 1007L, 1008L, 1009L), ids(latest));
+        assertTrue(latest.isHasMore());
+        assertTrue(latest.isArchived());
+
+        ChatHistoryPageDTO older = archiveService.historyPage("s-1", latest.getOldestId(), null, 4);
+        assertEquals(List.of(1002L, 1003L, 1004L, 1005L), ids(older));
+        assertTrue(older.isHasMore());
+
+        ChatHistoryPageDTO oldest = archiveService.historyPage("s-1", older.getOldestId(), null, 4);
+        assertEquals(List.of(1000L, 1001L), ids(oldest));
+        assertFalse(oldest.isHasMore());
+
+        ChatHistoryPageDTO newer = archiveService.historyPage("s-1", null, 1007L, 4);
+        assertEquals(List.of(1008L, 1009L), ids(newer));
+        assertFalse(newer.isHasMore());
+    }
+
+    @Test
+    void resumeReturnsMessagesAfterTheSequenceNumber() throws Exception {
+        // seq 1..10
+        when(chatTranscriptArchive.read("s-1")).thenReturn(Optional.of(ChatTranscriptArchiveTest.transcript("s-1", 10)));
+
+        ChatHistoryPageDTO first = archiveService.resumePage("s-1", 6, 3);
+        assertEquals(List.of(1006L, 1007L, 1008L), ids(first));
+        assertEquals(9L, first.getNewestSeq());
+        assertTrue(first.isHasMore());
+
+        ChatHistoryPageDTO rest = archiveService.resumePage("s-1", first.getNewestSeq(), 3);
+        assertEquals(List.of(1009L), ids(rest));
+        assertFalse(rest.isHasMore());
+        assertTrue(rest.isArchived());
+    }
+
+    @Test
+    void rowsAreDeletedOnlyAfterTheTranscriptIsStored() throws Exception {
+        List<ChatMessageDTO> rows = ChatTranscriptArchiveTest.transcript("s-2", 3);
+        when(chatMessageRepository.findRowsAfter(eq("s-2"), eq(0L), any())).thenReturn(rows);
+
+        archiveService.archiveSession("s-2");
+
+        InOrder order = inOrder(chatTranscriptArchive, chatSessionRepository, chatPurgeService);
+        order.verify(chatTranscriptArchive).append("s-2", rows);
+        order.verify(chatSessionRepository).markArchived(eq("s-2"), any());
+        order.verify(chatPurgeService).deleteMessages(List.of("s-2"));
+    }
+
+    @Test
+    void nothingIsArchivedWhileTheArchiveIsDisabled() {
+        when(chatTranscriptArchive.isEnabled()).thenReturn(false);
+
+        assertEquals(0, archiveService.archiveClosedSessions());
+        verifyNoInteractions(chatSessionRepository, chatPurgeService);
+    }
+
+    private static List<Long> ids(ChatHistoryPageDTO page) {
+        return page.getMessages().stream().map(ChatMessageDTO::getId).toList();
+    }
+}
@@ -0,0 +1,99 @@
+package lk.sliit.customer_care_system.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatIdGeneratorTest {
+
+    @Test
+    void idsAreUniqueAndOrderedAcrossThreads() throws Exception {
+        ChatIdGenerator generator = new ChatIdGenerator(7, System::currentTimeMillis);
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<List<Long>>> runs = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            runs.add(pool.submit(() -> {
+                List<Long> ids = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.nextId());
+                }
+                return ids;
+            }));
+        }
+        Set<Long> all = new HashSet<>();
+        for (Future<List<Long>> run : runs) {
+            List<Long> ids = run.get(30, TimeUnit.SECONDS);
+            for (int i = 1; i < ids.size(); i++) {
+                assertTrue(ids.get(i) > ids.get(i - 1), "ids from one thread must increase");
+            }
+            all.addAll(ids);
+        }
+        pool.shutdown();
+
+        assertEquals(threads * perThread, all.size());
+        assertTrue(all.stream().allMatch(id -> ChatIdGenerator.nodeOf(id) == 7));
+    }
+
+    @Test
+    void clockGoingBackwardsDoesNotRepeatIds() {
+        AtomicLong now = new AtomicLong(ChatIdGenerator.EPOCH_MILLIS + 1_000_000);
+        ChatIdGenerator generator = new ChatIdGenerator(1, now::get);
+
+        long first = generator.nextId();
+        now.addAndGet(-5_000);
+        long second = generator.nextId();
+        long third = generator.nextId();
+
+        assertTrue(first < second && second < third);
+        assertEquals(ChatIdGenerator.EPOCH_MILLIS + 1_000_000, ChatIdGenerator.timestampOf(third));
+        assertEquals(2L, generator.stats().get("clockRegressions"));
+    }
+
+    @Test
+    void exhaustedSequenceRunsAheadOfTheClock() {
+        long fixed = ChatIdGenerator.EPOCH_MILLIS + 42;
+        ChatIdGenerator generator = new ChatIdGenerator(0, () -> fixed);
+
+        long previous = -1;
+        for (int i = 0; i < 5_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertEquals(fixed + 1, ChatIdGenerator.timestampOf(previous));
+    }
+
+    @Test
+    void encodingIsFixedWidthAndSortsLikeTheNumbers() {
+        ChatIdGenerator generator = new ChatIdGenerator(3, System::currentTimeMillis);
+        List<Long> ids = new ArrayList<>();
+        List<String> encoded = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            long id = generator.nextId();
+            ids.add(id);
+            encoded.add(ChatIdGenerator.encode(id));
+        }
+        List<String> sorted = new ArrayList<>(encoded);
+        Collections.shuffle(sorted);
+        Collections.sort(sorted);
+
+        assertEquals(encoded, sorted);
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(ChatIdGenerator.ENCODED_LENGTH, encoded.get(i).length());
+            assertEquals(ids.get(i), ChatIdGenerator.decode(encoded.get(i)));
+        }
+        assertEquals(Long.MAX_VALUE, ChatIdGenerator.decode(ChatIdGenerator.encode(Long.MAX_VALUE)));
+        assertThrows(IllegalArgumentException.class, () -> ChatIdGenerator.decode("session-1"));
+    }
+
+    @Test
+    void rejectsNodeIdsThatDoNotFit() {
+        assertThrows(IllegalArgumentException.class, () -> new ChatIdGenerator(1024, System::currentTimeMillis));
+    }
+}
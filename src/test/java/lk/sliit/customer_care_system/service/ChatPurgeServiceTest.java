@@ -0,0 +1,108 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.repository.ChatMessageRepository;
+import lk.sliit.customer_care_system.repository.ChatSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatPurgeServiceTest {
+
+    @Mock private ChatSessionRepository chatSessionRepository;
+    @Mock private ChatMessageRepository chatMessageRepository;
+    @Mock private ChatLookupCache chatLookupCache;
+    @Mock private ChatRecentMessageBuffer chatRecentMessageBuffer;
+    @Mock private ChatSessionBoard chatSessionBoard;
+    @Mock private ChatTranscriptArchive chatTranscriptArchive;
+    @Mock private ChatWriteBehindService chatWriteBehindService;
+    @InjectMocks private ChatPurgeService purge;
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(purge, "chunkSize", 100);
+        ReflectionTestUtils.setField(purge, "sessionBatchSize", 2);
+        ReflectionTestUtils.setField(purge, "pauseMs", 0L);
+    }
+
+    @Test
+    void deletesMessagesInChunksBeforeTheSessionRows() {
+        when(chatMessageRepository.deleteChunkBySessionIds(anyCollection(), eq(100))).thenReturn(100, 100, 40, 7);
+        when(chatSessionRepository.deleteBySessionIds(anyCollection())).thenReturn(2, 1);
+
+        long deleted = purge.deleteSessions(List.of("s-1", "s-2", "s-3", "s-1"));
+
+        assertEquals(247, deleted);
+        InOrder order = inOrder(chatWriteBehindService, chatMessageRepository, chatSessionRepository);
+        order.verify(chatWriteBehindService).discardSession("s-2");
+        order.verify(chatMessageRepository, times(3)).deleteChunkBySessionIds(List.of("s-1", "s-2"), 100);
+        order.verify(chatSessionRepository).deleteBySessionIds(List.of("s-1", "s-2"));
+        order.verify(chatMessageRepository).deleteChunkBySessionIds(List.of("s-3"), 100);
+        order.verify(chatSessionRepository).deleteBySessionIds(List.of("s-3"));
+        verify(chatSessionBoard).remove("s-3");
+        verify(chatLookupCache).invalidateSession("s-1");
+        assertEquals(3L, purge.stats().get("sessionsDeleted"));
+    }
+
+    @Test
+    void senderMessagesAreDeletedUntilAShortChunk() {
+        when(chatMessageRepository.deleteChunkBySenderId(5L, 100)).thenReturn(100, 0);
+
+        assertEquals(100, purge.deleteMessagesBySender(5L));
+        verify(chatMessageRepository, times(2)).deleteChunkBySenderId(5L, 100);
+    }
+
+    @Test
+    void backgroundJobWorksThroughClosedSessionsAndReportsProgress() {
+        when(chatSessionRepository.countClosedBefore(any(LocalDateTime.class))).thenReturn(3L);
+        when(chatSessionRepository.findClosedSessionIdsBefore(any(LocalDateTime.class), any()))
+                .thenReturn(List.of("s-1", "s-2")).thenReturn(List.of("s-3")).thenReturn(List.of());
+        when(chatMessageRepository.deleteChunkBySessionIds(anyCollection(), eq(100))).thenReturn(12, 3);
+        when(chatSessionRepository.deleteBySessionIds(anyCollection())).thenReturn(2, 1);
+
+        ChatPurgeService.PurgeJob job = new ChatPurgeService.PurgeJob(1, 30, LocalDateTime.now().minusDays(30));
+        purge.run(job);
+
+        Map<String, Object> progress = job.progress();
+        assertEquals("COMPLETED", progress.get("state"));
+        assertEquals(3L, progress.get("sessionsDeleted"));
+        assertEquals(15L, progress.get("messagesDeleted"));
+        assertEquals(100L, progress.get("percent"));
+    }
+
+    @Test
+    void cancelledJobKeepsSessionsWhoseMessagesAreNotAllGone() {
+        ChatPurgeService.PurgeJob job = new ChatPurgeService.PurgeJob(1, 30, LocalDateTime.now().minusDays(30));
+        when(chatSessionRepository.findClosedSessionIdsBefore(any(LocalDateTime.class), any()))
+                .thenReturn(List.of("s-1"));
+        when(chatMessageRepository.deleteChunkBySessionIds(anyCollection(), eq(100))).thenAnswer(invocation -> {
+            job.cancelRequested = true;
+            return 100;
+        });
+
+        purge.run(job);
+
+        assertEquals("CANCELLED", job.progress().get("state"));
+        verify(chatSessionRepository, never()).deleteBySessionIds(anyCollection());
+    }
+
+    @Test
+    void rejectsShortRetentionAndIdleCancel() {
+        assertThrows(IllegalArgumentException.class, () -> purge.startPurge(0));
+        assertEquals("IDLE", purge.progress().get("state"));
+        assertFalse(purge.cancel());
+    }
+}
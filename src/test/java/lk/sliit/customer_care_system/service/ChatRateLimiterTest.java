@@ -0,0 +1,84 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.service.ChatRateLimiter.Decision;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void burstThenSteadyRatePerSenderAndSession() {
+        AtomicLong now = new AtomicLong(1_000 * SECOND);
+        ChatRateLimiter limiter = new ChatRateLimiter(2, 3, 1_000, 1_000, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Decision.ALLOWED, limiter.tryAcquire("alice", "s-1"));
+        }
+        assertEquals(Decision.SENDER_LIMITED, limiter.tryAcquire("alice", "s-1"));
+        assertEquals(Decision.ALLOWED, limiter.tryAcquire("alice", "s-2"), "other sessions have their own bucket");
+        assertEquals(Decision.ALLOWED, limiter.tryAcquire("bob", "s-1"), "other senders have their own bucket");
+        assertEquals(501, limiter.retryAfterMillis("alice", "s-1"));
+
+        now.addAndGet(SECOND / 2);
+        assertEquals(Decision.ALLOWED, limiter.tryAcquire("alice", "s-1"));
+        assertEquals(Decision.SENDER_LIMITED, limiter.tryAcquire("alice", "s-1"));
+        assertEquals(2L, limiter.stats().get("senderRejected"));
+    }
+
+    @Test
+    void globalCeilingAppliesAcrossSenders() {
+        AtomicLong now = new AtomicLong(0);
+        ChatRateLimiter limiter = new ChatRateLimiter(100, 100, 1, 4, now::get);
+
+        for (int sender = 0; sender < 4; sender++) {
+            assertEquals(Decision.ALLOWED, limiter.tryAcquire("user-" + sender, "s-1"));
+        }
+        assertEquals(Decision.GLOBAL_LIMITED, limiter.tryAcquire("carol", "s-1"));
+        assertEquals(1L, limiter.stats().get("globalRejected"));
+    }
+
+    @Test
+    void refilledBucketsAreSwept() {
+        AtomicLong now = new AtomicLong(0);
+        ChatRateLimiter limiter = new ChatRateLimiter(10, 2, 1_000, 1_000, now::get);
+        limiter.tryAcquire("alice", "s-1");
+        limiter.tryAcquire("bob", "s-1");
+
+        now.addAndGet(SECOND);
+        limiter.sweep();
+
+        assertEquals(0, limiter.stats().get("senderBuckets"));
+        assertEquals(1, limiter.retryAfterMillis("alice", "s-1"));
+    }
+
+    @Test
+    void concurrentSendersNeverExceedTheBurst() throws Exception {
+        ChatRateLimiter limiter = new ChatRateLimiter(0.001, 50, 1_000_000, 1_000_000, () -> 0L);
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1_000; i++) {
+                    if (limiter.tryAcquire("alice", "s-1") == Decision.ALLOWED) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(50, accepted.get());
+    }
+}
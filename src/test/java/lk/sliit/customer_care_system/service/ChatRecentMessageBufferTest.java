@@ -0,0 +1,123 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.ChatHistoryPageDTO;
+import lk.sliit.customer_care_system.dto.ChatMessageDTO;
+import lk.sliit.customer_care_system.modelentity.ChatMessage.SenderType;
+import lk.sliit.customer_care_system.repository.ChatMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ChatRecentMessageBufferTest {
+
+    private final ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+
+    @Test
+    void firstReadFillsTheRingAndLaterReadsAreHits() {
+        ChatRecentMessageBuffer buffer = buffer(10, Long.MAX_VALUE);
+        stored("s-1", message(2L, 2L, "second"), message(1L, 1L, "first"));
+
+        ChatHistoryPageDTO first = buffer.latest("s-1", 10, () -> List.of(message(null, 3L, "pending")));
+        buffer.append("s-1", message(null, 4L, "sent after load"));
+        ChatHistoryPageDTO second = buffer.latest("s-1", 10, List::of);
+
+        assertEquals(List.of("first", "second", "pending"), contents(first));
+        assertEquals(List.of("first", "second", "pending", "sent after load"), contents(second));
+        assertFalse(second.isHasMore());
+        verify(chatMessageRepository, times(1)).findLatestRows(eq("s-1"), any(Pageable.class));
+        assertEquals(1L, buffer.stats().get("hits"));
+    }
+
+    @Test
+    void fullRingDropsTheOldestAndSendsLargerPagesToTheDatabase() {
+        ChatRecentMessageBuffer buffer = buffer(3, Long.MAX_VALUE);
+        stored("s-1", message(3L, 3L, "c"), message(2L, 2L, "b"), message(1L, 1L, "a"));
+        buffer.latest("s-1", 3, List::of);
+
+        buffer.append("s-1", message(null, 4L, "d"));
+
+        ChatHistoryPageDTO page = buffer.latest("s-1", 3, List::of);
+        assertEquals(List.of("b", "c", "d"), contents(page));
+        assertTrue(page.isHasMore());
+        assertNull(buffer.latest("s-1", 4, List::of));
+    }
+
+    @Test
+    void editDuringTheLoadDiscardsTheRing() {
+        ChatRecentMessageBuffer buffer = buffer(10, Long.MAX_VALUE);
+        when(chatMessageRepository.findLatestRows(eq("s-1"), any(Pageable.class))).thenAnswer(call -> {
+            ChatMessageDTO edited = message(1L, 1L, "edited");
+            buffer.replace("s-1", edited); // lands between the table read and the ring being ready
+            return new ArrayList<>(List.of(message(1L, 1L, "original")));
+        });
+
+        buffer.latest("s-1", 10, List::of);
+
+        assertEquals(0, buffer.stats().get("sessions"));
+    }
+
+    @Test
+    void leastRecentlyReadRingIsEvictedOverBudget() {
+        long oneMessage = ChatRecentMessageBuffer.MESSAGE_OVERHEAD_BYTES + 2L * ("x".length() + "alice".length() + 3);
+        ChatRecentMessageBuffer buffer = buffer(10, 2 * oneMessage);
+        stored("s-1", message(1L, 1L, "x"));
+        stored("s-2", message(2L, 2L, "x"));
+        stored("s-3", message(3L, 3L, "x"));
+
+        buffer.latest("s-1", 10, List::of);
+        buffer.latest("s-2", 10, List::of);
+        buffer.latest("s-1", 10, List::of); // s-2 is now the least recently used
+        buffer.latest("s-3", 10, List::of);
+
+        assertEquals(2, buffer.stats().get("sessions"));
+        assertNotNull(buffer.latest("s-1", 10, List::of));
+        assertEquals(1L, buffer.stats().get("evictions"));
+    }
+
+    @Test
+    void resumeAfterSequenceNeedsTheMessagesStillInTheRing() {
+        ChatRecentMessageBuffer buffer = buffer(2, Long.MAX_VALUE);
+        stored("s-1", message(2L, 2L, "b"), message(1L, 1L, "a"));
+        buffer.latest("s-1", 2, List::of);
+        buffer.append("s-1", message(null, 3L, "c"));
+
+        assertEquals(List.of("c"), contents(buffer.after("s-1", 2L, 10)));
+        assertNull(buffer.after("s-1", 0L, 10), "message 1 has already left the ring");
+    }
+
+    private ChatRecentMessageBuffer buffer(int messagesPerSession, long maxBytes) {
+        ChatRecentMessageBuffer buffer = new ChatRecentMessageBuffer(messagesPerSession, maxBytes, Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(buffer, "chatMessageRepository", chatMessageRepository);
+        return buffer;
+    }
+
+    // Newest first, as the repository returns them
+    private void stored(String sessionId, ChatMessageDTO... newestFirst) {
+        for (ChatMessageDTO message : newestFirst) {
+            message.setSessionId(sessionId);
+        }
+        when(chatMessageRepository.findLatestRows(eq(sessionId), any(Pageable.class)))
+                .thenAnswer(call -> new ArrayList<>(List.of(newestFirst)));
+    }
+
+    private static ChatMessageDTO message(Long id, Long seq, String content) {
+        ChatMessageDTO message = new ChatMessageDTO("alice", content, SenderType.USER, "s-1");
+        message.setId(id);
+        message.setMessageKey(seq);
+        message.setSeq(seq);
+        return message;
+    }
+
+    private static List<String> contents(ChatHistoryPageDTO page) {
+        return page.getMessages().stream().map(ChatMessageDTO::getContent).toList();
+    }
+}
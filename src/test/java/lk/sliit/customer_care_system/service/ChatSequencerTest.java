@@ -0,0 +1,35 @@
+package lk.sliit.customer_care_system.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatSequencerTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @InjectMocks private ChatSequencer sequencer;
+
+    @Test
+    void numbersComeFromTheSessionRow() {
+        when(jdbcTemplate.queryForObject(ChatSequencer.NEXT_SEQ_SQL, Long.class, "s-1", "s-1")).thenReturn(42L, 43L);
+
+        assertEquals(42L, sequencer.next("s-1"));
+        assertEquals(43L, sequencer.next("s-1"));
+    }
+
+    @Test
+    void unknownSessionIsRejected() {
+        when(jdbcTemplate.queryForObject(ChatSequencer.NEXT_SEQ_SQL, Long.class, "gone", "gone"))
+                .thenThrow(new EmptyResultDataAccessException(1));
+
+        assertThrows(RuntimeException.class, () -> sequencer.next("gone"));
+    }
+}
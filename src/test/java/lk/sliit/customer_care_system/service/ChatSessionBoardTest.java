@@ -0,0 +1,111 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.ChatSessionDTO;
+import lk.sliit.customer_care_system.modelentity.ChatSession;
+import lk.sliit.customer_care_system.modelentity.ChatSession.ChatStatus;
+import lk.sliit.customer_care_system.modelentity.User;
+import lk.sliit.customer_care_system.repository.ChatSessionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatSessionBoardTest {
+
+    @Mock private ChatSessionRepository chatSessionRepository;
+    @Mock private SimpMessagingTemplate messagingTemplate;
+    @InjectMocks private ChatSessionBoard board;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void loadsOnceAndFollowsTransitions() {
+        when(chatSessionRepository.findBoardRows(ChatSessionBoard.OPEN_STATUSES)).thenReturn(new ArrayList<>(List.of(
+                new ChatSessionDTO("s-1", "alice", 1L, null, null, ChatStatus.WAITING, now.minusMinutes(5)),
+                new ChatSessionDTO("s-2", "bob", 2L, 9L, "agent", ChatStatus.ACTIVE, now.minusMinutes(1)))));
+
+        assertEquals(List.of("s-2", "s-1"), ids(board.openSessions()));
+        assertEquals(List.of("s-1"), ids(board.byStatus(ChatStatus.WAITING)));
+
+        ChatSession assigned = session("s-1", "alice", 1L, ChatStatus.ACTIVE, now.minusMinutes(5));
+        assigned.setAgent(user(9L, "agent"));
+        board.update(assigned);
+        board.update(session("s-2", "bob", 2L, ChatStatus.CLOSED, now.minusMinutes(1)));
+        board.update(session("s-3", "carol", 3L, ChatStatus.WAITING, now));
+
+        assertEquals(List.of("s-3", "s-1"), ids(board.openSessions()));
+        assertEquals(List.of("s-1"), ids(board.byAgent(9L)));
+        assertEquals(List.of("s-3"), ids(board.byStatus(ChatStatus.WAITING)));
+        verify(chatSessionRepository, times(1)).findBoardRows(any());
+
+        List<Map<String, Object>> diffs = sentDiffs(3);
+        assertEquals(List.of("session-upsert", "session-remove", "session-upsert"),
+                diffs.stream().map(d -> d.get("type")).toList());
+        assertEquals(List.of("s-1", "s-2", "s-3"), diffs.stream()
+                .map(d -> d.containsKey("session") ? ((ChatSessionDTO) d.get("session")).getSessionId() : d.get("sessionId"))
+                .toList());
+        assertTrue(diffs.stream().noneMatch(d -> d.containsKey("version")), "diffs from several nodes cannot share numbers");
+    }
+
+    @Test
+    void reconcileCorrectsChangesMadeElsewhere() {
+        when(chatSessionRepository.findBoardRows(ChatSessionBoard.OPEN_STATUSES))
+                .thenReturn(List.of(new ChatSessionDTO("s-1", "alice", 1L, null, null, ChatStatus.WAITING, now)))
+                .thenReturn(List.of(new ChatSessionDTO("s-2", "bob", 2L, null, null, ChatStatus.WAITING, now)));
+        board.openSessions();
+
+        board.reconcile();
+
+        assertEquals(List.of("s-2"), ids(board.openSessions()));
+        assertEquals(2, sentDiffs(2).size());
+    }
+
+    @Test
+    void removingAnUnknownSessionSendsNothing() {
+        when(chatSessionRepository.findBoardRows(ChatSessionBoard.OPEN_STATUSES)).thenReturn(List.of());
+
+        board.remove("missing");
+
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> sentDiffs(int count) {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, times(count)).convertAndSend(eq("/topic/sessions"), captor.capture());
+        return captor.getAllValues().stream().map(o -> (Map<String, Object>) o).toList();
+    }
+
+    private static List<String> ids(List<ChatSessionDTO> rows) {
+        return rows.stream().map(ChatSessionDTO::getSessionId).toList();
+    }
+
+    private static ChatSession session(String sessionId, String username, Long userId, ChatStatus status,
+                                       LocalDateTime createdAt) {
+        ChatSession session = new ChatSession(sessionId, user(userId, username));
+        session.setStatus(status);
+        session.setCreatedAt(createdAt);
+        return session;
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
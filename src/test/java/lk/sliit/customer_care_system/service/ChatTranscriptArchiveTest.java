@@ -0,0 +1,94 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.ChatMessageDTO;
+import lk.sliit.customer_care_system.modelentity.ChatMessage.SenderType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatTranscriptArchiveTest {
+
+    @TempDir Path directory;
+
+    @Test
+    void transcriptsSurviveReopeningAndSegmentRolls() throws Exception {
+        ChatTranscriptArchive archive = new ChatTranscriptArchive(directory.toString(), 2_000);
+        archive.open();
+        for (int s = 0; s < 10; s++) {
+            archive.append("s-" + s, transcript("s-" + s, 40));
+        }
+        archive.close();
+
+        ChatTranscriptArchive reopened = new ChatTranscriptArchive(directory.toString(), 2_000);
+        reopened.open();
+        List<ChatMessageDTO> read = reopened.read("s-7").orElseThrow();
+        assertEquals(40, read.size());
+        ChatMessageDTO last = read.get(39);
+        assertEquals(7039L, last.getId());
+        assertEquals("message 39 of s-7 — ünïcode", last.getContent());
+        assertEquals(SenderType.AGENT, last.getSenderType());
+        assertEquals(LocalDateTime.of(2025, 3, 1, 10, 0, 39, 123_000_000), last.getCreatedAt());
+        assertEquals("s-7", last.getSessionId());
+        assertEquals(40L, last.getSeq());
+        assertTrue((Integer) reopened.stats().get("segment") > 1, "small segments should have rolled");
+
+        reopened.append("s-10", transcript("s-10", 3));
+        assertEquals(3, reopened.read("s-10").orElseThrow().size());
+        reopened.close();
+    }
+
+    @Test
+    void forgottenSessionsStayForgottenAndTornIndexTailsAreDropped() throws Exception {
+        ChatTranscriptArchive archive = new ChatTranscriptArchive(directory.toString(), 1 << 20);
+        archive.open();
+        archive.append("s-1", transcript("s-1", 5));
+        archive.append("s-2", transcript("s-2", 5));
+        archive.forget(List.of("s-1", "unknown"));
+        archive.close();
+        // Half-written entry, as left by a crash in the middle of an append
+        Files.write(directory.resolve("index.dat"), new byte[] {1, 0, 3, 's'}, StandardOpenOption.APPEND);
+
+        ChatTranscriptArchive reopened = new ChatTranscriptArchive(directory.toString(), 1 << 20);
+        reopened.open();
+        assertFalse(reopened.contains("s-1"));
+        assertTrue(reopened.read("s-1").isEmpty());
+        assertEquals(5, reopened.read("s-2").orElseThrow().size());
+
+        reopened.append("s-3", transcript("s-3", 2));
+        reopened.close();
+        ChatTranscriptArchive again = new ChatTranscriptArchive(directory.toString(), 1 << 20);
+        again.open();
+        assertEquals(2, again.read("s-3").orElseThrow().size());
+        again.close();
+    }
+
+    @Test
+    void disabledArchiveHoldsNothing() throws Exception {
+        ChatTranscriptArchive archive = new ChatTranscriptArchive("", 1 << 20);
+        archive.open();
+
+        assertFalse(archive.isEnabled());
+        assertFalse(archive.contains("s-1"));
+        assertThrows(IllegalStateException.class, () -> archive.append("s-1", List.of()));
+    }
+
+    static List<ChatMessageDTO> transcript(String sessionId, int count) {
+        long base = Long.parseLong(sessionId.substring(2)) * 1000;
+        List<ChatMessageDTO> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new ChatMessageDTO(base + i, i % 2 == 0 ? null : base + i, "message " + i + " of " + sessionId
+                    + " — ünïcode", i % 2 == 0 ? "alice" : "agent", i % 2 == 0 ? 1L : 2L,
+                    i % 2 == 0 ? SenderType.USER : SenderType.AGENT, sessionId,
+                    LocalDateTime.of(2025, 3, 1, 10, 0, i, 123_000_000), false, i + 1L));
+        }
+        return messages;
+    }
+}
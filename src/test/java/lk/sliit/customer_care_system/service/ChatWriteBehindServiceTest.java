@@ -0,0 +1,257 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.modelentity.ChatMessage.SenderType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChatWriteBehindServiceTest {
+
+    private static final long POISON_SENDER = 666L;
+
+    @TempDir Path dir;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final ChatWriteBehindService writeBehind = new ChatWriteBehindService();
+    private final List<Long> insertedKeys = new CopyOnWriteArrayList<>();
+    // Called with the keys and sender ids of every INSERT before it "succeeds"
+    private volatile BiConsumer<List<Long>, List<Long>> insertHook = (keys, senders) -> { };
+    private Path journal;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        journal = dir.resolve("chat.journal");
+        ReflectionTestUtils.setField(writeBehind, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writeBehind, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(writeBehind, "chatRecentMessageBuffer", mock(ChatRecentMessageBuffer.class));
+        ReflectionTestUtils.setField(writeBehind, "chatIdGenerator", new ChatIdGenerator(1, System::currentTimeMillis));
+        ReflectionTestUtils.setField(writeBehind, "queueCapacity", 1);
+        ReflectionTestUtils.setField(writeBehind, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(writeBehind, "journalPath", journal.toString());
+
+        doAnswer(call -> {
+            Map<Integer, Long> longs = new TreeMap<>();
+            PreparedStatement ps = mock(PreparedStatement.class);
+            doAnswer(set -> longs.put(set.getArgument(0), set.getArgument(1))).when(ps).setLong(anyInt(), anyLong());
+            ((PreparedStatementSetter) call.getArgument(1)).setValues(ps);
+            // 10 parameters per row: sender id is the 2nd, message key the 9th
+            List<Long> keys = new ArrayList<>();
+            List<Long> senders = new ArrayList<>();
+            longs.forEach((index, value) -> {
+                if (index % 10 == 2) senders.add(value);
+                if (index % 10 == 9) keys.add(value);
+            });
+            insertHook.accept(keys, senders);
+            for (Long key : keys) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn(key + 1000);
+                when(rs.getLong(2)).thenReturn(key);
+                ((RowCallbackHandler) call.getArgument(2)).processRow(rs);
+            }
+            insertedKeys.addAll(keys);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeBehind.shutdown();
+    }
+
+    @Test
+    void poisonRowIsQuarantinedAndTheRestIsStored() throws Exception {
+        insertHook = (keys, senders) -> {
+            if (senders.contains(POISON_SENDER)) {
+                throw new DataIntegrityViolationException("FK_chat_messages_sender");
+            }
+        };
+        ReflectionTestUtils.setField(writeBehind, "queueCapacity", 100);
+        writeBehind.start();
+
+        ChatWriteBehindService.PendingChatMessage poison = message(POISON_SENDER);
+        writeBehind.submit(message(1L));
+        writeBehind.submit(poison);
+        writeBehind.submit(message(1L));
+
+        awaitStat("persisted", 2L);
+        assertEquals(1L, writeBehind.stats().get("quarantined"));
+        assertFalse(insertedKeys.contains(poison.messageKey()));
+        assertTrue(writeBehind.unpersisted("s-1").isEmpty());
+        verify(messagingTemplate, timeout(1000)).convertAndSend(eq("/topic/chat/s-1"),
+                argThat((Object frame) -> frame instanceof Map<?, ?> map && "not_persisted".equals(map.get("code"))
+                        && Long.valueOf(poison.messageKey()).equals(map.get("messageKey"))));
+    }
+
+    @Test
+    void rejectedSynchronousInsertIsStruckFromTheJournal() throws Exception {
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        insertHook = (keys, senders) -> {
+            if (senders.contains(5L)) {
+                writerBusy.countDown();
+                awaitQuietly(release);
+            } else if (senders.contains(7L)) {
+                throw new DataAccessResourceFailureException("database unavailable");
+            }
+        };
+        writeBehind.start();
+
+        writeBehind.submit(message(5L));          // taken by the writer, which then blocks
+        assertTrue(writerBusy.await(2, TimeUnit.SECONDS));
+        writeBehind.submit(message(1L));          // fills the one queue slot
+        ChatWriteBehindService.PendingChatMessage rejected = message(7L);
+        assertThrows(DataAccessResourceFailureException.class, () -> writeBehind.submit(rejected));
+
+        assertTrue(Files.readAllLines(journal).contains("X\t" + rejected.messageKey()));
+        release.countDown();
+        awaitStat("persisted", 2L);
+        assertFalse(insertedKeys.contains(rejected.messageKey()));
+    }
+
+    @Test
+    void replaySkipsStruckMessages() throws Exception {
+        Files.write(journal, List.of(journalLine(101L), journalLine(102L), "X\t102"), StandardCharsets.UTF_8);
+
+        writeBehind.start();
+
+        assertEquals(List.of(101L), insertedKeys);
+    }
+
+    @Test
+    void messagesNotStoredAtShutdownStayInTheJournal() throws Exception {
+        insertHook = (keys, senders) -> {
+            throw new DataAccessResourceFailureException("database unavailable");
+        };
+        ReflectionTestUtils.setField(writeBehind, "queueCapacity", 100);
+        writeBehind.start();
+        ChatWriteBehindService.PendingChatMessage retried = message(1L);
+        writeBehind.submit(retried);
+        awaitStat("failedAttempts", 2L); // batch attempt, then the first row-by-row attempt
+
+        writeBehind.shutdown();
+
+        assertTrue(Files.readAllLines(journal).stream().anyMatch(line -> line.startsWith(retried.messageKey() + "\t")));
+
+        // Database back: the next start stores it
+        insertHook = (keys, senders) -> { };
+        ChatWriteBehindService restarted = new ChatWriteBehindService();
+        ReflectionTestUtils.setField(restarted, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(restarted, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(restarted, "chatRecentMessageBuffer", mock(ChatRecentMessageBuffer.class));
+        ReflectionTestUtils.setField(restarted, "queueCapacity", 1);
+        ReflectionTestUtils.setField(restarted, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(restarted, "journalPath", journal.toString());
+        restarted.start();
+        restarted.shutdown();
+
+        assertEquals(List.of(retried.messageKey()), insertedKeys);
+    }
+
+    @Test
+    void nodesStartedTogetherNeverShareMessageKeys() {
+        ChatWriteBehindService other = new ChatWriteBehindService();
+        ReflectionTestUtils.setField(writeBehind, "chatIdGenerator", new ChatIdGenerator(1, () -> 1_800_000_000_000L));
+        ReflectionTestUtils.setField(other, "chatIdGenerator", new ChatIdGenerator(2, () -> 1_800_000_000_000L));
+        writeBehind.start();
+
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(keys.add(writeBehind.nextKey()));
+            assertTrue(keys.add(other.nextKey()));
+        }
+    }
+
+    @Test
+    void deletedSessionsLoseTheirQueuedMessages() throws Exception {
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        insertHook = (keys, senders) -> {
+            if (senders.contains(5L)) {
+                writerBusy.countDown();
+                awaitQuietly(release);
+            }
+        };
+        ReflectionTestUtils.setField(writeBehind, "queueCapacity", 100);
+        writeBehind.start();
+
+        ChatWriteBehindService.PendingChatMessage inFlight = message(5L, "s-1");
+        writeBehind.submit(inFlight);             // taken by the writer, which then blocks
+        assertTrue(writerBusy.await(2, TimeUnit.SECONDS));
+        ChatWriteBehindService.PendingChatMessage queued = message(1L, "s-2");
+        ChatWriteBehindService.PendingChatMessage queuedBehind = message(1L, "s-1");
+        writeBehind.submit(queued);
+        writeBehind.submit(queuedBehind);
+
+        writeBehind.discardSession("s-2");
+        assertTrue(writeBehind.unpersisted("s-2").isEmpty());
+        assertTrue(Files.readAllLines(journal).contains("X\t" + queued.messageKey()));
+
+        // The writer's batch is waited for, so the purge that follows deletes it; the queued one is dropped
+        Thread discard = new Thread(() -> writeBehind.discardSession("s-1"));
+        discard.start();
+        Thread.sleep(50);
+        assertTrue(discard.isAlive());
+        release.countDown();
+        discard.join(2000);
+        assertFalse(discard.isAlive());
+        assertTrue(insertedKeys.contains(inFlight.messageKey()));
+        assertFalse(insertedKeys.contains(queued.messageKey()));
+        assertFalse(insertedKeys.contains(queuedBehind.messageKey()));
+        assertEquals(2L, writeBehind.stats().get("discarded"));
+    }
+
+    private ChatWriteBehindService.PendingChatMessage message(long senderId) {
+        return message(senderId, "s-1");
+    }
+
+    private ChatWriteBehindService.PendingChatMessage message(long senderId, String sessionId) {
+        return new ChatWriteBehindService.PendingChatMessage(writeBehind.nextKey(), sessionId, null, senderId,
+                SenderType.USER, "hello", LocalDateTime.now(), "user" + senderId);
+    }
+
+    private static String journalLine(long key) {
+        return key + "\ts-1\t1\tUSER\t" + LocalDateTime.of(2026, 1, 1, 9, 0) + "\t"
+                + Base64.getEncoder().encodeToString("hello".getBytes(StandardCharsets.UTF_8)) + "\t";
+    }
+
+    private void awaitStat(String name, Object expected) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5000;
+        while (!expected.equals(writeBehind.stats().get(name)) && System.currentTimeMillis() < until) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, writeBehind.stats().get(name));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
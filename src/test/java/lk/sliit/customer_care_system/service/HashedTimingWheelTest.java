@@ -0,0 +1,91 @@
+package lk.sliit.customer_care_system.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    // 8 buckets of 10 ms: one rotation is 80 ms
+    private final HashedTimingWheel wheel = new HashedTimingWheel(10, TimeUnit.MILLISECONDS, 8, Runnable::run, "test-wheel");
+
+    @AfterEach
+    void stopWheel() {
+        wheel.stop();
+    }
+
+    @Test
+    void timeoutFiresOnceAfterItsDelay() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        long start = System.nanoTime();
+
+        HashedTimingWheel.Timeout timeout = wheel.newTimeout(t -> {
+            runs.incrementAndGet();
+            fired.countDown();
+        }, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        Thread.sleep(100);
+        assertEquals(1, runs.get());
+        assertTrue(timeout.isExpired());
+        assertEquals(0, wheel.pendingTimeouts());
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        HashedTimingWheel.Timeout queued = wheel.newTimeout(t -> runs.incrementAndGet(), 40, TimeUnit.MILLISECONDS);
+        assertTrue(queued.cancel());
+
+        HashedTimingWheel.Timeout bucketed = wheel.newTimeout(t -> runs.incrementAndGet(), 60, TimeUnit.MILLISECONDS);
+        Thread.sleep(25); // moved into its bucket by now
+        assertTrue(bucketed.cancel());
+        assertFalse(bucketed.cancel());
+
+        Thread.sleep(150);
+        assertEquals(0, runs.get());
+        assertTrue(queued.isCancelled());
+        assertEquals(0, wheel.pendingTimeouts());
+    }
+
+    @Test
+    void timeoutsBeyondOneRotationWaitTheirRounds() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        // Same bucket as a 30 ms timeout, two rotations later
+        wheel.newTimeout(t -> fired.countDown(), 190, TimeUnit.MILLISECONDS);
+
+        assertFalse(fired.await(150, TimeUnit.MILLISECONDS), "fired a rotation early");
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 190);
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextTick() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel.newTimeout(t -> fired.countDown(), -5000, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void stoppedWheelFiresNothingAndRejectsNewTimeouts() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        wheel.newTimeout(t -> runs.incrementAndGet(), 50, TimeUnit.MILLISECONDS);
+
+        wheel.stop();
+        Thread.sleep(150);
+
+        assertEquals(0, runs.get());
+        assertThrows(IllegalStateException.class,
+                () -> wheel.newTimeout(t -> runs.incrementAndGet(), 10, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,91 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.AgentTicketRowDTO;
+import lk.sliit.customer_care_system.modelentity.User;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import lk.sliit.customer_care_system.repository.UserRepository;
+import lk.sliit.customer_care_system.strategy.NotificationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SlaServiceTest {
+
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final NotificationContext notificationContext = mock(NotificationContext.class);
+    private final User admin = new User();
+    private SlaService sla;
+
+    @BeforeEach
+    void setUp() {
+        sla = new SlaService(10, 64);
+        ReflectionTestUtils.setField(sla, "ticketRepository", ticketRepository);
+        ReflectionTestUtils.setField(sla, "userRepository", userRepository);
+        ReflectionTestUtils.setField(sla, "notificationContext", notificationContext);
+        ReflectionTestUtils.setField(sla, "environment", new MockEnvironment()
+                .withProperty("ticket.sla.first-response.default", "PT0.2S")
+                .withProperty("ticket.sla.resolution.default", "PT0.4S"));
+        when(userRepository.findAllByRole("ROLE_ADMIN")).thenReturn(List.of(admin));
+        when(ticketRepository.findIndexRowById(1L)).thenReturn(List.of(new AgentTicketRowDTO(1L, "Printer", "jammed",
+                "Technical", "Open", LocalDateTime.now(), "alice", null)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sla.shutdown();
+    }
+
+    @Test
+    void missedFirstResponseEscalatesToAdmins() {
+        sla.onTicketChanged(event(TicketChangedEvent.Type.CREATED, "Open"));
+
+        verify(notificationContext, timeout(2000)).sendInAppNotification(same(admin),
+                eq("SLA breach: first response"), anyString());
+        assertEquals(SlaService.Phase.RESOLUTION, sla.statusOf(1L).get("phase"));
+    }
+
+    @Test
+    void openResponseMovesTheTicketToItsResolutionDeadline() {
+        sla.onTicketChanged(event(TicketChangedEvent.Type.CREATED, "Open"));
+        sla.onTicketChanged(event(TicketChangedEvent.Type.RESPONDED, "In Progress"));
+
+        assertEquals(SlaService.Phase.RESOLUTION, sla.statusOf(1L).get("phase"));
+        assertEquals(true, sla.statusOf(1L).get("responded"));
+    }
+
+    @Test
+    void resolvingResponseStopsAllTimers() throws Exception {
+        sla.onTicketChanged(event(TicketChangedEvent.Type.CREATED, "Open"));
+        sla.onTicketChanged(event(TicketChangedEvent.Type.RESPONDED, "Resolved"));
+
+        assertNull(sla.statusOf(1L));
+        assertEquals(0L, sla.stats().get("armedTimers"));
+        Thread.sleep(600); // past both deadlines
+        verifyNoInteractions(notificationContext);
+    }
+
+    @Test
+    void reopenedTicketGetsItsResolutionDeadlineBack() {
+        sla.onTicketChanged(event(TicketChangedEvent.Type.CREATED, "Open"));
+        sla.onTicketChanged(event(TicketChangedEvent.Type.STATUS_CHANGED, "Closed"));
+        assertNull(sla.statusOf(1L));
+
+        sla.onTicketChanged(event(TicketChangedEvent.Type.STATUS_CHANGED, "Open"));
+
+        assertEquals(SlaService.Phase.RESOLUTION, sla.statusOf(1L).get("phase"));
+    }
+
+    private static TicketChangedEvent event(TicketChangedEvent.Type type, String status) {
+        return new TicketChangedEvent(1L, type, status, "Printer", "Technical", "alice", null, LocalDateTime.now());
+    }
+}
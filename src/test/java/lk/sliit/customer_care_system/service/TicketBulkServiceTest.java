@@ -0,0 +1,67 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.BulkTicketRequest;
+import lk.sliit.customer_care_system.dto.BulkTicketResultDTO;
+import lk.sliit.customer_care_system.dto.TicketSummaryDTO;
+import lk.sliit.customer_care_system.repository.AgentResponseRepository;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TicketBulkServiceTest {
+
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final TicketBulkService bulk = new TicketBulkService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bulk, "ticketRepository", ticketRepository);
+        ReflectionTestUtils.setField(bulk, "agentResponseRepository", mock(AgentResponseRepository.class));
+        ReflectionTestUtils.setField(bulk, "ticketChangeService", mock(TicketChangeService.class));
+        ReflectionTestUtils.setField(bulk, "ticketEventPublisher", mock(TicketEventPublisher.class));
+        ReflectionTestUtils.setField(bulk, "transactionTemplate", new TransactionTemplate(transactionManager));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(ticketRepository.findSummariesByIdIn(anyList())).thenAnswer(call -> call.<Collection<Long>>getArgument(0)
+                .stream().map(id -> new TicketSummaryDTO(id, "Ticket " + id, "Technical", "Open",
+                        LocalDateTime.now(), null, "alice")).toList());
+    }
+
+    @Test
+    void unknownStatusesAreRejectedBeforeAnyUpdate() {
+        for (String status : List.of("OPEN", "foo", "closed")) {
+            assertThrows(IllegalArgumentException.class, () -> bulk.updateStatus(request(status, 1, 2)));
+        }
+        verifyNoInteractions(ticketRepository, transactionManager);
+    }
+
+    @Test
+    void eachChunkCommitsOnItsOwn() {
+        long count = TicketBulkService.CHUNK_SIZE * 2L + 1;
+        BulkTicketResultDTO result = bulk.updateStatus(request("Closed", 1, count));
+
+        assertEquals(count, result.getSucceeded());
+        verify(ticketRepository, times(3)).updateStatusByIdIn(anyCollection(), eq("Closed"), any());
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    private static BulkTicketRequest request(String status, long fromId, long toId) {
+        BulkTicketRequest request = new BulkTicketRequest();
+        request.setStatus(status);
+        request.setIds(LongStream.rangeClosed(fromId, toId).boxed().toList());
+        return request;
+    }
+}
@@ -0,0 +1,122 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.TicketChangesDTO;
+import lk.sliit.customer_care_system.dto.TicketSummaryDTO;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import lk.sliit.customer_care_system.repository.TicketTombstoneRepository;
+import lk.sliit.customer_care_system.service.TicketChangeService.Watermark;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TicketChangeServiceTest {
+
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final TicketTombstoneRepository ticketTombstoneRepository = mock(TicketTombstoneRepository.class);
+    private final TicketChangeService changes = new TicketChangeService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(changes, "ticketRepository", ticketRepository);
+        ReflectionTestUtils.setField(changes, "ticketTombstoneRepository", ticketTombstoneRepository);
+    }
+
+    @Test
+    void etagFollowsTheWatermark() {
+        LocalDateTime updatedAt = LocalDateTime.of(2026, 10, 18, 9, 30, 15, 123_000_000);
+        when(ticketTombstoneRepository.findWatermark()).thenReturn(watermarkRow("2026-10-18T09:30:15.123", 7L));
+
+        Watermark current = changes.currentWatermark();
+
+        assertEquals(new Watermark(updatedAt, 7L), current);
+        assertEquals(changes.etagFor(new Watermark(updatedAt, 7L)), changes.etagFor(current));
+        assertNotEquals(changes.etagFor(current), changes.etagFor(new Watermark(updatedAt, 8L)));
+        assertTrue(changes.etagFor(current).startsWith("\"") && changes.etagFor(current).endsWith("\""));
+    }
+
+    @Test
+    void tokenRoundTripsIncludingAnEmptyTable() {
+        Watermark empty = new Watermark(null, 0L);
+        Watermark watermark = new Watermark(LocalDateTime.now().withNano(0), 12L);
+
+        assertEquals(empty, TicketChangeService.decodeToken(TicketChangeService.encodeToken(empty)));
+        assertEquals(watermark, TicketChangeService.decodeToken(TicketChangeService.encodeToken(watermark)));
+    }
+
+    @Test
+    void deltaHasChangedRowsSinceTheOverlapAndNewTombstones() {
+        LocalDateTime previous = LocalDateTime.now().minusMinutes(10);
+        Watermark current = new Watermark(LocalDateTime.now(), 5L);
+        TicketSummaryDTO row = new TicketSummaryDTO(3L, "Printer jammed", "Technical", "Open",
+                previous, LocalDateTime.now(), "alice");
+        when(ticketRepository.findSummaryChangedSince(eq(previous.minus(TicketChangeService.OVERLAP)), any(Pageable.class)))
+                .thenReturn(List.of(row));
+        when(ticketTombstoneRepository.findOldestId()).thenReturn(1L);
+        when(ticketTombstoneRepository.findTicketIdsAfter(2L)).thenReturn(List.of(8L, 9L));
+
+        TicketChangesDTO delta = changes.changesSince(TicketChangeService.encodeToken(new Watermark(previous, 2L)), current);
+
+        assertFalse(delta.isResync());
+        assertEquals(List.of(row), delta.getChanged());
+        assertEquals(List.of(8L, 9L), delta.getDeletedIds());
+        assertEquals(TicketChangeService.encodeToken(current), delta.getToken());
+    }
+
+    @Test
+    void unchangedTombstonesAreNotQueried() {
+        LocalDateTime previous = LocalDateTime.now().minusMinutes(1);
+        when(ticketRepository.findSummaryChangedSince(any(), any(Pageable.class))).thenReturn(List.of());
+
+        TicketChangesDTO delta = changes.changesSince(TicketChangeService.encodeToken(new Watermark(previous, 5L)),
+                new Watermark(previous, 5L));
+
+        assertTrue(delta.getDeletedIds().isEmpty());
+        verify(ticketTombstoneRepository, never()).findTicketIdsAfter(any());
+    }
+
+    @Test
+    void clientsResyncWhenTheDeltaCannotBeServed() {
+        Watermark current = new Watermark(LocalDateTime.now(), 5L);
+        String recent = TicketChangeService.encodeToken(new Watermark(LocalDateTime.now().minusMinutes(1), 5L));
+        // Tombstones 2 and 3 were pruned, the client never saw them
+        String prunedTombstones = TicketChangeService.encodeToken(new Watermark(LocalDateTime.now().minusMinutes(1), 1L));
+        when(ticketTombstoneRepository.findOldestId()).thenReturn(4L);
+        when(ticketRepository.findSummaryChangedSince(any(), any(Pageable.class)))
+                .thenReturn(Collections.nCopies(TicketChangeService.MAX_CHANGES + 1, mock(TicketSummaryDTO.class)));
+
+        assertTrue(changes.changesSince("garbage", current).isResync());
+        assertTrue(changes.changesSince(prunedTombstones, current).isResync());
+        assertTrue(changes.changesSince(recent, current).isResync(), "too many changes");
+        assertFalse(changes.changesSince(null, current).isResync());
+    }
+
+    @Test
+    void idleClientsGetADeltaWhileTheirTombstonesAreStillStored() {
+        LocalDateTime lastChange = LocalDateTime.now().minus(TicketChangeService.TOMBSTONE_RETENTION).minusDays(3);
+        Watermark current = new Watermark(LocalDateTime.now(), 9L);
+        when(ticketRepository.findSummaryChangedSince(any(), any(Pageable.class))).thenReturn(List.of());
+        when(ticketTombstoneRepository.findOldestId()).thenReturn(6L);
+        when(ticketTombstoneRepository.findTicketIdsAfter(5L)).thenReturn(List.of(40L));
+
+        TicketChangesDTO delta = changes.changesSince(TicketChangeService.encodeToken(new Watermark(lastChange, 5L)), current);
+
+        assertFalse(delta.isResync());
+        assertEquals(List.of(40L), delta.getDeletedIds());
+    }
+
+    private static TicketTombstoneRepository.TicketWatermark watermarkRow(String maxUpdatedAt, Long maxTombstoneId) {
+        return new TicketTombstoneRepository.TicketWatermark() {
+            @Override public String getMaxUpdatedAt() { return maxUpdatedAt; }
+            @Override public Long getMaxTombstoneId() { return maxTombstoneId; }
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.TicketEventDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TicketEventBroadcasterTest {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final TicketEventBroadcaster broadcaster = new TicketEventBroadcaster();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(broadcaster, "messagingTemplate", messagingTemplate);
+    }
+
+    @Test
+    void burstBecomesOneFrameWithTheLatestChangePerTicket() {
+        broadcaster.onTicketChanged(event(1L, TicketChangedEvent.Type.RESPONDED, "Open", "alice"));
+        broadcaster.onTicketChanged(event(1L, TicketChangedEvent.Type.STATUS_CHANGED, "Resolved", "alice"));
+        broadcaster.onTicketChanged(event(2L, TicketChangedEvent.Type.CREATED, "Open", "bob"));
+
+        broadcaster.flush();
+
+        List<TicketEventDTO> batch = agentFrame();
+        assertEquals(2, batch.size());
+        TicketEventDTO first = batch.stream().min(Comparator.comparing(TicketEventDTO::getTicketId)).orElseThrow();
+        assertEquals("STATUS_CHANGED", first.getType());
+        assertEquals("Resolved", first.getStatus());
+        verify(messagingTemplate).convertAndSendToUser(eq("alice"), eq(TicketEventBroadcaster.OWNER_QUEUE),
+                argThat((List<TicketEventDTO> events) -> events.size() == 1 && events.get(0).getTicketId() == 1L));
+        verify(messagingTemplate).convertAndSendToUser(eq("bob"), eq(TicketEventBroadcaster.OWNER_QUEUE), any(Object.class));
+    }
+
+    @Test
+    void laterUpdateDoesNotHideADeletion() {
+        broadcaster.onTicketChanged(event(1L, TicketChangedEvent.Type.DELETED, null, "alice"));
+        broadcaster.onTicketChanged(event(1L, TicketChangedEvent.Type.UPDATED, "Open", "alice"));
+
+        broadcaster.flush();
+
+        assertEquals("DELETED", agentFrame().get(0).getType());
+    }
+
+    @Test
+    void quietIntervalsSendNothingAndEventsAreSentOnce() {
+        broadcaster.flush();
+        verifyNoInteractions(messagingTemplate);
+
+        broadcaster.onTicketChanged(event(1L, TicketChangedEvent.Type.CREATED, "Open", null));
+        broadcaster.flush();
+        broadcaster.flush();
+
+        verify(messagingTemplate, times(1)).convertAndSend(eq(TicketEventBroadcaster.AGENT_TOPIC), any(Object.class));
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any(Object.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TicketEventDTO> agentFrame() {
+        ArgumentCaptor<Object> frame = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq(TicketEventBroadcaster.AGENT_TOPIC), frame.capture());
+        return (List<TicketEventDTO>) frame.getValue();
+    }
+
+    private static TicketChangedEvent event(Long id, TicketChangedEvent.Type type, String status, String owner) {
+        return new TicketChangedEvent(id, type, status, "Printer jammed", "Technical", owner, null, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,115 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.TicketPageDTO;
+import lk.sliit.customer_care_system.dto.TicketSummaryDTO;
+import lk.sliit.customer_care_system.modelentity.Ticket;
+import lk.sliit.customer_care_system.modelentity.User;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import lk.sliit.customer_care_system.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset pages against an in-memory H2 database: walking every cursor must visit each ticket
+ * exactly once, newest first, including tickets that share a created_at.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import(TicketQueryService.class)
+class TicketQueryServiceTest {
+
+    @Autowired private TicketQueryService ticketQueryService;
+    @Autowired private TicketRepository ticketRepository;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void cursorRoundTrips() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 10, 18, 9, 30, 15, 123_000_000);
+
+        TicketQueryService.Cursor cursor = TicketQueryService.decodeCursor(TicketQueryService.encodeCursor(createdAt, 42L));
+
+        assertEquals(createdAt, cursor.createdAt());
+        assertEquals(42L, cursor.id());
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TicketQueryService.decodeCursor("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> TicketQueryService.decodeCursor("bm8tc2VwYXJhdG9y"));
+        assertThrows(IllegalArgumentException.class, () -> ticketQueryService.listTickets("bm90fGEtZGF0ZQ", 5, null, null));
+    }
+
+    @Test
+    void pagesVisitEveryTicketOnceNewestFirst() {
+        User owner = userRepository.save(user());
+        LocalDateTime base = LocalDateTime.of(2026, 10, 1, 12, 0);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            // Pairs of tickets share a timestamp so the id tie-break is exercised
+            Ticket ticket = ticketRepository.save(ticket(owner, base.plusMinutes(i / 2), i % 3 == 0 ? "Closed" : "Open"));
+            expected.add(0, ticket.getId());
+        }
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TicketPageDTO page = ticketQueryService.listTickets(cursor, 5, null, null);
+            page.getItems().stream().map(TicketSummaryDTO::getId).forEach(seen::add);
+            cursor = page.getNextCursor();
+            assertEquals(cursor != null, page.isHasMore());
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void filtersApplyOnEveryPage() {
+        User owner = userRepository.save(user());
+        LocalDateTime base = LocalDateTime.of(2026, 10, 1, 12, 0);
+        for (int i = 0; i < 9; i++) {
+            ticketRepository.save(ticket(owner, base.plusMinutes(i), i % 3 == 0 ? "Closed" : "Open"));
+        }
+
+        TicketPageDTO first = ticketQueryService.listTickets(null, 2, "Closed", null);
+        TicketPageDTO second = ticketQueryService.listTickets(first.getNextCursor(), 2, "Closed", null);
+
+        assertEquals(2, first.getItems().size());
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+        assertTrue(second.getItems().stream().allMatch(row -> "Closed".equals(row.getStatus())));
+    }
+
+    private static Ticket ticket(User owner, LocalDateTime createdAt, String status) {
+        Ticket ticket = new Ticket();
+        ticket.setTitle("Printer jammed");
+        ticket.setDescription("Paper is stuck in tray two");
+        ticket.setCategory("Technical");
+        ticket.setStatus(status);
+        ticket.setCreatedAt(createdAt);
+        ticket.setUser(owner);
+        return ticket;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setUsername("customer");
+        user.setPassword("Passw0rd!");
+        user.setRole("ROLE_USER");
+        user.setPhoneNumber("0771234567");
+        user.setAddress("1 Main Street");
+        return user;
+    }
+}
@@ -0,0 +1,146 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.modelentity.Ticket;
+import lk.sliit.customer_care_system.modelentity.User;
+import lk.sliit.customer_care_system.repository.TicketRepository;
+import lk.sliit.customer_care_system.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class TicketRoutingServiceTest {
+
+    private final TicketRepository ticketRepository = mock(TicketRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TicketRoutingService routing = new TicketRoutingService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(routing, "ticketRepository", ticketRepository);
+        ReflectionTestUtils.setField(routing, "userRepository", userRepository);
+        ReflectionTestUtils.setField(routing, "environment", new MockEnvironment());
+        when(userRepository.getReferenceById(anyLong())).thenAnswer(call -> agent(call.getArgument(0), "agent"));
+        routing.registerAgent(agent(1L, "ann"));
+        routing.registerAgent(agent(2L, "bob"));
+    }
+
+    @Test
+    void pickedTicketIsReservedUntilStoredOrCancelled() {
+        Ticket ticket = ticket();
+        User picked = routing.assign(ticket);
+        assertEquals(1, load(picked.getId()));
+
+        // Save failed: the reservation is given back
+        routing.cancelAssignment(ticket);
+        assertEquals(0, load(picked.getId()));
+
+        Ticket stored = ticket();
+        User next = routing.assign(stored);
+        routing.onTicketChanged(event(10L, TicketChangedEvent.Type.CREATED, "Open", next.getId()));
+        assertEquals(1, load(next.getId()), "the CREATED event must not count the ticket twice");
+        routing.onTicketChanged(event(10L, TicketChangedEvent.Type.STATUS_CHANGED, "Closed", next.getId()));
+        assertEquals(0, load(next.getId()));
+    }
+
+    @Test
+    void concurrentSubmitsAreSpreadOverTheAgents() throws Exception {
+        int submits = 40;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<User>> picks = new ArrayList<>();
+        for (int i = 0; i < submits; i++) {
+            picks.add(pool.submit(() -> {
+                start.await();
+                return routing.assign(ticket()); // none of them is stored yet
+            }));
+        }
+        start.countDown();
+        Map<Long, Integer> perAgent = new HashMap<>();
+        for (Future<User> pick : picks) {
+            perAgent.merge(pick.get(10, TimeUnit.SECONDS).getId(), 1, Integer::sum);
+        }
+        pool.shutdown();
+
+        assertEquals(Map.of(1L, submits / 2, 2L, submits / 2), perAgent);
+        assertEquals(submits / 2, load(1L));
+    }
+
+    @Test
+    void reservationsSurviveARebuild() {
+        when(userRepository.findAllByRole("ROLE_AGENT")).thenReturn(List.of(agent(1L, "ann"), agent(2L, "bob")));
+        when(ticketRepository.findAssignments(TicketRoutingService.OPEN_STATUSES))
+                .thenReturn(List.of()).thenReturn(List.<Object[]>of(new Object[]{10L, 1L}));
+        User picked = routing.assign(ticket());
+
+        routing.rebuild(); // ticket not stored yet
+        assertEquals(1, load(picked.getId()));
+
+        routing.rebuild(); // stored, CREATED event not delivered yet
+        routing.onTicketChanged(event(10L, TicketChangedEvent.Type.CREATED, "Open", 1L));
+        assertEquals(1, load(1L));
+    }
+
+    @Test
+    void resolvingResponseReleasesTheAgent() {
+        routing.onTicketChanged(event(10L, TicketChangedEvent.Type.CREATED, "Open", 1L));
+        routing.onTicketChanged(event(10L, TicketChangedEvent.Type.RESPONDED, "In Progress", 1L));
+        assertEquals(1, load(1L));
+
+        routing.onTicketChanged(event(10L, TicketChangedEvent.Type.RESPONDED, "Resolved", 1L));
+        assertEquals(0, load(1L));
+    }
+
+    @Test
+    void reopenedTicketCountsAgain() {
+        routing.onTicketChanged(event(10L, TicketChangedEvent.Type.CREATED, "Open", 1L));
+        routing.onTicketChanged(event(10L, TicketChangedEvent.Type.STATUS_CHANGED, "Closed", 1L));
+        assertEquals(0, load(1L));
+
+        routing.onTicketChanged(event(10L, TicketChangedEvent.Type.STATUS_CHANGED, "Open", 1L));
+        assertEquals(1, load(1L));
+
+        // Repeated open statuses do not count twice
+        routing.onTicketChanged(event(10L, TicketChangedEvent.Type.RESPONDED, "Open", 1L));
+        assertEquals(1, load(1L));
+    }
+
+    private int load(Long agentId) {
+        return routing.snapshot().stream()
+                .filter(row -> agentId.equals(row.get("agentId")))
+                .map(row -> (Integer) row.get("openLoad"))
+                .findFirst().orElseThrow();
+    }
+
+    private static User agent(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+
+    private static Ticket ticket() {
+        Ticket ticket = new Ticket();
+        ticket.setCategory("Technical");
+        return ticket;
+    }
+
+    private static TicketChangedEvent event(Long ticketId, TicketChangedEvent.Type type, String status, Long agentId) {
+        return new TicketChangedEvent(ticketId, type, status, "Printer", "Technical", "alice", agentId, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,53 @@
+package lk.sliit.customer_care_system.service;
+
+import lk.sliit.customer_care_system.dto.AgentTicketRowDTO;
+import lk.sliit.customer_care_system.dto.TicketSearchHitDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketSearchServiceTest {
+
+    private final TicketSearchService search = new TicketSearchService();
+
+    @Test
+    void titleMatchesRankAboveDescriptionMatches() {
+        search.index(row(1L, "Login fails", "Printer is fine", "Open"));
+        search.index(row(2L, "Printer jammed", "Cannot login either", "Open"));
+
+        List<TicketSearchHitDTO> hits = search.search("printer", null, null, null);
+
+        assertEquals(List.of(2L, 1L), hits.stream().map(TicketSearchHitDTO::getId).toList());
+    }
+
+    @Test
+    void responseStatusChangeIsAppliedToTheIndex() {
+        search.index(row(1L, "Printer jammed", "Paper stuck", "Open"));
+
+        search.onTicketChanged(event(1L, TicketChangedEvent.Type.RESPONDED, "Resolved"));
+
+        assertTrue(search.search("printer", "Open", null, null).isEmpty());
+        assertEquals(1, search.search("printer", "Resolved", null, null).size());
+    }
+
+    @Test
+    void deletedTicketsLeaveTheIndex() {
+        search.index(row(1L, "Printer jammed", "Paper stuck", "Open"));
+
+        search.onTicketChanged(event(1L, TicketChangedEvent.Type.DELETED, null));
+
+        assertTrue(search.search("printer", null, null, null).isEmpty());
+        assertEquals(0, search.size());
+    }
+
+    private static AgentTicketRowDTO row(Long id, String title, String description, String status) {
+        return new AgentTicketRowDTO(id, title, description, "Technical", status, LocalDateTime.now(), "alice", null);
+    }
+
+    private static TicketChangedEvent event(Long id, TicketChangedEvent.Type type, String status) {
+        return new TicketChangedEvent(id, type, status, "Printer jammed", "Technical", "alice", null, LocalDateTime.now());
+    }
+}